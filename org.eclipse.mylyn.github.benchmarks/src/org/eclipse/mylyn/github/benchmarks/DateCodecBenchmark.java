@@ -0,0 +1,86 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.benchmarks;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.mylyn.github.internal.GitHubDateCodec;
+import org.eclipse.mylyn.github.internal.GitHubIssue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Conversion of the timestamps of all issues of a query into task attribute
+ * values, with a {@link SimpleDateFormat} formatting a localized date as the
+ * task data handler used to do and with {@link GitHubDateCodec}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DateCodecBenchmark {
+
+	@Param({ "100", "1000", "10000", "100000" })
+	private int count;
+
+	private String[] dates;
+	private DateFormat githubDateFormat;
+	private DateFormat dateFormat;
+
+	/**
+	 * Collect the timestamps of the issues.
+	 */
+	@Setup
+	public void setUp() {
+		List<GitHubIssue> issues = IssueFixtures.createIssues(count);
+		dates = new String[issues.size() * 2];
+		for (int i = 0; i < issues.size(); i++) {
+			dates[2 * i] = issues.get(i).getCreatedAt();
+			dates[2 * i + 1] = issues.get(i).getUpdatedAt();
+		}
+		githubDateFormat = new SimpleDateFormat(
+				GitHubDateCodec.GITHUB_DATE_FORMAT);
+		dateFormat = SimpleDateFormat.getDateTimeInstance();
+	}
+
+	/**
+	 * @param blackhole
+	 *            - consumes the attribute values
+	 * @throws ParseException
+	 */
+	@Benchmark
+	public void simpleDateFormat(Blackhole blackhole) throws ParseException {
+		for (String date : dates) {
+			blackhole.consume(dateFormat.format(githubDateFormat.parse(date)));
+		}
+	}
+
+	/**
+	 * @param blackhole
+	 *            - consumes the attribute values
+	 */
+	@Benchmark
+	public void dateCodec(Blackhole blackhole) {
+		for (String date : dates) {
+			blackhole.consume(GitHubDateCodec.toAttributeValue(date));
+		}
+	}
+
+}
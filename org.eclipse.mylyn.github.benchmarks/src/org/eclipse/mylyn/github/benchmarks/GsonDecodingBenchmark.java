@@ -0,0 +1,74 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.benchmarks;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.mylyn.github.internal.GitHubComments;
+import org.eclipse.mylyn.github.internal.GitHubIssues;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Decoding of issue list and comment responses with Gson.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GsonDecodingBenchmark {
+
+	@Param({ "100", "1000", "10000", "100000" })
+	private int count;
+
+	private Gson gson;
+	private String issues;
+	private String comments;
+
+	/**
+	 * Encode the fixtures as the server would send them.
+	 */
+	@Setup
+	public void setUp() {
+		gson = new Gson();
+		issues = gson.toJson(new GitHubIssues(IssueFixtures
+				.createIssues(count)));
+		comments = gson.toJson(new GitHubComments(IssueFixtures
+				.createComments(count)));
+	}
+
+	/**
+	 * @return decoded issue list
+	 */
+	@Benchmark
+	public GitHubIssues decodeIssues() {
+		return gson.fromJson(new JsonReader(new StringReader(issues)),
+				GitHubIssues.class);
+	}
+
+	/**
+	 * @return decoded comments
+	 */
+	@Benchmark
+	public GitHubComments decodeComments() {
+		return gson.fromJson(new JsonReader(new StringReader(comments)),
+				GitHubComments.class);
+	}
+
+}
@@ -0,0 +1,75 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jface.text.hyperlink.IHyperlink;
+import org.eclipse.mylyn.github.internal.GitHub;
+import org.eclipse.mylyn.github.internal.GitHubRepositoryUrlBuilder;
+import org.eclipse.mylyn.github.ui.internal.GitHubRepositoryConnectorUI;
+import org.eclipse.mylyn.tasks.core.TaskRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hyperlink detection of
+ * {@link GitHubRepositoryConnectorUI#findHyperlinks(TaskRepository, String, int, int)}
+ * in text with <code>count</code> issue references of the own repository,
+ * so no repository lookup in the workbench is needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HyperlinkBenchmark {
+
+	@Param({ "100", "1000", "10000", "100000" })
+	private int count;
+
+	private GitHubRepositoryConnectorUI connectorUi;
+	private TaskRepository repository;
+	private String text;
+
+	/**
+	 * Create the text and a repository.
+	 */
+	@Setup
+	public void setUp() {
+		connectorUi = new GitHubRepositoryConnectorUI();
+		repository = new TaskRepository(GitHub.CONNECTOR_KIND,
+				GitHubRepositoryUrlBuilder.buildGitHubUrl(IssueFixtures.USER,
+						IssueFixtures.PROJECT));
+		text = IssueFixtures.createReferencingText(count);
+	}
+
+	/**
+	 * @return all hyperlinks of the text
+	 */
+	@Benchmark
+	public IHyperlink[] findAll() {
+		return connectorUi.findHyperlinks(repository, text, -1, 0);
+	}
+
+	/**
+	 * @return the hyperlink in the middle of the text
+	 */
+	@Benchmark
+	public IHyperlink[] findAtIndex() {
+		return connectorUi.findHyperlinks(repository, text,
+				text.length() / 2, 0);
+	}
+
+}
@@ -0,0 +1,127 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.mylyn.github.internal.GitHub;
+import org.eclipse.mylyn.github.internal.GitHubComment;
+import org.eclipse.mylyn.github.internal.GitHubDateCodec;
+import org.eclipse.mylyn.github.internal.GitHubIssue;
+
+/**
+ * Generated issues and comments shared by the benchmarks. The same seed
+ * always generates the same fixtures, so runs can be compared.
+ */
+final class IssueFixtures {
+
+	/**
+	 * Labels, the first ones are carried by many issues, the last ones by
+	 * few.
+	 */
+	static final String[] LABELS = { "bug", "feature", "ui", "core",
+			"question", "documentation", "performance", "security" };
+
+	static final String USER = "devsprint";
+	static final String PROJECT = "org.eclipse.mylyn.github";
+
+	private static final String[] WORDS = { "editor", "query", "label",
+			"repository", "comment", "task", "sync", "error", "when", "the",
+			"is", "not", "shown", "after", "update", "connector", "fails",
+			"with", "exception", "attribute" };
+
+	private static final long SEED = 42;
+
+	private IssueFixtures() {
+
+	}
+
+	/**
+	 * @param count
+	 *            - number of issues
+	 * @return generated issues, numbered from 1
+	 */
+	static List<GitHubIssue> createIssues(int count) {
+		Random random = new Random(SEED);
+		long time = GitHubDateCodec.parse("2010/02/02 22:58:39 -0800");
+		List<GitHubIssue> issues = new ArrayList<GitHubIssue>(count);
+		for (int i = 0; i < count; i++) {
+			long created = time + i * 3600 * 1000L;
+			boolean closed = random.nextInt(4) == 0;
+			GitHubIssue issue = new GitHubIssue();
+			issue.setNumber(Integer.toString(i + 1));
+			issue.setUser("user" + random.nextInt(100));
+			issue.setGravatarId("0123456789abcdef0123456789abcdef");
+			issue.setTitle(text(random, 6));
+			issue.setBody(text(random, 60));
+			issue.setState(closed ? GitHub.TASK_STATUS_CLOSED
+					: GitHub.TASK_STATUS_OPEN);
+			issue.setCreatedAt(GitHubDateCodec.format(created));
+			issue.setUpdatedAt(GitHubDateCodec.format(created + 60 * 1000L));
+			if (closed) {
+				issue.setClosedAt(GitHubDateCodec
+						.format(created + 120 * 1000L));
+			}
+			List<String> labels = new ArrayList<String>();
+			for (int l = 0; l < LABELS.length; l++) {
+				// label l is carried by one issue in 2^(l + 1)
+				if (random.nextInt(2 << l) == 0) {
+					labels.add(LABELS[l]);
+				}
+			}
+			issue.setLabels(labels);
+			issue.setVotes(Integer.valueOf(random.nextInt(10)));
+			issue.setComments(Integer.valueOf(random.nextInt(5)));
+			issues.add(issue);
+		}
+		return issues;
+	}
+
+	/**
+	 * @param count
+	 *            - number of comments
+	 * @return generated comments
+	 */
+	static List<GitHubComment> createComments(int count) {
+		Random random = new Random(SEED);
+		long time = GitHubDateCodec.parse("2010/02/03 10:00:00 -0800");
+		List<GitHubComment> comments = new ArrayList<GitHubComment>(count);
+		for (int i = 0; i < count; i++) {
+			String date = GitHubDateCodec.format(time + i * 60 * 1000L);
+			comments.add(new GitHubComment("0123456789abcdef0123456789abcdef",
+					"user" + random.nextInt(100), text(random, 30), Integer
+							.toString(i + 1), date, date));
+		}
+		return comments;
+	}
+
+	/**
+	 * @param count
+	 *            - number of issue references
+	 * @return comment text referring to issues with <code>#number</code>
+	 */
+	static String createReferencingText(int count) {
+		Random random = new Random(SEED);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			text.append(text(random, 4)).append(" #")
+					.append(random.nextInt(count) + 1).append(". ");
+		}
+		return text.toString();
+	}
+
+	private static String text(Random random, int words) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < words; i++) {
+			if (i > 0) {
+				text.append(' ');
+			}
+			text.append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		return text.toString();
+	}
+
+}
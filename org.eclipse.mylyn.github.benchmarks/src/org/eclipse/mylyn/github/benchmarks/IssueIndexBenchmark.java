@@ -0,0 +1,143 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.mylyn.github.internal.GitHub;
+import org.eclipse.mylyn.github.internal.GitHubComment;
+import org.eclipse.mylyn.github.internal.GitHubIssue;
+import org.eclipse.mylyn.github.internal.GitHubIssueIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Text queries answered by {@link GitHubIssueIndex}, selecting from all
+ * issues as a query of all issues does, and indexing of all issues. The
+ * words of the issues are picked with a skewed distribution from a large
+ * vocabulary, so the queries mix very common and rare words; the fixtures
+ * of {@link IssueFixtures} use too few words for this.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class IssueIndexBenchmark {
+
+	private static final int VOCABULARY = 20000;
+	private static final int WORDS_PER_ISSUE = 40;
+	private static final int COMMENTS_PER_ISSUE = 2;
+	private static final int QUERIES = 1000;
+
+	@Param({ "10000", "100000" })
+	private int count;
+
+	private List<GitHubIssue> issues;
+	private List<List<GitHubComment>> comments;
+	private GitHubIssueIndex index;
+	private String[] queries;
+	private int query;
+
+	/**
+	 * Create the issues, their index and the queries.
+	 */
+	@Setup
+	public void setUp() {
+		Random random = new Random(count);
+		issues = new ArrayList<GitHubIssue>(count);
+		comments = new ArrayList<List<GitHubComment>>(count);
+		for (int i = 0; i < count; i++) {
+			issues.add(createIssue(random, i + 1));
+			List<GitHubComment> issueComments = new ArrayList<GitHubComment>();
+			for (int c = 0; c < COMMENTS_PER_ISSUE; c++) {
+				issueComments.add(new GitHubComment("", "user", text(random,
+						WORDS_PER_ISSUE / 2), Integer.toString(c), null, null));
+			}
+			comments.add(issueComments);
+		}
+		index = buildIndex();
+
+		queries = new String[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			switch (i % 3) {
+			case 0:
+				queries[i] = word(random);
+				break;
+			case 1:
+				queries[i] = word(random) + " " + word(random);
+				break;
+			default:
+				// partially typed word
+				String word = word(random);
+				queries[i] = word.substring(0, Math.max(2, word.length() - 2));
+				break;
+			}
+		}
+	}
+
+	/**
+	 * @return issues matching the next query
+	 */
+	@Benchmark
+	public List<GitHubIssue> filter() {
+		query = (query + 1) % QUERIES;
+		return index.filter(issues, queries[query]);
+	}
+
+	/**
+	 * @return index of all issues
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public GitHubIssueIndex buildIndex() {
+		GitHubIssueIndex built = new GitHubIssueIndex();
+		for (int i = 0; i < issues.size(); i++) {
+			built.add(issues.get(i), comments.get(i));
+		}
+		return built;
+	}
+
+	private static GitHubIssue createIssue(Random random, int number) {
+		GitHubIssue issue = new GitHubIssue();
+		issue.setNumber(Integer.toString(number));
+		issue.setTitle(text(random, 6));
+		issue.setBody(text(random, WORDS_PER_ISSUE));
+		issue.setState(GitHub.TASK_STATUS_OPEN);
+		issue.setLabels(Arrays.asList(IssueFixtures.LABELS[random
+				.nextInt(IssueFixtures.LABELS.length)]));
+		return issue;
+	}
+
+	private static String text(Random random, int words) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < words; i++) {
+			text.append(word(random)).append(i % 8 == 7 ? ". " : " ");
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Pick a word, the lower the rank the more likely.
+	 */
+	private static String word(Random random) {
+		double skewed = Math.pow(random.nextDouble(), 3);
+		return "w" + Integer.toString((int) (skewed * VOCABULARY), 36) + "x";
+	}
+
+}
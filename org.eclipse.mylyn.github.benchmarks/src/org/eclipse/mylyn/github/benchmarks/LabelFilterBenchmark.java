@@ -0,0 +1,83 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.benchmarks;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.mylyn.github.internal.GitHubIssue;
+import org.eclipse.mylyn.github.internal.GitHubIssues;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Label queries of {@link GitHubIssues#getIssuesLabeled(String)}, on a fresh
+ * issue list that first builds its label index and on a list that already
+ * has one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LabelFilterBenchmark {
+
+	@Param({ "100", "1000", "10000", "100000" })
+	private int count;
+
+	@Param({ "bug", "security" })
+	private String label;
+
+	private List<GitHubIssue> issues;
+	private GitHubIssues indexed;
+
+	/**
+	 * Create the issues and a list with a label index.
+	 */
+	@Setup
+	public void setUp() {
+		issues = IssueFixtures.createIssues(count);
+		indexed = new GitHubIssues(issues);
+		indexed.getIssuesLabeled(label);
+	}
+
+	/**
+	 * @return number of labeled issues
+	 */
+	@Benchmark
+	public int firstQuery() {
+		return size(new GitHubIssues(issues).getIssuesLabeled(label));
+	}
+
+	/**
+	 * @return number of labeled issues
+	 */
+	@Benchmark
+	public int indexedQuery() {
+		return size(indexed.getIssuesLabeled(label));
+	}
+
+	private static int size(Collection<GitHubIssue> labeled) {
+		// iterate, the result may be a lazy view
+		int size = 0;
+		for (GitHubIssue issue : labeled) {
+			if (issue != null) {
+				size++;
+			}
+		}
+		return size;
+	}
+
+}
@@ -0,0 +1,91 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.mylyn.github.internal.GitHub;
+import org.eclipse.mylyn.github.internal.GitHubComments;
+import org.eclipse.mylyn.github.internal.GitHubIssue;
+import org.eclipse.mylyn.github.internal.GitHubRepositoryUrlBuilder;
+import org.eclipse.mylyn.github.internal.GitHubTaskDataHandler;
+import org.eclipse.mylyn.tasks.core.TaskRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Creation of the task data of all issues of a query, as partial task data
+ * and as full task data with comments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TaskDataBenchmark {
+
+	private static final int COMMENTS_PER_ISSUE = 3;
+
+	@Param({ "100", "1000", "10000", "100000" })
+	private int count;
+
+	private GitHubTaskDataHandler handler;
+	private TaskRepository repository;
+	private List<GitHubIssue> issues;
+	private GitHubComments comments;
+
+	/**
+	 * Create the issues and a repository.
+	 */
+	@Setup
+	public void setUp() {
+		handler = new GitHubTaskDataHandler();
+		repository = new TaskRepository(GitHub.CONNECTOR_KIND,
+				GitHubRepositoryUrlBuilder.buildGitHubUrl(IssueFixtures.USER,
+						IssueFixtures.PROJECT));
+		issues = IssueFixtures.createIssues(count);
+		comments = new GitHubComments(
+				IssueFixtures.createComments(COMMENTS_PER_ISSUE));
+	}
+
+	/**
+	 * @param blackhole
+	 *            - consumes the task data
+	 */
+	@Benchmark
+	public void createPartialTaskData(Blackhole blackhole) {
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		for (GitHubIssue issue : issues) {
+			blackhole.consume(handler.createTaskData(repository, monitor,
+					issue, null));
+		}
+	}
+
+	/**
+	 * @param blackhole
+	 *            - consumes the task data
+	 */
+	@Benchmark
+	public void createFullTaskData(Blackhole blackhole) {
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		for (GitHubIssue issue : issues) {
+			blackhole.consume(handler.createTaskData(repository, monitor,
+					issue, comments));
+		}
+	}
+
+}
@@ -0,0 +1,118 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.mylyn.github.internal.GitHub;
+import org.eclipse.mylyn.github.internal.GitHubRepositoryCoordinates;
+import org.eclipse.mylyn.github.internal.GitHubRepositoryUrlBuilder;
+import org.eclipse.mylyn.tasks.core.TaskRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * URL building and parsing of {@link GitHubRepositoryUrlBuilder} and
+ * {@link GitHubRepositoryCoordinates} for every issue of a query, as done
+ * when task data, task URLs and request URIs are created.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class UrlBuilderBenchmark {
+
+	@Param({ "100", "1000", "10000", "100000" })
+	private int count;
+
+	private String repositoryUrl;
+	private TaskRepository repository;
+	private String[] taskIds;
+	private String[] taskUrls;
+
+	/**
+	 * Create the task ids and task URLs.
+	 */
+	@Setup
+	public void setUp() {
+		repositoryUrl = GitHubRepositoryUrlBuilder.buildGitHubUrl(
+				IssueFixtures.USER, IssueFixtures.PROJECT);
+		repository = new TaskRepository(GitHub.CONNECTOR_KIND, repositoryUrl);
+		taskIds = new String[count];
+		taskUrls = new String[count];
+		for (int i = 0; i < count; i++) {
+			taskIds[i] = Integer.toString(i + 1);
+			taskUrls[i] = GitHubRepositoryUrlBuilder.obtainTaskUrl(
+					repositoryUrl, taskIds[i]);
+		}
+	}
+
+	/**
+	 * @return total length of the task URLs
+	 */
+	@Benchmark
+	public int buildTaskUrls() {
+		int length = 0;
+		for (String taskId : taskIds) {
+			length += GitHubRepositoryUrlBuilder.obtainTaskUrl(repositoryUrl,
+					taskId).length();
+		}
+		return length;
+	}
+
+	/**
+	 * @return total length of the parsed task ids and repository URLs
+	 */
+	@Benchmark
+	public int parseTaskUrls() {
+		int length = 0;
+		for (String taskUrl : taskUrls) {
+			length += GitHubRepositoryUrlBuilder
+					.obtainTaskIdFromTaskUrl(taskUrl).length();
+			length += GitHubRepositoryUrlBuilder
+					.obtainRepositoryUrlFromTaskUrl(taskUrl).length();
+		}
+		return length;
+	}
+
+	/**
+	 * @return total length of the user and project names
+	 */
+	@Benchmark
+	public int parseRepositoryUrls() {
+		int length = 0;
+		for (int i = 0; i < count; i++) {
+			length += GitHubRepositoryUrlBuilder.buildTaskRepositoryUserName(
+					repositoryUrl).length();
+			length += GitHubRepositoryUrlBuilder.buildTaskRepositoryProject(
+					repositoryUrl).length();
+		}
+		return length;
+	}
+
+	/**
+	 * @return total length of the request URIs of the issues
+	 */
+	@Benchmark
+	public int buildRequestUris() {
+		int length = 0;
+		for (String taskId : taskIds) {
+			length += (GitHubRepositoryCoordinates.get(repository)
+					.getEndpointUri(GitHub.SHOW) + "/" + taskId).length();
+		}
+		return length;
+	}
+
+}
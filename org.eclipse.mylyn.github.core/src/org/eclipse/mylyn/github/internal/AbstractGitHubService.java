@@ -3,17 +3,20 @@
  */
 package org.eclipse.mylyn.github.internal;
 
-import static org.eclipse.mylyn.github.internal.GitHubRepositoryUrlBuilder.buildTaskRepositoryProject;
-import static org.eclipse.mylyn.github.internal.GitHubRepositoryUrlBuilder.buildTaskRepositoryUserName;
-
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 
+import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpException;
 import org.apache.commons.httpclient.HttpMethod;
 import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.httpclient.NameValuePair;
 import org.apache.commons.httpclient.URIException;
+import org.apache.commons.httpclient.UsernamePasswordCredentials;
+import org.apache.commons.httpclient.auth.BasicScheme;
+import org.apache.commons.httpclient.methods.GetMethod;
 import org.apache.commons.httpclient.methods.PostMethod;
 import org.apache.commons.httpclient.util.URIUtil;
 import org.eclipse.mylyn.commons.net.AuthenticationCredentials;
@@ -21,6 +24,8 @@ import org.eclipse.mylyn.commons.net.AuthenticationType;
 import org.eclipse.mylyn.tasks.core.TaskRepository;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
 
 /**
  * Provides GitHub Services
@@ -31,15 +36,26 @@ import com.google.gson.Gson;
 public abstract class AbstractGitHubService {
 
 	private final TaskRepository taskRepository;
+	private final GitHubRepositoryCoordinates coordinates;
 
+	private final GitHubTransport transport;
 	private final HttpClient httpClient;
+	private final GitHubRequestScheduler scheduler;
 	private final Gson gson;
 
 	protected static final String FAILED_TO_READ_RESPONSE_BODY_EXCEPTION_MESSAGE = "Failed to read response body.";
 
+	protected static final String CHARSET_UTF_8 = "UTF-8";
+
+	private static final int BUFFER_SIZE = 8192;
+
 	protected AbstractGitHubService(TaskRepository repository) {
 		this.taskRepository = repository;
-		this.httpClient = new HttpClient();
+		this.coordinates = repository == null ? null
+				: GitHubRepositoryCoordinates.get(repository);
+		this.transport = GitHubTransport.get(repository);
+		this.httpClient = transport.getHttpClient();
+		this.scheduler = GitHubRequestScheduler.get(getApiUrlBase());
 		this.gson = new Gson();
 	}
 
@@ -65,25 +81,303 @@ public abstract class AbstractGitHubService {
 		return method;
 	}
 
-	protected final void executeMethod(HttpMethod method)
+	/**
+	 * Read and decode a JSON resource, revalidating a previously decoded
+	 * response with a conditional GET. When the server answers
+	 * <code>304 Not Modified</code> the cached object is returned without
+	 * decoding anything.
+	 * 
+	 * @param uri
+	 *            - resource uri
+	 * @param type
+	 *            - type of the decoded response
+	 * @return decoded response, shared with other callers and to be treated
+	 *         as read only
+	 * @throws GitHubServiceException
+	 */
+	protected final <V> V executeRead(String uri, final Class<V> type)
+			throws GitHubServiceException {
+		return executeRead(uri, createDecoder(type));
+	}
+
+	/**
+	 * Decode the JSON body of a response to a request sent with
+	 * {@link #executeOperation(String, NameValuePair[])} or
+	 * {@link #executeMethod(HttpMethod)}. The caller releases the connection.
+	 * 
+	 * @param method
+	 *            - executed request
+	 * @param type
+	 *            - type of the decoded response
+	 * @return decoded response
+	 * @throws GitHubServiceException
+	 */
+	protected final <V> V readResponse(HttpMethod method, Class<V> type)
+			throws GitHubServiceException {
+		return decode(method, createDecoder(type), false);
+	}
+
+	/**
+	 * Read the whole body of a response, decompressed.
+	 * 
+	 * @param method
+	 *            - executed request
+	 * @return body, or null if the response has none
+	 * @throws IOException
+	 */
+	protected final byte[] readResponseBody(HttpMethod method)
+			throws IOException {
+		GitHubEndpointMetrics metrics = getMetrics(method);
+		InputStream stream = getResponseStream(method, metrics);
+		if (stream == null) {
+			return null;
+		}
+		long start = System.nanoTime();
+		try {
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int n;
+			while ((n = stream.read(buffer)) != -1) {
+				body.write(buffer, 0, n);
+			}
+			return body.toByteArray();
+		} finally {
+			stream.close();
+			metrics.getDecodeTime().record(System.nanoTime() - start);
+		}
+	}
+
+	private InputStream getResponseStream(HttpMethod method,
+			GitHubEndpointMetrics metrics) throws IOException {
+		InputStream stream = method.getResponseBodyAsStream();
+		if (stream == null) {
+			return null;
+		}
+		return GitHubContentEncoding.decode(stream,
+				getHeaderValue(method, "Content-Encoding"),
+				transport.getStatistics(), metrics.getTransfer());
+	}
+
+	private static GitHubEndpointMetrics getMetrics(HttpMethod method) {
+		return GitHubMetrics.getDefault().getEndpoint(
+				GitHubMetrics.getEndpointName(method.getPath()));
+	}
+
+	private <V> ResponseDecoder<V> createDecoder(final Class<V> type) {
+		return new ResponseDecoder<V>(type) {
+
+			@Override
+			protected V decode(JsonReader reader, boolean cacheable) {
+				return getGson().fromJson(reader, type);
+			}
+		};
+	}
+
+	/**
+	 * Read a JSON resource with a custom decoder, revalidating a previously
+	 * decoded response with a conditional GET.
+	 * 
+	 * @param uri
+	 *            - resource uri
+	 * @param decoder
+	 *            - decoder reading the response body
+	 * @return decoded or cached response, may be null if the decoder did not
+	 *         return a value
+	 * @throws GitHubServiceException
+	 */
+	protected final <V> V executeRead(String uri, ResponseDecoder<V> decoder)
 			throws GitHubServiceException {
-		int status;
+		NameValuePair[] credentials = getCredentials();
+		String cacheKey = GitHubResponseCache.createKey(uri,
+				credentials[0].getValue(), credentials[1].getValue());
+		GitHubResponseCache cache = transport.getResponseCache();
+		GitHubResponseCache.CachedResponse cached = decoder.getStoredResponse();
+		if (cached == null) {
+			cached = cache.get(cacheKey);
+		}
+
+		GetMethod method = null;
 		try {
-			status = httpClient.executeMethod(method);
-		} catch (HttpException e) {
+			method = new GetMethod(URIUtil.encodePath(uri));
+		} catch (URIException e) {
 			throw new GitHubServiceException(e);
+		}
+		setAuthorization(method, credentials);
+		if (cached != null) {
+			if (cached.getEtag() != null) {
+				method.setRequestHeader("If-None-Match", cached.getEtag());
+			}
+			if (cached.getLastModified() != null) {
+				method.setRequestHeader("If-Modified-Since",
+						cached.getLastModified());
+			}
+		}
+		boolean completed = false;
+		try {
+			executeMethod(method);
+			if (method.getStatusCode() == HttpStatus.SC_NOT_MODIFIED
+					&& cached != null) {
+				V value = decoder.getType().cast(cached.getValue());
+				decoder.notModified(value);
+				completed = true;
+				return value;
+			}
+			String etag = getHeaderValue(method, "ETag");
+			String lastModified = getHeaderValue(method, "Last-Modified");
+			V value = decode(method, decoder, etag != null
+					|| lastModified != null);
+			cache.put(cacheKey, etag, lastModified, value);
+			decoder.decoded(value, etag, lastModified);
+			completed = true;
+			return value;
+		} finally {
+			if (!completed) {
+				// do not drain the rest of an abandoned response
+				method.abort();
+			}
+			method.releaseConnection();
+		}
+	}
+
+	private <V> V decode(HttpMethod method, ResponseDecoder<V> decoder,
+			boolean cacheable) throws GitHubServiceException {
+		GitHubEndpointMetrics metrics = getMetrics(method);
+		try {
+			InputStream stream = getResponseStream(method, metrics);
+			if (stream == null) {
+				throw new GitHubServiceException(
+						FAILED_TO_READ_RESPONSE_BODY_EXCEPTION_MESSAGE);
+			}
+			// includes the time spent waiting for the rest of the body
+			long start = System.nanoTime();
+			JsonReader reader = new JsonReader(new InputStreamReader(stream,
+					CHARSET_UTF_8));
+			try {
+				return decoder.decode(reader, cacheable);
+			} finally {
+				reader.close();
+				metrics.getDecodeTime().record(System.nanoTime() - start);
+			}
 		} catch (IOException e) {
-			throw new GitHubServiceException(e);
+			throw new GitHubServiceException(
+					FAILED_TO_READ_RESPONSE_BODY_EXCEPTION_MESSAGE, e);
+		} catch (JsonParseException e) {
+			throw new GitHubServiceException(
+					FAILED_TO_READ_RESPONSE_BODY_EXCEPTION_MESSAGE, e);
 		}
-		if ((status != HttpStatus.SC_OK) && (status != HttpStatus.SC_CREATED)) {
-			switch (status) {
-			case HttpStatus.SC_UNAUTHORIZED:
-			case HttpStatus.SC_FORBIDDEN:
-				throw new PermissionDeniedException(method.getStatusLine());
-			default:
-				throw new GitHubServiceException(method.getStatusLine());
+	}
+
+	private static String getHeaderValue(HttpMethod method, String name) {
+		Header header = method.getResponseHeader(name);
+		return header == null ? null : header.getValue();
+	}
+
+	/**
+	 * Send a request through the host's {@link GitHubRequestScheduler}.
+	 * Reads that fail with an I/O error, a server error or an exceeded rate
+	 * limit are retried. Compressed responses are accepted, read their body
+	 * with {@link #readResponse(HttpMethod, Class)} or
+	 * {@link #readResponseBody(HttpMethod)}. Every request is recorded in the
+	 * {@link GitHubMetrics} of its endpoint.
+	 * 
+	 * @param method
+	 *            - request to send
+	 * @throws GitHubServiceException
+	 */
+	protected final void executeMethod(HttpMethod method)
+			throws GitHubServiceException {
+		executeMethod(method, scheduler);
+	}
+
+	/**
+	 * Send a request to another host than the API, paced by the scheduler of
+	 * that host so it does not use up the API rate limit.
+	 * 
+	 * @param method
+	 *            - request to send
+	 * @param scheduler
+	 *            - scheduler of the request's host
+	 * @throws GitHubServiceException
+	 * @see #executeMethod(HttpMethod)
+	 */
+	protected final void executeMethod(HttpMethod method,
+			GitHubRequestScheduler scheduler) throws GitHubServiceException {
+		boolean idempotent = method instanceof GetMethod;
+		method.setRequestHeader("Accept-Encoding",
+				GitHubContentEncoding.ACCEPT_ENCODING);
+		GitHubEndpointMetrics metrics = getMetrics(method);
+		long start = System.nanoTime();
+		int attempt = 0;
+		int status = GitHubEndpointMetrics.NO_RESPONSE;
+		boolean failed = true;
+		try {
+			while (true) {
+				scheduler.acquire();
+				status = GitHubEndpointMetrics.NO_RESPONSE;
+				try {
+					status = httpClient.executeMethod(method);
+				} catch (IOException e) {
+					if (idempotent
+							&& attempt < GitHubRequestScheduler.MAX_RETRIES) {
+						method.releaseConnection();
+						scheduler.retryLater(attempt++, null);
+						continue;
+					}
+					throw new GitHubServiceException(e);
+				}
+				String remaining = getHeaderValue(method,
+						"X-RateLimit-Remaining");
+				scheduler.update(getHeaderValue(method, "X-RateLimit-Limit"),
+						remaining, getHeaderValue(method, "X-RateLimit-Reset"));
+				if ((status == HttpStatus.SC_OK)
+						|| (status == HttpStatus.SC_CREATED)
+						|| (status == HttpStatus.SC_NOT_MODIFIED)) {
+					failed = false;
+					return;
+				}
+				if (idempotent
+						&& attempt < GitHubRequestScheduler.MAX_RETRIES
+						&& GitHubRequestScheduler.isRetryable(status,
+								remaining)) {
+					String retryAfter = getHeaderValue(method, "Retry-After");
+					method.releaseConnection();
+					scheduler.retryLater(attempt++, retryAfter);
+					continue;
+				}
+				switch (status) {
+				case HttpStatus.SC_UNAUTHORIZED:
+				case HttpStatus.SC_FORBIDDEN:
+					throw new PermissionDeniedException(method.getStatusLine());
+				default:
+					throw new GitHubServiceException(method.getStatusLine());
+				}
 			}
+		} finally {
+			// latency until the headers of the last attempt, with back-off
+			metrics.recordRequest(status, failed, attempt, System.nanoTime()
+					- start);
+		}
+	}
+
+	/**
+	 * Authenticate a request with a basic authorization header, keeping the
+	 * token out of the request URI where it would end up in logs and
+	 * proxies.
+	 * 
+	 * @param method
+	 * @param credentials
+	 *            - login and token, see {@link #getCredentials()}
+	 */
+	private static void setAuthorization(HttpMethod method,
+			NameValuePair[] credentials) {
+		String login = credentials[0].getValue();
+		String token = credentials[1].getValue();
+		if (login == null || token == null) {
+			return;
 		}
+		method.setRequestHeader("Authorization", BasicScheme.authenticate(
+				new UsernamePasswordCredentials(login + "/token", token),
+				CHARSET_UTF_8));
 	}
 
 	protected final NameValuePair[] getCredentials() {
@@ -96,12 +390,106 @@ public abstract class AbstractGitHubService {
 		return new NameValuePair[] { login, token };
 	}
 
+	/**
+	 * Get the root of the API, ending with a slash.
+	 * 
+	 * @return the {@link GitHub#API_URL_PROPERTY} of the task repository if
+	 *         set, {@link GitHub#API_URL_BASE} otherwise
+	 */
+	protected final String getApiUrlBase() {
+		return coordinates == null ? GitHub.API_URL_BASE : coordinates
+				.getApiUrlBase();
+	}
+
 	protected final String getTaskRepositoryUserName() {
-		return buildTaskRepositoryUserName(getTaskRepository().getUrl());
+		return coordinates.getUser();
 	}
 
 	protected final String getTaskRepositoryProjectName() {
-		return buildTaskRepositoryProject(getTaskRepository().getUrl());
+		return coordinates.getProject();
+	}
+
+	/**
+	 * Get the URI of an issues endpoint of the task repository.
+	 * 
+	 * @param operation
+	 *            - operation, e.g. {@link GitHub#SHOW}
+	 * @return URI without a trailing slash
+	 * @see GitHubRepositoryCoordinates#getEndpointUri(String)
+	 */
+	protected final String getEndpointUri(String operation) {
+		return coordinates.getEndpointUri(operation);
+	}
+
+	/**
+	 * Decodes a response body while it is being downloaded.
+	 * 
+	 * @param <V>
+	 *            - type of the decoded response
+	 */
+	protected abstract static class ResponseDecoder<V> {
+
+		private final Class<V> type;
+
+		protected ResponseDecoder(Class<V> type) {
+			this.type = type;
+		}
+
+		final Class<V> getType() {
+			return type;
+		}
+
+		/**
+		 * Decode the response body.
+		 * 
+		 * @param reader
+		 *            - reader positioned at the start of the body
+		 * @param cacheable
+		 *            - true if the server sent validators, so the returned
+		 *            value will be cached and used to answer revalidated
+		 *            reads
+		 * @return the decoded response, or null if nothing should be cached
+		 * @throws IOException
+		 * @throws GitHubServiceException
+		 */
+		protected abstract V decode(JsonReader reader, boolean cacheable)
+				throws IOException, GitHubServiceException;
+
+		/**
+		 * Called instead of {@link #decode(JsonReader, boolean)} when the
+		 * server confirmed that the cached response is still current.
+		 * 
+		 * @param cached
+		 *            - cached response
+		 * @throws GitHubServiceException
+		 */
+		protected void notModified(V cached) throws GitHubServiceException {
+		}
+
+		/**
+		 * Get a response kept by the caller, e.g. in the issue store, to be
+		 * revalidated instead of the response cached in memory.
+		 * 
+		 * @return stored response, or null to revalidate the cached response
+		 */
+		protected GitHubResponseCache.CachedResponse getStoredResponse() {
+			return null;
+		}
+
+		/**
+		 * Called after the response was decoded and cached.
+		 * 
+		 * @param value
+		 *            - decoded response, may be null
+		 * @param etag
+		 *            - value of the ETag header, may be null
+		 * @param lastModified
+		 *            - value of the Last-Modified header, may be null
+		 * @throws GitHubServiceException
+		 */
+		protected void decoded(V value, String etag, String lastModified)
+				throws GitHubServiceException {
+		}
 	}
 
 	private void setHeaders(PostMethod method) {
@@ -44,6 +44,17 @@ public final class GitHub {
 			+ Pattern.quote(HTTPS_GITHUB_COM) + ")/([^/]+)/([^/]+)");
 
 	public static final String API_URL_BASE = "https://github.com/api/v2/json/";
+	/**
+	 * Task repository property overriding {@link #API_URL_BASE}.
+	 */
+	public static final String API_URL_PROPERTY = "github.api.url";
+	/**
+	 * Task repository property limiting the number of concurrent requests
+	 * used to retrieve task data.
+	 */
+	public static final String SYNC_CONCURRENCY_PROPERTY = "github.sync.concurrency";
+	public static final int DEFAULT_SYNC_CONCURRENCY = 4;
+	public static final int MAX_SYNC_CONCURRENCY = 16;
 	public static final String API_ISSUES_ROOT = "issues/";
 	public static final String API_USER_ROOT = "user/";
 
@@ -63,5 +74,7 @@ public final class GitHub {
 	public static final String GITHUB_PEOPLE_PROFILE = "task.common.profile";
 	public static final String GRAVATAR_API_URL = "http://www.gravatar.com/avatar/";
 	public static final String COMMENTS = "comments/";
+	public static final String COMMENT = "comment/";
+	public static final String LABELS = "labels/";
 
 }
@@ -0,0 +1,107 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.mylyn.tasks.core.data.TaskAttribute;
+import org.eclipse.mylyn.tasks.core.data.TaskAttributeMetaData;
+
+/**
+ * <p>
+ * Metadata of a {@link GitHubTaskAttributes} attribute, computed once and
+ * stamped onto the attribute of every task data.
+ * </p>
+ * <p>
+ * A new attribute has no metadata, so the template puts its values directly
+ * instead of resetting the defaults and applying each setter for every
+ * issue. The resulting metadata is the same.
+ * </p>
+ */
+final class GitHubAttributeTemplate {
+
+	private static final GitHubAttributeTemplate[] TEMPLATES;
+
+	private static final GitHubAttributeTemplate[] INIT_TASK_TEMPLATES;
+
+	static {
+		GitHubTaskAttributes[] attributes = GitHubTaskAttributes.values();
+		TEMPLATES = new GitHubAttributeTemplate[attributes.length];
+		List<GitHubAttributeTemplate> initTask = new ArrayList<GitHubAttributeTemplate>();
+		for (GitHubTaskAttributes attribute : attributes) {
+			GitHubAttributeTemplate template = new GitHubAttributeTemplate(
+					attribute);
+			TEMPLATES[attribute.ordinal()] = template;
+			if (attribute.isInitTask()) {
+				initTask.add(template);
+			}
+		}
+		INIT_TASK_TEMPLATES = initTask
+				.toArray(new GitHubAttributeTemplate[initTask.size()]);
+	}
+
+	private final String id;
+	private final String[] keys;
+	private final String[] values;
+
+	private GitHubAttributeTemplate(GitHubTaskAttributes attribute) {
+		id = attribute.getId();
+		keys = new String[] { TaskAttribute.META_ATTRIBUTE_TYPE,
+				TaskAttribute.META_ATTRIBUTE_KIND, TaskAttribute.META_LABEL,
+				TaskAttribute.META_READ_ONLY };
+		values = new String[] { attribute.getType(), attribute.getKind(),
+				attribute.getLabel(), Boolean.toString(attribute.isReadOnly()) };
+	}
+
+	/**
+	 * @param attribute
+	 *            - attribute
+	 * @return template of the attribute
+	 */
+	static GitHubAttributeTemplate get(GitHubTaskAttributes attribute) {
+		return TEMPLATES[attribute.ordinal()];
+	}
+
+	/**
+	 * @return templates of the attributes of a new task
+	 */
+	static GitHubAttributeTemplate[] getInitTaskTemplates() {
+		return INIT_TASK_TEMPLATES.clone();
+	}
+
+	/**
+	 * Create the attribute with its metadata.
+	 *
+	 * @param parent
+	 *            - parent attribute, usually the root of a task data
+	 * @return the new attribute, without a value
+	 */
+	TaskAttribute create(TaskAttribute parent) {
+		TaskAttribute attribute = parent.createAttribute(id);
+		TaskAttributeMetaData metaData = attribute.getMetaData();
+		for (int i = 0; i < keys.length; i++) {
+			metaData.putValue(keys[i], values[i]);
+		}
+		return attribute;
+	}
+
+	/**
+	 * Create the attribute with its metadata and a value.
+	 *
+	 * @param parent
+	 *            - parent attribute, usually the root of a task data
+	 * @param value
+	 *            - value, may be null
+	 * @return the new attribute
+	 */
+	TaskAttribute create(TaskAttribute parent, String value) {
+		TaskAttribute attribute = create(parent);
+		if (value != null) {
+			attribute.addValue(value);
+		}
+		return attribute;
+	}
+
+}
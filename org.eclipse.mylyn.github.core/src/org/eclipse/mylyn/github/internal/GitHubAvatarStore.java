@@ -0,0 +1,258 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * <p>
+ * Gravatar images kept on disk, so avatars are downloaded once per
+ * {@link #DEFAULT_TIME_TO_LIVE} rather than every time an editor opens.
+ * </p>
+ * <p>
+ * Each avatar is a file named by its gravatar id and is fresh while its
+ * modification time is within the time to live. The store is bounded in
+ * size: when it grows beyond its limit the least recently written avatars
+ * are deleted. Reads may block on the network and must not be made from the
+ * UI thread.
+ * </p>
+ */
+public final class GitHubAvatarStore {
+
+	/**
+	 * Time an avatar is used before it is downloaded again.
+	 */
+	public static final long DEFAULT_TIME_TO_LIVE = 7 * 24 * 60 * 60 * 1000L;
+
+	/**
+	 * Default limit of the bytes stored on disk.
+	 */
+	public static final long DEFAULT_MAX_SIZE = 2 * 1024 * 1024L;
+
+	private static final Log LOG = LogFactory.getLog(GitHubAvatarStore.class);
+
+	private static final String AVATAR_DIRECTORY = "avatars";
+	private static final String AVATAR_FILE_EXTENSION = ".img";
+
+	private static GitHubAvatarStore instance;
+
+	private final File directory;
+	private final long timeToLive;
+	private final long maxSize;
+
+	/**
+	 * Bytes stored on disk, or -1 until the directory was measured.
+	 */
+	private long size = -1;
+
+	/**
+	 * @param directory
+	 *            - directory of the avatar files, does not need to exist
+	 * @param timeToLive
+	 *            - milliseconds an avatar is used before it is downloaded
+	 *            again
+	 * @param maxSize
+	 *            - bytes stored before the oldest avatars are deleted
+	 */
+	public GitHubAvatarStore(File directory, long timeToLive, long maxSize) {
+		this.directory = directory;
+		this.timeToLive = timeToLive;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * @return the store in the plug-in state location
+	 */
+	public static synchronized GitHubAvatarStore getDefault() {
+		if (instance == null) {
+			instance = new GitHubAvatarStore(
+					GitHubIssueStore.getStateDirectory(AVATAR_DIRECTORY),
+					DEFAULT_TIME_TO_LIVE, DEFAULT_MAX_SIZE);
+		}
+		return instance;
+	}
+
+	/**
+	 * Get an avatar from disk, or download it if it is missing or expired.
+	 *
+	 * @param gravatarId
+	 *            - gravatar id
+	 * @return image bytes, or null if the id is empty
+	 * @throws GitHubServiceException
+	 *             - if the avatar had to be downloaded and that failed
+	 */
+	public byte[] load(String gravatarId) throws GitHubServiceException {
+		if (gravatarId == null || gravatarId.length() == 0) {
+			return null;
+		}
+		byte[] avatar = get(gravatarId);
+		if (avatar == null) {
+			avatar = GitHubService.getUserService(null).retrieveGravatar(
+					gravatarId);
+			if (avatar != null) {
+				try {
+					put(gravatarId, avatar);
+				} catch (IOException e) {
+					LOG.warn("Failed to store avatar " + gravatarId, e);
+				}
+			}
+		}
+		return avatar;
+	}
+
+	/**
+	 * Get an avatar from disk.
+	 *
+	 * @param gravatarId
+	 *            - gravatar id
+	 * @return image bytes, or null if the avatar is not stored or expired
+	 */
+	public synchronized byte[] get(String gravatarId) {
+		File file = getFile(gravatarId);
+		if (file == null || !file.isFile()
+				|| file.lastModified() + timeToLive < System.currentTimeMillis()) {
+			return null;
+		}
+		try {
+			return read(file);
+		} catch (IOException e) {
+			LOG.warn("Failed to read avatar " + file, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Store an avatar, deleting the oldest avatars if the store grows beyond
+	 * its limit.
+	 *
+	 * @param gravatarId
+	 *            - gravatar id
+	 * @param avatar
+	 *            - image bytes
+	 * @throws IOException
+	 */
+	public synchronized void put(String gravatarId, byte[] avatar)
+			throws IOException {
+		File file = getFile(gravatarId);
+		if (file == null) {
+			return;
+		}
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Failed to create " + directory);
+		}
+		long stored = getSize();
+		if (file.isFile()) {
+			stored -= file.length();
+		}
+		File tmp = new File(file.getPath() + ".tmp");
+		FileOutputStream output = new FileOutputStream(tmp);
+		try {
+			output.write(avatar);
+		} finally {
+			output.close();
+		}
+		if (!tmp.renameTo(file)) {
+			// renaming over an existing file fails on some platforms
+			if (!file.delete() || !tmp.renameTo(file)) {
+				tmp.delete();
+				throw new IOException("Failed to replace " + file);
+			}
+		}
+		size = stored + avatar.length;
+		if (size > maxSize) {
+			trim();
+		}
+	}
+
+	/**
+	 * @return bytes stored on disk
+	 */
+	public synchronized long getSize() {
+		if (size < 0) {
+			size = 0;
+			for (File file : listFiles()) {
+				size += file.length();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Delete the least recently written avatars until the store is within
+	 * three quarters of its limit, so not every write has to trim.
+	 */
+	private void trim() {
+		File[] files = listFiles();
+		Arrays.sort(files, new Comparator<File>() {
+
+			public int compare(File a, File b) {
+				long difference = a.lastModified() - b.lastModified();
+				return difference < 0 ? -1 : difference > 0 ? 1 : 0;
+			}
+		});
+		long target = maxSize / 4 * 3;
+		for (int i = 0; i < files.length && size > target; i++) {
+			long length = files[i].length();
+			if (files[i].delete()) {
+				size -= length;
+			}
+		}
+	}
+
+	private File[] listFiles() {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return new File[0];
+		}
+		int count = 0;
+		for (File file : files) {
+			if (file.getName().endsWith(AVATAR_FILE_EXTENSION)) {
+				files[count++] = file;
+			}
+		}
+		return Arrays.copyOf(files, count);
+	}
+
+	/**
+	 * @return file of an avatar, or null if the id is not a valid file name
+	 */
+	private File getFile(String gravatarId) {
+		if (gravatarId == null || gravatarId.length() == 0) {
+			return null;
+		}
+		for (int i = 0; i < gravatarId.length(); i++) {
+			if (!Character.isLetterOrDigit(gravatarId.charAt(i))) {
+				return null;
+			}
+		}
+		return new File(directory, gravatarId + AVATAR_FILE_EXTENSION);
+	}
+
+	private static byte[] read(File file) throws IOException {
+		FileInputStream input = new FileInputStream(file);
+		try {
+			byte[] bytes = new byte[(int) file.length()];
+			int read = 0;
+			while (read < bytes.length) {
+				int n = input.read(bytes, read, bytes.length - read);
+				if (n < 0) {
+					throw new IOException("Unexpected end of " + file);
+				}
+				read += n;
+			}
+			return bytes;
+		} finally {
+			input.close();
+		}
+	}
+
+}
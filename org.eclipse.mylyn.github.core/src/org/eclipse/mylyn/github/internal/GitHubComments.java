@@ -6,6 +6,20 @@ import java.util.Collection;
 public class GitHubComments {
 	private GitHubComment[] comments;
 
+	public GitHubComments() {
+		comments = new GitHubComment[0];
+	}
+
+	/**
+	 * Create a container of already decoded comments.
+	 * 
+	 * @param comments
+	 *            - comments
+	 */
+	public GitHubComments(Collection<GitHubComment> comments) {
+		this.comments = comments.toArray(new GitHubComment[comments.size()]);
+	}
+
 	public final Collection<GitHubComment> getComments() {
 		return Arrays.asList(comments);
 	}
@@ -3,12 +3,8 @@
  */
 package org.eclipse.mylyn.github.internal;
 
-import static org.eclipse.mylyn.github.internal.GitHub.API_ISSUES_ROOT;
-import static org.eclipse.mylyn.github.internal.GitHub.API_URL_BASE;
 import static org.eclipse.mylyn.github.internal.GitHub.COMMENTS;
 
-import java.io.IOException;
-
 import org.apache.commons.httpclient.HttpMethod;
 import org.apache.commons.httpclient.NameValuePair;
 import org.eclipse.mylyn.tasks.core.TaskRepository;
@@ -35,12 +31,9 @@ public class GitHubCommentsService extends AbstractGitHubService {
 	 */
 	public final void create(GitHubComment comment)
 			throws GitHubServiceException {
-		StringBuilder uri = new StringBuilder(API_URL_BASE);
-		uri.append(API_ISSUES_ROOT).append("comment/")
-				.append(getTaskRepositoryUserName()).append("/")
-				.append(getTaskRepositoryProjectName()).append("/")
-				.append(comment.getId());
-		executeCreateComment(uri.toString(), setRequestBody(comment));
+		String uri = getEndpointUri(GitHub.COMMENT) + "/"
+				+ comment.getId();
+		executeCreateComment(uri, setRequestBody(comment));
 
 	}
 
@@ -54,34 +47,12 @@ public class GitHubCommentsService extends AbstractGitHubService {
 	 * @see org.eclipse.mylyn.github.internal.AbstractGitHubService#retrieve(java.lang.String)
 	 */
 	public final GitHubComments retrieve(String id) throws GitHubServiceException {
-		StringBuilder uri = new StringBuilder(API_URL_BASE);
-		uri.append(API_ISSUES_ROOT).append(COMMENTS)
-				.append(getTaskRepositoryUserName()).append("/")
-				.append(getTaskRepositoryProjectName()).append("/").append(id);
+		String uri = getEndpointUri(COMMENTS) + "/" + id;
 
-		return executeRetrieveComments(uri.toString(), getCredentials());
+		return executeRead(uri, GitHubComments.class);
 	}
 
 
-	private GitHubComments executeRetrieveComments(String uri,
-			NameValuePair[] parametersBody) throws GitHubServiceException {
-		HttpMethod operation = executeOperation(uri, parametersBody);
-		String responseBody = null;
-		try {
-			responseBody = new String(operation.getResponseBody());
-		} catch (IOException e) {
-			throw new GitHubServiceException(
-					FAILED_TO_READ_RESPONSE_BODY_EXCEPTION_MESSAGE, e);
-		} finally {
-			if (operation != null) {
-				operation.releaseConnection();
-			}
-		}
-		GitHubComments comments = getGson().fromJson(responseBody,
-				GitHubComments.class);
-		return comments;
-	}
-
 	private void executeCreateComment(String uri, NameValuePair[] parametersBody)
 			throws GitHubServiceException {
 		HttpMethod operation = null;
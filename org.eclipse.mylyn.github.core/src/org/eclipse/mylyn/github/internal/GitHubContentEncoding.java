@@ -0,0 +1,194 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * <p>
+ * Content negotiation of compressed responses.
+ * </p>
+ * <p>
+ * Requests advertise {@link #ACCEPT_ENCODING} and response bodies are
+ * decompressed while they are read, so the JSON decoder consumes them
+ * directly without buffering the whole body first. Both the zlib wrapped
+ * and the raw deflate format some servers send as <code>deflate</code> are
+ * understood.
+ * </p>
+ */
+public final class GitHubContentEncoding {
+
+	/**
+	 * Value of the <code>Accept-Encoding</code> request header.
+	 */
+	public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+	private static final String GZIP = "gzip";
+	private static final String X_GZIP = "x-gzip";
+	private static final String DEFLATE = "deflate";
+	private static final String IDENTITY = "identity";
+
+	private GitHubContentEncoding() {
+
+	}
+
+	/**
+	 * Decode a response body.
+	 *
+	 * @param body
+	 *            - body as received
+	 * @param contentEncoding
+	 *            - value of the <code>Content-Encoding</code> header, may be
+	 *            null
+	 * @param statistics
+	 *            - counters updated when the returned stream is closed or
+	 *            read to the end, null elements are ignored
+	 * @return decoded body, closing it closes the body
+	 * @throws IOException
+	 *             - if the encoding is not supported or the body is not in
+	 *             that encoding
+	 */
+	public static InputStream decode(InputStream body, String contentEncoding,
+			GitHubTransferStatistics... statistics) throws IOException {
+		CountingInputStream wire = new CountingInputStream(body);
+		String encoding = contentEncoding == null ? IDENTITY : contentEncoding
+				.trim().toLowerCase();
+		if (encoding.length() == 0 || IDENTITY.equals(encoding)) {
+			return new DecodedInputStream(wire, wire, statistics, false);
+		}
+		if (!GZIP.equals(encoding) && !X_GZIP.equals(encoding)
+				&& !DEFLATE.equals(encoding)) {
+			throw new IOException("Unsupported content encoding "
+					+ contentEncoding);
+		}
+		PushbackInputStream input = new PushbackInputStream(wire, 2);
+		int first = input.read();
+		if (first == -1) {
+			// nothing to decompress, e.g. the body of an error
+			return new DecodedInputStream(input, wire, statistics, false);
+		}
+		int second = input.read();
+		if (second != -1) {
+			input.unread(second);
+		}
+		input.unread(first);
+		InputStream decoded;
+		if (DEFLATE.equals(encoding)) {
+			boolean zlib = (first & 0x0f) == 8 && second != -1
+					&& ((first << 8) | second) % 31 == 0;
+			decoded = new InflaterInputStream(input, new Inflater(!zlib));
+		} else {
+			decoded = new GZIPInputStream(input);
+		}
+		return new DecodedInputStream(decoded, wire, statistics, true);
+	}
+
+	/**
+	 * Counts the bytes read through it.
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+
+		long count;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0) {
+				count += n;
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+
+	/**
+	 * Counts the decoded bytes and reports both counts once, at the end of
+	 * the body or when it is closed.
+	 */
+	private static final class DecodedInputStream extends CountingInputStream {
+
+		private final CountingInputStream wire;
+		private final GitHubTransferStatistics[] statistics;
+		private final boolean compressed;
+		private boolean reported;
+
+		DecodedInputStream(InputStream in, CountingInputStream wire,
+				GitHubTransferStatistics[] statistics, boolean compressed) {
+			super(in);
+			this.wire = wire;
+			this.statistics = statistics;
+			this.compressed = compressed;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b == -1) {
+				report();
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n == -1) {
+				report();
+			}
+			return n;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				report();
+			}
+		}
+
+		private void report() {
+			if (reported) {
+				return;
+			}
+			reported = true;
+			for (GitHubTransferStatistics counters : statistics) {
+				if (counters != null) {
+					counters.add(wire.count, count, compressed);
+				}
+			}
+		}
+	}
+
+}
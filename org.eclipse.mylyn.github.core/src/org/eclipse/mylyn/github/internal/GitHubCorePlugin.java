@@ -0,0 +1,26 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import org.eclipse.core.runtime.Plugin;
+import org.osgi.framework.BundleContext;
+
+/**
+ * Activator of the core plug-in, releases the shared connections and
+ * background threads when the plug-in stops.
+ */
+public final class GitHubCorePlugin extends Plugin {
+
+	@Override
+	public void stop(BundleContext context) throws Exception {
+		try {
+			GitHubOutbox.shutdown();
+			GitHubMetrics.shutdown();
+			GitHubTransport.shutdown();
+		} finally {
+			super.stop(context);
+		}
+	}
+
+}
@@ -0,0 +1,261 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+
+/**
+ * <p>
+ * Thread-safe codec for the timestamps used by the GitHub API, e.g.
+ * <code>2010/02/02 22:58:39 -0800</code>.
+ * </p>
+ * <p>
+ * Dates are kept in task attributes as milliseconds since the epoch, which is
+ * what {@link org.eclipse.mylyn.tasks.core.data.TaskAttributeMapper} expects
+ * for date attributes, and are only formatted for display by the UI. Values
+ * that do not match the fixed API layout, and attribute values stored as
+ * localized dates by earlier versions of the connector, are parsed with a
+ * {@link DateFormat} created for the call.
+ * </p>
+ */
+public final class GitHubDateCodec {
+
+	/**
+	 * Layout of the API timestamps.
+	 */
+	public static final String GITHUB_DATE_FORMAT = "yyyy/MM/dd HH:mm:ss Z";
+
+	/**
+	 * Length of a timestamp with a numeric zone, e.g.
+	 * <code>2010/02/02 22:58:39 -0800</code>.
+	 */
+	private static final int LENGTH = 25;
+
+	private static final long MILLIS_PER_SECOND = 1000L;
+	private static final long SECONDS_PER_DAY = 24 * 60 * 60L;
+
+	/**
+	 * Days from 0000-03-01 to 1970-01-01 in the proleptic Gregorian calendar.
+	 */
+	private static final long EPOCH_DAY_OFFSET = 719468L;
+	private static final long DAYS_PER_ERA = 146097L;
+
+	private static final int[] DAYS_IN_MONTH = { 31, 29, 31, 30, 31, 30, 31,
+			31, 30, 31, 30, 31 };
+
+	private GitHubDateCodec() {
+
+	}
+
+	/**
+	 * Parse an API timestamp.
+	 *
+	 * @param value
+	 *            - timestamp, may be null
+	 * @return milliseconds since the epoch, or -1 if the value can not be
+	 *         parsed
+	 */
+	public static long parse(String value) {
+		if (value == null) {
+			return -1;
+		}
+		long time = parseFixed(value);
+		if (time == -1 && value.trim().length() > 0) {
+			DateFormat format = new SimpleDateFormat(GITHUB_DATE_FORMAT,
+					Locale.US);
+			format.setLenient(false);
+			time = parseWith(format, value);
+		}
+		return time;
+	}
+
+	/**
+	 * Parse the value of a date attribute.
+	 *
+	 * @param value
+	 *            - milliseconds since the epoch, an API timestamp, or a date
+	 *            in the default locale's format as stored by earlier
+	 *            versions, may be null
+	 * @return milliseconds since the epoch, or -1 if the value can not be
+	 *         parsed
+	 */
+	public static long parseAttributeValue(String value) {
+		if (value == null || value.length() == 0) {
+			return -1;
+		}
+		if (isDigits(value)) {
+			try {
+				return Long.parseLong(value);
+			} catch (NumberFormatException e) {
+				return -1;
+			}
+		}
+		long time = parse(value);
+		if (time == -1) {
+			time = parseWith(DateFormat.getDateTimeInstance(), value);
+		}
+		return time;
+	}
+
+	/**
+	 * Convert an API timestamp to the value of a date attribute.
+	 *
+	 * @param value
+	 *            - timestamp, may be null
+	 * @return milliseconds since the epoch, or the value itself if it can not
+	 *         be parsed
+	 */
+	public static String toAttributeValue(String value) {
+		long time = parse(value);
+		return time == -1 ? value : Long.toString(time);
+	}
+
+	/**
+	 * Format a time as an API timestamp in UTC.
+	 *
+	 * @param time
+	 *            - milliseconds since the epoch
+	 * @return timestamp, e.g. <code>2010/02/03 06:58:39 +0000</code>
+	 */
+	public static String format(long time) {
+		long seconds = floorDiv(time, MILLIS_PER_SECOND);
+		long days = floorDiv(seconds, SECONDS_PER_DAY);
+		int secondOfDay = (int) (seconds - days * SECONDS_PER_DAY);
+
+		// civil date from days, see
+		// http://howardhinnant.github.io/date_algorithms.html
+		long z = days + EPOCH_DAY_OFFSET;
+		long era = (z >= 0 ? z : z - DAYS_PER_ERA + 1) / DAYS_PER_ERA;
+		long dayOfEra = z - era * DAYS_PER_ERA;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524
+				- dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra
+				- (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long mp = (5 * dayOfYear + 2) / 153;
+		int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+		int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+		char[] buffer = new char[LENGTH];
+		appendDigits(buffer, 0, (int) year, 4);
+		buffer[4] = '/';
+		appendDigits(buffer, 5, month, 2);
+		buffer[7] = '/';
+		appendDigits(buffer, 8, day, 2);
+		buffer[10] = ' ';
+		appendDigits(buffer, 11, secondOfDay / 3600, 2);
+		buffer[13] = ':';
+		appendDigits(buffer, 14, secondOfDay / 60 % 60, 2);
+		buffer[16] = ':';
+		appendDigits(buffer, 17, secondOfDay % 60, 2);
+		buffer[19] = ' ';
+		buffer[20] = '+';
+		appendDigits(buffer, 21, 0, 4);
+		return new String(buffer);
+	}
+
+	private static long parseFixed(String value) {
+		if (value.length() != LENGTH || value.charAt(4) != '/'
+				|| value.charAt(7) != '/' || value.charAt(10) != ' '
+				|| value.charAt(13) != ':' || value.charAt(16) != ':'
+				|| value.charAt(19) != ' ') {
+			return -1;
+		}
+		int year = parseDigits(value, 0, 4);
+		int month = parseDigits(value, 5, 2);
+		int day = parseDigits(value, 8, 2);
+		int hour = parseDigits(value, 11, 2);
+		int minute = parseDigits(value, 14, 2);
+		int second = parseDigits(value, 17, 2);
+		char sign = value.charAt(20);
+		int offsetHours = parseDigits(value, 21, 2);
+		int offsetMinutes = parseDigits(value, 23, 2);
+		if (year < 0 || month < 1 || month > 12 || day < 1
+				|| day > daysInMonth(year, month) || hour < 0 || hour > 23
+				|| minute < 0 || minute > 59 || second < 0 || second > 59
+				|| (sign != '+' && sign != '-') || offsetHours < 0
+				|| offsetMinutes < 0 || offsetMinutes > 59) {
+			return -1;
+		}
+
+		// days from civil date, see
+		// http://howardhinnant.github.io/date_algorithms.html
+		long y = month <= 2 ? year - 1 : year;
+		long era = (y >= 0 ? y : y - 399) / 400;
+		long yearOfEra = y - era * 400;
+		long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5
+				+ day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100
+				+ dayOfYear;
+		long days = era * DAYS_PER_ERA + dayOfEra - EPOCH_DAY_OFFSET;
+
+		long offset = (offsetHours * 60 + offsetMinutes) * 60L;
+		if (sign == '-') {
+			offset = -offset;
+		}
+		long seconds = days * SECONDS_PER_DAY + hour * 3600 + minute * 60
+				+ second - offset;
+		return seconds * MILLIS_PER_SECOND;
+	}
+
+	private static long parseWith(DateFormat format, String value) {
+		try {
+			return format.parse(value).getTime();
+		} catch (ParseException e) {
+			return -1;
+		}
+	}
+
+	private static int daysInMonth(int year, int month) {
+		if (month == 2
+				&& (year % 4 != 0 || (year % 100 == 0 && year % 400 != 0))) {
+			return 28;
+		}
+		return DAYS_IN_MONTH[month - 1];
+	}
+
+	private static int parseDigits(String value, int start, int count) {
+		int result = 0;
+		for (int i = start; i < start + count; i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			result = result * 10 + (c - '0');
+		}
+		return result;
+	}
+
+	private static boolean isDigits(String value) {
+		int start = value.charAt(0) == '-' && value.length() > 1 ? 1 : 0;
+		for (int i = start; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void appendDigits(char[] buffer, int start, int value,
+			int count) {
+		int remaining = value;
+		for (int i = start + count - 1; i >= start; i--) {
+			buffer[i] = (char) ('0' + remaining % 10);
+			remaining /= 10;
+		}
+	}
+
+	private static long floorDiv(long x, long y) {
+		long q = x / y;
+		if ((x % y != 0) && ((x ^ y) < 0)) {
+			q--;
+		}
+		return q;
+	}
+
+}
@@ -0,0 +1,130 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and timings of the requests sent to one API endpoint, e.g.
+ * <code>issues/list</code>.
+ */
+public final class GitHubEndpointMetrics {
+
+	/**
+	 * Status recorded for requests that failed without a response.
+	 */
+	public static final int NO_RESPONSE = 0;
+
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong retries = new AtomicLong();
+	private final ConcurrentMap<Integer, AtomicLong> statusCounts = new ConcurrentHashMap<Integer, AtomicLong>();
+	private final GitHubHistogram latency = new GitHubHistogram();
+	private final GitHubHistogram decodeTime = new GitHubHistogram();
+	private final GitHubTransferStatistics transfer = new GitHubTransferStatistics();
+
+	/**
+	 * Record a request.
+	 *
+	 * @param status
+	 *            - status of the final response, or {@link #NO_RESPONSE}
+	 * @param failed
+	 *            - true if the request failed
+	 * @param retryCount
+	 *            - number of times the request was sent again
+	 * @param nanos
+	 *            - time from the first attempt to the final response,
+	 *            including pacing and retries
+	 */
+	void recordRequest(int status, boolean failed, int retryCount, long nanos) {
+		requests.incrementAndGet();
+		if (failed) {
+			failures.incrementAndGet();
+		}
+		if (retryCount > 0) {
+			retries.addAndGet(retryCount);
+		}
+		Integer key = Integer.valueOf(status);
+		AtomicLong count = statusCounts.get(key);
+		if (count == null) {
+			AtomicLong newCount = new AtomicLong();
+			count = statusCounts.putIfAbsent(key, newCount);
+			if (count == null) {
+				count = newCount;
+			}
+		}
+		count.incrementAndGet();
+		latency.record(nanos);
+	}
+
+	/**
+	 * @return number of requests
+	 */
+	public long getRequests() {
+		return requests.get();
+	}
+
+	/**
+	 * @return number of requests that failed
+	 */
+	public long getFailures() {
+		return failures.get();
+	}
+
+	/**
+	 * @return number of retried attempts
+	 */
+	public long getRetries() {
+		return retries.get();
+	}
+
+	/**
+	 * @return number of final responses by status code, {@link #NO_RESPONSE}
+	 *         for requests without a response
+	 */
+	public Map<Integer, Long> getStatusCounts() {
+		Map<Integer, Long> counts = new TreeMap<Integer, Long>();
+		for (Map.Entry<Integer, AtomicLong> entry : statusCounts.entrySet()) {
+			counts.put(entry.getKey(), Long.valueOf(entry.getValue().get()));
+		}
+		return counts;
+	}
+
+	/**
+	 * @return time from the first attempt to the final response
+	 */
+	public GitHubHistogram getLatency() {
+		return latency;
+	}
+
+	/**
+	 * @return time to read and decode response bodies, which are decoded
+	 *         while they are downloaded
+	 */
+	public GitHubHistogram getDecodeTime() {
+		return decodeTime;
+	}
+
+	/**
+	 * @return bytes of the response bodies
+	 */
+	public GitHubTransferStatistics getTransfer() {
+		return transfer;
+	}
+
+	void reset() {
+		requests.set(0);
+		failures.set(0);
+		retries.set(0);
+		statusCounts.clear();
+		latency.reset();
+		decodeTime.reset();
+		transfer.reset();
+	}
+
+}
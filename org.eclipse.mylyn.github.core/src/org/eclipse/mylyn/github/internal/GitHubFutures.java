@@ -0,0 +1,73 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs independent requests on an executor and collects their failures.
+ */
+final class GitHubFutures {
+
+	/**
+	 * Runs calls on the calling thread, one after the other.
+	 */
+	static final Executor DIRECT_EXECUTOR = new Executor() {
+
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+
+	private GitHubFutures() {
+
+	}
+
+	/**
+	 * Run a call on an executor, or on the calling thread if the executor
+	 * does not accept it.
+	 *
+	 * @param executor
+	 * @param call
+	 * @return pending call
+	 */
+	static Future<?> submit(Executor executor, Callable<Object> call) {
+		FutureTask<Object> task = new FutureTask<Object>(call);
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			// run it here rather than dropping the change
+			task.run();
+		}
+		return task;
+	}
+
+	/**
+	 * Wait for a call to finish.
+	 *
+	 * @param call
+	 * @return the failure of the call, or null if it succeeded
+	 */
+	static Throwable await(Future<?> call) {
+		try {
+			call.get();
+			return null;
+		} catch (ExecutionException e) {
+			return GitHubIssueService.unwrap(e);
+		} catch (CancellationException e) {
+			return e;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			call.cancel(true);
+			return e;
+		}
+	}
+
+}
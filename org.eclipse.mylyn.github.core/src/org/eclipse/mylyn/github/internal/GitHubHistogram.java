@@ -0,0 +1,155 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * Distribution of durations with exponential buckets: bucket <i>i</i>
+ * counts the durations from 2<sup>i</sup> up to 2<sup>i+1</sup>
+ * microseconds, bucket 0 also counts shorter ones.
+ * </p>
+ * <p>
+ * Recording is lock free and does not allocate, so it can be done on every
+ * request. Percentiles are estimated as the upper bound of their bucket.
+ * </p>
+ */
+public final class GitHubHistogram {
+
+	/**
+	 * Number of buckets, the last one counts everything from about 36
+	 * minutes.
+	 */
+	public static final int BUCKETS = 32;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Record a duration.
+	 *
+	 * @param nanos
+	 *            - duration in nanoseconds
+	 */
+	public void record(long nanos) {
+		long duration = Math.max(0, nanos);
+		long micros = duration / 1000;
+		int bucket = micros == 0 ? 0 : Math.min(BUCKETS - 1,
+				63 - Long.numberOfLeadingZeros(micros));
+		buckets.incrementAndGet(bucket);
+		count.incrementAndGet();
+		total.addAndGet(duration);
+		long current = max.get();
+		while (duration > current && !max.compareAndSet(current, duration)) {
+			current = max.get();
+		}
+	}
+
+	/**
+	 * @return number of recorded durations
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @return sum of the recorded durations in microseconds
+	 */
+	public long getTotalMicros() {
+		return total.get() / 1000;
+	}
+
+	/**
+	 * @return mean of the recorded durations in microseconds
+	 */
+	public long getMeanMicros() {
+		long n = count.get();
+		return n == 0 ? 0 : total.get() / n / 1000;
+	}
+
+	/**
+	 * @return longest recorded duration in microseconds
+	 */
+	public long getMaxMicros() {
+		return max.get() / 1000;
+	}
+
+	/**
+	 * @return estimated median in microseconds
+	 */
+	public long getP50Micros() {
+		return getPercentileMicros(50);
+	}
+
+	/**
+	 * @return estimated 90th percentile in microseconds
+	 */
+	public long getP90Micros() {
+		return getPercentileMicros(90);
+	}
+
+	/**
+	 * @return estimated 99th percentile in microseconds
+	 */
+	public long getP99Micros() {
+		return getPercentileMicros(99);
+	}
+
+	/**
+	 * @return number of durations in each bucket
+	 */
+	public long[] getBuckets() {
+		long[] counts = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+		}
+		return counts;
+	}
+
+	/**
+	 * Estimate a percentile.
+	 *
+	 * @param percentile
+	 *            - percentile, from 0 to 100
+	 * @return upper bound of the bucket of the percentile in microseconds,
+	 *         at most the longest recorded duration, 0 if nothing was
+	 *         recorded
+	 */
+	public long getPercentileMicros(double percentile) {
+		long[] counts = getBuckets();
+		long n = 0;
+		for (long c : counts) {
+			n += c;
+		}
+		if (n == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(n * percentile / 100);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank && counts[i] > 0) {
+				return Math.min(1L << (i + 1), getMaxMicros());
+			}
+		}
+		return getMaxMicros();
+	}
+
+	/**
+	 * Forget all recorded durations.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets.set(i, 0);
+		}
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+
+}
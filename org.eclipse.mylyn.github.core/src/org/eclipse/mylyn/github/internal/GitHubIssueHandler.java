@@ -0,0 +1,22 @@
+/**
+ * 
+ */
+package org.eclipse.mylyn.github.internal;
+
+/**
+ * Receives issues one at a time while an issue list is being read from the
+ * server.
+ */
+public interface GitHubIssueHandler {
+
+	/**
+	 * Handle an issue decoded from the response.
+	 * 
+	 * @param issue
+	 *            - decoded issue
+	 * @throws GitHubServiceException
+	 *             - to abort reading the rest of the list
+	 */
+	void handle(GitHubIssue issue) throws GitHubServiceException;
+
+}
@@ -0,0 +1,331 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.eclipse.mylyn.github.internal.collections.CollectionUtils;
+import org.eclipse.mylyn.github.internal.collections.Predicate;
+
+/**
+ * <p>
+ * In-memory inverted index over the title, body, labels and comments of
+ * issues, used to answer text queries without a search request.
+ * </p>
+ * <p>
+ * Text is split into lower case words at every character that is not a
+ * letter or digit. A query matches the issues containing, for every word of
+ * the query, a word starting with it, so partially typed words already match.
+ * Issues are added, replaced and removed one at a time as they are
+ * synchronized.
+ * </p>
+ */
+public final class GitHubIssueIndex {
+
+	private final Map<String, Integer> documents = new HashMap<String, Integer>();
+	private final List<String[]> documentTerms = new ArrayList<String[]>();
+	private final Map<String, Postings> terms = new HashMap<String, Postings>();
+
+	/**
+	 * The words of {@link #terms} in order, for prefix lookups.
+	 */
+	private final SortedMap<String, Postings> sortedTerms = new TreeMap<String, Postings>();
+
+	/**
+	 * Incremented when document numbers are reassigned, which invalidates
+	 * outstanding matchers.
+	 */
+	private int generation;
+
+	/**
+	 * Index an issue, replacing what was indexed for it before.
+	 *
+	 * @param issue
+	 *            - issue
+	 * @param comments
+	 *            - comments of the issue, may be null
+	 */
+	public synchronized void add(GitHubIssue issue,
+			Collection<GitHubComment> comments) {
+		Set<String> words = new HashSet<String>();
+		tokenize(issue.getTitle(), words);
+		tokenize(issue.getBody(), words);
+		if (issue.getLabels() != null) {
+			for (String label : issue.getLabels()) {
+				tokenize(label, words);
+			}
+		}
+		if (comments != null) {
+			for (GitHubComment comment : comments) {
+				tokenize(comment.getBody(), words);
+			}
+		}
+
+		Integer document = documents.get(issue.getNumber());
+		if (document == null) {
+			document = Integer.valueOf(documentTerms.size());
+			documents.put(issue.getNumber(), document);
+			documentTerms.add(null);
+		} else {
+			unindex(document.intValue());
+		}
+		String[] indexed = words.toArray(new String[words.size()]);
+		documentTerms.set(document.intValue(), indexed);
+		for (String word : indexed) {
+			Postings postings = terms.get(word);
+			if (postings == null) {
+				postings = new Postings();
+				terms.put(word, postings);
+				sortedTerms.put(word, postings);
+			}
+			postings.add(document.intValue());
+		}
+	}
+
+	/**
+	 * Remove an issue from the index.
+	 *
+	 * @param number
+	 *            - issue number
+	 */
+	public synchronized void remove(String number) {
+		Integer document = documents.get(number);
+		if (document != null) {
+			unindex(document.intValue());
+			documentTerms.set(document.intValue(), null);
+		}
+	}
+
+	/**
+	 * Remove all issues from the index.
+	 */
+	public synchronized void clear() {
+		generation++;
+		documents.clear();
+		documentTerms.clear();
+		terms.clear();
+		sortedTerms.clear();
+	}
+
+	/**
+	 * Select the issues matching a query.
+	 *
+	 * @param issues
+	 *            - issues to select from
+	 * @param query
+	 *            - words to look for
+	 * @return matching issues, in the order of the given issues
+	 */
+	public synchronized List<GitHubIssue> filter(Collection<GitHubIssue> issues,
+			String query) {
+		List<GitHubIssue> result = new ArrayList<GitHubIssue>();
+		for (GitHubIssue issue : CollectionUtils.filtered(issues,
+				matcher(query))) {
+			result.add(issue);
+		}
+		return result;
+	}
+
+	/**
+	 * Create a predicate matching the issues that contain the words of a
+	 * query. The words are looked up once, when the predicate is created.
+	 *
+	 * @param query
+	 *            - words to look for
+	 * @return predicate, which does not match issues indexed later
+	 */
+	public synchronized Predicate<GitHubIssue> matcher(String query) {
+		return new Matcher(search(query), generation);
+	}
+
+	/**
+	 * @return number of indexed issues
+	 */
+	public synchronized int size() {
+		int size = 0;
+		for (String[] indexed : documentTerms) {
+			if (indexed != null) {
+				size++;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return number of distinct indexed words
+	 */
+	public synchronized int getTermCount() {
+		return terms.size();
+	}
+
+	/**
+	 * @return documents containing all words of the query, or null if the
+	 *         query has no words
+	 */
+	private BitSet search(String query) {
+		Set<String> words = new HashSet<String>();
+		tokenize(query, words);
+		BitSet result = null;
+		for (String word : words) {
+			BitSet matches = new BitSet(documentTerms.size());
+			for (Postings postings : sortedTerms.subMap(word,
+					word + Character.MAX_VALUE).values()) {
+				postings.addTo(matches);
+			}
+			if (result == null) {
+				result = matches;
+			} else {
+				result.and(matches);
+			}
+			if (result.isEmpty()) {
+				break;
+			}
+		}
+		return result;
+	}
+
+	private void unindex(int document) {
+		String[] indexed = documentTerms.get(document);
+		if (indexed == null) {
+			return;
+		}
+		for (String word : indexed) {
+			Postings postings = terms.get(word);
+			if (postings != null && postings.remove(document)
+					&& postings.size == 0) {
+				terms.remove(word);
+				sortedTerms.remove(word);
+			}
+		}
+	}
+
+	private static void tokenize(String text, Set<String> words) {
+		if (text == null) {
+			return;
+		}
+		int start = -1;
+		int length = text.length();
+		for (int i = 0; i <= length; i++) {
+			boolean wordCharacter = i < length
+					&& Character.isLetterOrDigit(text.charAt(i));
+			if (wordCharacter && start < 0) {
+				start = i;
+			} else if (!wordCharacter && start >= 0) {
+				words.add(text.substring(start, i).toLowerCase(Locale.ENGLISH));
+				start = -1;
+			}
+		}
+	}
+
+	/**
+	 * Matches the documents found by a search.
+	 */
+	private final class Matcher implements Predicate<GitHubIssue> {
+
+		private final BitSet matches;
+		private final int matcherGeneration;
+
+		/**
+		 * @param matches
+		 *            - matching documents, or null to match all indexed
+		 *            documents
+		 */
+		private Matcher(BitSet matches, int generation) {
+			this.matches = matches;
+			this.matcherGeneration = generation;
+		}
+
+		public boolean apply(GitHubIssue issue) {
+			synchronized (GitHubIssueIndex.this) {
+				if (matcherGeneration != generation) {
+					return false;
+				}
+				Integer document = documents.get(issue.getNumber());
+				return document != null
+						&& (matches == null ? documentTerms.get(document
+								.intValue()) != null : matches.get(document
+								.intValue()));
+			}
+		}
+	}
+
+	/**
+	 * Sorted documents containing a word.
+	 */
+	private static final class Postings {
+
+		private int[] documents = new int[2];
+		private int size;
+
+		void add(int document) {
+			if (size > 0 && documents[size - 1] < document) {
+				append(document);
+				return;
+			}
+			int index = find(document);
+			if (index >= 0) {
+				return;
+			}
+			index = -index - 1;
+			append(0);
+			System.arraycopy(documents, index, documents, index + 1, size - 1
+					- index);
+			documents[index] = document;
+		}
+
+		boolean remove(int document) {
+			int index = find(document);
+			if (index < 0) {
+				return false;
+			}
+			System.arraycopy(documents, index + 1, documents, index, size
+					- index - 1);
+			size--;
+			return true;
+		}
+
+		void addTo(BitSet bits) {
+			for (int i = 0; i < size; i++) {
+				bits.set(documents[i]);
+			}
+		}
+
+		private void append(int document) {
+			if (size == documents.length) {
+				int[] grown = new int[size * 2];
+				System.arraycopy(documents, 0, grown, 0, size);
+				documents = grown;
+			}
+			documents[size++] = document;
+		}
+
+		private int find(int document) {
+			int low = 0;
+			int high = size - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				int value = documents[middle];
+				if (value < document) {
+					low = middle + 1;
+				} else if (value > document) {
+					high = middle - 1;
+				} else {
+					return middle;
+				}
+			}
+			return -(low + 1);
+		}
+	}
+
+}
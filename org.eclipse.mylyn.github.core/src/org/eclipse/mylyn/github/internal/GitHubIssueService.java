@@ -3,8 +3,6 @@
  */
 package org.eclipse.mylyn.github.internal;
 
-import static org.eclipse.mylyn.github.internal.GitHub.API_ISSUES_ROOT;
-import static org.eclipse.mylyn.github.internal.GitHub.API_URL_BASE;
 import static org.eclipse.mylyn.github.internal.GitHub.CLOSE;
 import static org.eclipse.mylyn.github.internal.GitHub.EDIT;
 import static org.eclipse.mylyn.github.internal.GitHub.LIST;
@@ -16,11 +14,19 @@ import static org.eclipse.mylyn.github.internal.GitHub.SHOW;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.httpclient.HttpMethod;
 import org.apache.commons.httpclient.NameValuePair;
 import org.eclipse.mylyn.tasks.core.TaskRepository;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
 /**
  * Provides support to operate issues remotely.
  * 
@@ -49,11 +55,8 @@ public class GitHubIssueService extends AbstractGitHubService {
 	 */
 	public final GitHubIssue create(GitHubIssue issue)
 			throws GitHubServiceException {
-		StringBuilder uri = new StringBuilder(API_URL_BASE)
-				.append(API_ISSUES_ROOT).append(OPEN)
-				.append(getTaskRepositoryUserName()).append("/")
-				.append(getTaskRepositoryProjectName());
-		return executeRetrieveIssue(uri.toString(), setRequestBody(issue));
+		String uri = getEndpointUri(OPEN);
+		return executeRetrieveIssue(uri, setRequestBody(issue));
 	}
 
 	/**
@@ -70,10 +73,22 @@ public class GitHubIssueService extends AbstractGitHubService {
 	 * @see org.eclipse.mylyn.github.internal.AbstractGitHubService#retrieve()
 	 */
 	public final List<GitHubIssue> retrieve() throws GitHubServiceException {
-		List<GitHubIssue> issues = new ArrayList<GitHubIssue>();
-		issues.addAll(getClosedIssues().getIssues());
-		issues.addAll(getOpenedIssues().getIssues());
-		return issues;
+		return retrieve(GitHubFutures.DIRECT_EXECUTOR);
+	}
+
+	/**
+	 * Retrieve all GitHub Issues, fetching the closed and the open issues
+	 * concurrently.
+	 * 
+	 * @param executor
+	 *            - executor running the list requests
+	 * @return closed issues followed by the open issues
+	 * @throws GitHubServiceException
+	 *             - in case there is an error during remote operation
+	 */
+	public final List<GitHubIssue> retrieve(Executor executor)
+			throws GitHubServiceException {
+		return getIssues(null, executor);
 	}
 
 	/**
@@ -91,12 +106,24 @@ public class GitHubIssueService extends AbstractGitHubService {
 	 */
 	public final List<GitHubIssue> search(String filter)
 			throws GitHubServiceException {
-		List<GitHubIssue> issues = new ArrayList<GitHubIssue>();
-		issues.addAll(getFilteredIssues(filter, GitHub.TASK_STATUS_CLOSED)
-				.getIssues());
-		issues.addAll(getFilteredIssues(filter, GitHub.TASK_STATUS_OPEN)
-				.getIssues());
-		return issues;
+		return search(filter, GitHubFutures.DIRECT_EXECUTOR);
+	}
+
+	/**
+	 * Search the GitHub Issues API for a given search term, searching the
+	 * closed and the open issues concurrently.
+	 * 
+	 * @param filter
+	 *            - search term
+	 * @param executor
+	 *            - executor running the search requests
+	 * @return closed issues followed by the open issues
+	 * @throws GitHubServiceException
+	 *             - in case there is an error during remote operation
+	 */
+	public final List<GitHubIssue> search(String filter, Executor executor)
+			throws GitHubServiceException {
+		return getIssues(filter, executor);
 	}
 
 	/**
@@ -112,14 +139,164 @@ public class GitHubIssueService extends AbstractGitHubService {
 	 */
 	public final GitHubIssues getFilteredIssues(String filter, String status)
 			throws GitHubServiceException {
-		String uri;
-		if (filter != null && (!filter.isEmpty())) {
-			uri = getFilteredIssuesUri(filter, status);
-		} else {
-			uri = getIssuesUri(status);
+		return executeRead(getIssuesUri(filter, status), GitHubIssues.class);
+	}
+
+	/**
+	 * <p>
+	 * Stream a collection of filtered issues.
+	 * </p>
+	 * <p>
+	 * Issues are handed to the handler as soon as they are decoded, so the
+	 * caller does not have to wait for the whole list to be downloaded. The
+	 * list is only kept in memory when the server sent validators that allow
+	 * revalidating it later.
+	 * </p>
+	 * 
+	 * @param filter
+	 *            - filter to be applied
+	 * @param status
+	 *            - status of the issue (open or closed)
+	 * @param handler
+	 *            - handler receiving the issues in the order they were sent
+	 * @throws GitHubServiceException
+	 *             in case that the issues could not be retrieved from server
+	 *             or the handler failed.
+	 */
+	public final void getFilteredIssues(String filter, String status,
+			GitHubIssueHandler handler) throws GitHubServiceException {
+		executeRead(getIssuesUri(filter, status), new IssueListDecoder(
+				handler));
+	}
+
+	/**
+	 * <p>
+	 * Fetch a collection of filtered issues on an executor.
+	 * </p>
+	 * <p>
+	 * The returned future can be cancelled with interruption to stop reading
+	 * the list.
+	 * </p>
+	 * 
+	 * @param filter
+	 *            - filter to be applied
+	 * @param status
+	 *            - status of the issue (open or closed)
+	 * @param executor
+	 *            - executor running the request
+	 * @return the pending list of issues
+	 */
+	public final Future<List<GitHubIssue>> submitFilteredIssues(
+			final String filter, final String status, Executor executor) {
+		FutureTask<List<GitHubIssue>> task = new FutureTask<List<GitHubIssue>>(
+				new Callable<List<GitHubIssue>>() {
+
+					public List<GitHubIssue> call()
+							throws GitHubServiceException {
+						IssueCollector issues = new IssueCollector();
+						getFilteredIssues(filter, status, issues);
+						return issues.getIssues();
+					}
+				});
+		executor.execute(task);
+		return task;
+	}
+
+	/**
+	 * <p>
+	 * Stream the issue list of a status and keep it in the issue store.
+	 * </p>
+	 * <p>
+	 * The stored list is revalidated with a conditional GET. If it did not
+	 * change the stored issues are handed to the handler, otherwise the list
+	 * is streamed and stored with its new validators.
+	 * </p>
+	 * 
+	 * @param status
+	 *            - status of the issues (open or closed)
+	 * @param store
+	 *            - issue store of the repository
+	 * @param handler
+	 *            - handler receiving the issues in the order they were sent
+	 * @throws GitHubServiceException
+	 *             in case that the issues could not be retrieved from server
+	 *             or the handler failed.
+	 */
+	public final void getStoredIssues(String status, GitHubIssueStore store,
+			GitHubIssueHandler handler) throws GitHubServiceException {
+		executeRead(getIssuesUri(status), new StoredIssueListDecoder(status,
+				store, true, new IssueCollector(handler)));
+	}
+
+	/**
+	 * Fetch the issue list of a status on an executor and keep it in the
+	 * issue store, see
+	 * {@link #getStoredIssues(String, GitHubIssueStore, GitHubIssueHandler)}.
+	 * 
+	 * @param status
+	 *            - status of the issues (open or closed)
+	 * @param store
+	 *            - issue store of the repository
+	 * @param executor
+	 *            - executor running the request
+	 * @return the pending list of issues
+	 */
+	public final Future<List<GitHubIssue>> submitStoredIssues(
+			final String status, final GitHubIssueStore store,
+			Executor executor) {
+		FutureTask<List<GitHubIssue>> task = new FutureTask<List<GitHubIssue>>(
+				new Callable<List<GitHubIssue>>() {
+
+					public List<GitHubIssue> call()
+							throws GitHubServiceException {
+						IssueCollector issues = new IssueCollector();
+						getStoredIssues(status, store, issues);
+						return issues.getIssues();
+					}
+				});
+		executor.execute(task);
+		return task;
+	}
+
+	/**
+	 * Wait for the result of a request submitted to an executor.
+	 * 
+	 * @param future
+	 *            - pending result
+	 * @return the result
+	 * @throws GitHubServiceException
+	 *             - if the request failed or the wait was interrupted
+	 */
+	public static <V> V getResult(Future<V> future)
+			throws GitHubServiceException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new GitHubServiceException(e);
+		} catch (ExecutionException e) {
+			throw unwrap(e);
 		}
+	}
 
-		return executeRetrieveIssues(uri, getCredentials());
+	/**
+	 * Rethrow the failure of a request run on an executor.
+	 * 
+	 * @param e
+	 *            - failure
+	 * @return the service exception to throw
+	 */
+	public static GitHubServiceException unwrap(ExecutionException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof GitHubServiceException) {
+			return (GitHubServiceException) cause;
+		} else if (cause instanceof RuntimeException) {
+			throw (RuntimeException) cause;
+		} else if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		return new GitHubServiceException(e);
 	}
 
 	/**
@@ -136,11 +313,8 @@ public class GitHubIssueService extends AbstractGitHubService {
 	 * @see org.eclipse.mylyn.github.internal.AbstractGitHubService#retrieve(java.lang.String)
 	 */
 	public final GitHubIssue retrieve(String id) throws GitHubServiceException {
-		StringBuilder uri = new StringBuilder(API_URL_BASE)
-				.append(API_ISSUES_ROOT).append(SHOW)
-				.append(getTaskRepositoryUserName()).append("/")
-				.append(getTaskRepositoryProjectName()).append("/").append(id);
-		return executeRetrieveIssue(uri.toString(), getCredentials());
+		String uri = getEndpointUri(SHOW) + "/" + id;
+		return executeRead(uri, GitHubShowIssue.class).getIssue();
 	}
 
 	/**
@@ -160,12 +334,8 @@ public class GitHubIssueService extends AbstractGitHubService {
 	 */
 	public final GitHubIssue update(GitHubIssue issue)
 			throws GitHubServiceException {
-		StringBuilder uri = new StringBuilder(API_URL_BASE)
-				.append(API_ISSUES_ROOT).append(EDIT)
-				.append(getTaskRepositoryUserName()).append("/")
-				.append(getTaskRepositoryProjectName()).append("/")
-				.append(issue.getNumber());
-		return executeRetrieveIssue(uri.toString(), setRequestBody(issue));
+		String uri = getEndpointUri(EDIT) + "/" + issue.getNumber();
+		return executeRetrieveIssue(uri, setRequestBody(issue));
 	}
 
 	/**
@@ -185,13 +355,23 @@ public class GitHubIssueService extends AbstractGitHubService {
 	public final GitHubIssue reopenIssue(GitHubIssue issue)
 			throws GitHubServiceException {
 		update(issue);
-		StringBuilder uri = new StringBuilder(API_URL_BASE)
-				.append(API_ISSUES_ROOT).append(REOPEN)
-				.append(getTaskRepositoryUserName()).append("/")
-				.append(getTaskRepositoryProjectName()).append("/")
-				.append(issue.getNumber());
-		return executeRetrieveIssue(uri.toString(), getCredentials());
+		return reopen(issue.getNumber());
+	}
 
+	/**
+	 * Change the status of an issue to open without editing it.
+	 * 
+	 * @param number
+	 *            - issue number
+	 * @return the issue with changes
+	 * @throws GitHubServiceException
+	 * 
+	 *             API Doc: issues/reopen/:user/:repo/:number
+	 */
+	public final GitHubIssue reopen(String number)
+			throws GitHubServiceException {
+		String uri = getEndpointUri(REOPEN) + "/" + number;
+		return executeRetrieveIssue(uri, getCredentials());
 	}
 
 	/**
@@ -211,80 +391,269 @@ public class GitHubIssueService extends AbstractGitHubService {
 	public final GitHubIssue closeIssue(GitHubIssue issue)
 			throws GitHubServiceException {
 		update(issue);
-		StringBuilder uri = new StringBuilder(API_URL_BASE)
-				.append(API_ISSUES_ROOT).append(CLOSE)
-				.append(getTaskRepositoryUserName()).append("/")
-				.append(getTaskRepositoryProjectName()).append("/")
-				.append(issue.getNumber());
-		return executeRetrieveIssue(uri.toString(), getCredentials());
+		return close(issue.getNumber());
+	}
+
+	/**
+	 * Change the status of an issue to closed without editing it.
+	 * 
+	 * @param number
+	 *            - issue number
+	 * @return the issue with changes
+	 * @throws GitHubServiceException
+	 * 
+	 *             API Doc: issues/close/:user/:repo/:number
+	 */
+	public final GitHubIssue close(String number)
+			throws GitHubServiceException {
+		String uri = getEndpointUri(CLOSE) + "/" + number;
+		return executeRetrieveIssue(uri, getCredentials());
+	}
+
+	/**
+	 * <p>
+	 * Read the closed and the open issues into the issue store concurrently.
+	 * </p>
+	 * <p>
+	 * Stored lists are revalidated with conditional GETs, so a list that did
+	 * not change since it was stored, even in an earlier session, is not
+	 * downloaded again.
+	 * </p>
+	 * 
+	 * @param store
+	 *            - issue store of the repository
+	 * @param revalidate
+	 *            - false to download both lists even if the stored lists are
+	 *            current
+	 * @param executor
+	 *            - executor running the list requests
+	 * @return true if a list changed and was stored, false if both stored
+	 *         lists are current
+	 * @throws GitHubServiceException
+	 */
+	public final boolean refreshStoredIssues(GitHubIssueStore store,
+			boolean revalidate, Executor executor)
+			throws GitHubServiceException {
+		Future<Boolean> closed = submitRefresh(GitHub.TASK_STATUS_CLOSED,
+				store, revalidate, executor);
+		Future<Boolean> open = submitRefresh(GitHub.TASK_STATUS_OPEN, store,
+				revalidate, executor);
+		try {
+			boolean changed = getResult(closed).booleanValue();
+			return getResult(open).booleanValue() || changed;
+		} finally {
+			closed.cancel(true);
+			open.cancel(true);
+		}
+	}
+
+	private Future<Boolean> submitRefresh(final String status,
+			final GitHubIssueStore store, final boolean revalidate,
+			Executor executor) {
+		FutureTask<Boolean> task = new FutureTask<Boolean>(
+				new Callable<Boolean>() {
 
+					public Boolean call() throws GitHubServiceException {
+						StoredIssueListDecoder decoder = new StoredIssueListDecoder(
+								status, store, revalidate,
+								new IssueCollector());
+						executeRead(getIssuesUri(status), decoder);
+						return Boolean.valueOf(decoder.changed);
+					}
+				});
+		executor.execute(task);
+		return task;
 	}
 
-	private GitHubIssues getOpenedIssues() throws GitHubServiceException {
-		String uri = getIssuesUri(GitHub.TASK_STATUS_OPEN);
-		return executeRetrieveIssues(uri, getCredentials());
+	private List<GitHubIssue> getIssues(String filter, Executor executor)
+			throws GitHubServiceException {
+		Future<List<GitHubIssue>> closed = submitFilteredIssues(filter,
+				GitHub.TASK_STATUS_CLOSED, executor);
+		Future<List<GitHubIssue>> open = submitFilteredIssues(filter,
+				GitHub.TASK_STATUS_OPEN, executor);
+		try {
+			List<GitHubIssue> issues = new ArrayList<GitHubIssue>(
+					getResult(closed));
+			issues.addAll(getResult(open));
+			return issues;
+		} finally {
+			closed.cancel(true);
+			open.cancel(true);
+		}
 	}
 
-	private GitHubIssues getClosedIssues() throws GitHubServiceException {
-		String uri = getIssuesUri(GitHub.TASK_STATUS_CLOSED);
-		return executeRetrieveIssues(uri, getCredentials());
+	private String getIssuesUri(String filter, String state) {
+		if (filter != null && (!filter.isEmpty())) {
+			return getFilteredIssuesUri(filter, state);
+		}
+		return getIssuesUri(state);
 	}
 
 	private String getFilteredIssuesUri(String filter, String state) {
-		StringBuilder uri = new StringBuilder(API_URL_BASE);
-		uri.append(API_ISSUES_ROOT).append(SEARCH)
-				.append(getTaskRepositoryUserName()).append("/")
-				.append(getTaskRepositoryProjectName()).append("/")
-				.append(state).append("/").append(filter);
-		return uri.toString();
+		return getEndpointUri(SEARCH) + "/" + state + "/" + filter;
 
 	}
 
 	private String getIssuesUri(String state) {
-		StringBuilder uri = new StringBuilder(API_URL_BASE);
-		uri.append(API_ISSUES_ROOT).append(LIST)
-				.append(getTaskRepositoryUserName()).append("/")
-				.append(getTaskRepositoryProjectName()).append("/")
-				.append(state);
-		return uri.toString();
+		return getEndpointUri(LIST) + "/" + state;
 	}
 
-	private GitHubIssues executeRetrieveIssues(String uri,
+	private GitHubIssue executeRetrieveIssue(String uri,
 			NameValuePair[] parametersBody) throws GitHubServiceException {
 		HttpMethod operation = executeOperation(uri, parametersBody);
-		String responseBody = null;
+		GitHubShowIssue showIssue;
 		try {
-			responseBody = new String(operation.getResponseBody());
-		} catch (IOException e) {
-			throw new GitHubServiceException(
-					FAILED_TO_READ_RESPONSE_BODY_EXCEPTION_MESSAGE, e);
+			showIssue = readResponse(operation, GitHubShowIssue.class);
 		} finally {
-			if (operation != null) {
-				operation.releaseConnection();
+			operation.releaseConnection();
+		}
+		return showIssue.getIssue();
+	}
+
+	/**
+	 * Decodes the <code>issues</code> array of a list response one element at
+	 * a time.
+	 */
+	private class IssueListDecoder extends ResponseDecoder<GitHubIssues> {
+
+		private static final String ISSUES = "issues";
+
+		private final GitHubIssueHandler handler;
+
+		private IssueListDecoder(GitHubIssueHandler handler) {
+			super(GitHubIssues.class);
+			this.handler = handler;
+		}
+
+		@Override
+		protected GitHubIssues decode(JsonReader reader, boolean cacheable)
+				throws IOException, GitHubServiceException {
+			List<GitHubIssue> issues = cacheable ? new ArrayList<GitHubIssue>()
+					: null;
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if (ISSUES.equals(reader.nextName())
+						&& reader.peek() == JsonToken.BEGIN_ARRAY) {
+					reader.beginArray();
+					while (reader.hasNext()) {
+						GitHubIssue issue = getGson().fromJson(reader,
+								GitHubIssue.class);
+						if (issues != null) {
+							issues.add(issue);
+						}
+						handler.handle(issue);
+					}
+					reader.endArray();
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
+			return issues == null ? null : new GitHubIssues(issues);
+		}
+
+		@Override
+		protected void notModified(GitHubIssues cached)
+				throws GitHubServiceException {
+			for (GitHubIssue issue : cached.getIssues()) {
+				handler.handle(issue);
 			}
 		}
-		GitHubIssues issues = getGson().fromJson(responseBody,
-				GitHubIssues.class);
-		return issues;
 	}
 
-	private GitHubIssue executeRetrieveIssue(String uri,
-			NameValuePair[] parametersBody) throws GitHubServiceException {
-		HttpMethod operation = executeOperation(uri, parametersBody);
-		String responseBody = null;
-		try {
-			responseBody = operation.getResponseBodyAsString();
-		} catch (IOException e) {
-			throw new GitHubServiceException(
-					FAILED_TO_READ_RESPONSE_BODY_EXCEPTION_MESSAGE, e);
-		} finally {
-			if (operation != null) {
-				operation.releaseConnection();
+	/**
+	 * Reads an issue list into the issue store, revalidating the stored list
+	 * instead of the response cached in memory. An unchanged list is handed
+	 * out from the store.
+	 */
+	private final class StoredIssueListDecoder extends IssueListDecoder {
+
+		private final String status;
+		private final GitHubIssueStore store;
+		private final boolean revalidate;
+		private final IssueCollector issues;
+		private boolean changed;
+
+		private StoredIssueListDecoder(String status, GitHubIssueStore store,
+				boolean revalidate, IssueCollector issues) {
+			super(issues);
+			this.status = status;
+			this.store = store;
+			this.revalidate = revalidate;
+			this.issues = issues;
+		}
+
+		@Override
+		protected GitHubResponseCache.CachedResponse getStoredResponse() {
+			String[] validators = revalidate ? store.getValidators(status)
+					: null;
+			if (validators == null || store.getIssues(status) == null) {
+				// no validators, so the list is read unconditionally
+				return new GitHubResponseCache.CachedResponse(null, null, null);
 			}
+			return new GitHubResponseCache.CachedResponse(validators[0],
+					validators[1], null);
+		}
+
+		@Override
+		protected void notModified(GitHubIssues cached)
+				throws GitHubServiceException {
+			// the stored list is current
+			store.markRefreshed(status);
+			issues.replay(store.getIssues(status));
+		}
+
+		@Override
+		protected void decoded(GitHubIssues value, String etag,
+				String lastModified) {
+			store.replaceIssues(status, issues.getIssues(), etag,
+					lastModified);
+			changed = true;
+		}
+	}
+
+	/**
+	 * Collects streamed issues into a list, optionally passing them on to
+	 * another handler.
+	 */
+	private static final class IssueCollector implements GitHubIssueHandler {
+
+		private final GitHubIssueHandler handler;
+		private final List<GitHubIssue> issues = new ArrayList<GitHubIssue>();
+
+		private IssueCollector() {
+			this(null);
+		}
+
+		private IssueCollector(GitHubIssueHandler handler) {
+			this.handler = handler;
+		}
+
+		public void handle(GitHubIssue issue) throws GitHubServiceException {
+			if (Thread.currentThread().isInterrupted()) {
+				throw new GitHubServiceException(new InterruptedException());
+			}
+			issues.add(issue);
+			if (handler != null) {
+				handler.handle(issue);
+			}
+		}
+
+		/**
+		 * Pass issues read earlier on to the handler, without collecting
+		 * them again.
+		 */
+		void replay(List<GitHubIssue> stored) throws GitHubServiceException {
+			if (handler != null && stored != null) {
+				for (GitHubIssue issue : stored) {
+					handler.handle(issue);
+				}
+			}
+		}
+
+		List<GitHubIssue> getIssues() {
+			return issues;
 		}
-		GitHubShowIssue showIssue = getGson().fromJson(responseBody,
-				GitHubShowIssue.class);
-		return showIssue.getIssue();
 	}
 
 	private NameValuePair[] setRequestBody(final GitHubIssue issue) {
@@ -0,0 +1,809 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.mylyn.github.internal.collections.Predicate;
+import org.eclipse.mylyn.tasks.core.TaskRepository;
+import org.osgi.framework.Bundle;
+
+/**
+ * <p>
+ * Local copy of the issues of a repository, kept across sessions so queries
+ * can be answered without going to the network.
+ * </p>
+ * <p>
+ * The store holds the issue lists last read for each status with the
+ * validators needed to revalidate them, the comments of issues whose full
+ * task data was retrieved, and the labels of the repository. Issues are
+ * indexed by number, by <code>updated_at</code> and by the words of their
+ * text, see {@link GitHubIssueIndex}. Comments are only handed out while the
+ * issue's <code>updated_at</code> is unchanged. Changes are written to the
+ * plug-in state location shortly after they are made.
+ * </p>
+ * <p>
+ * Issues returned by the store are shared and must be treated as read only.
+ * </p>
+ */
+public final class GitHubIssueStore {
+
+	private static final Log LOG = LogFactory.getLog(GitHubIssueStore.class);
+
+	private static final String STORE_DIRECTORY = "issues";
+	private static final String STORE_FILE_EXTENSION = ".store";
+	private static final int MAGIC = 0x47484953;
+	private static final int VERSION = 2;
+
+	/**
+	 * Delay used to coalesce the writes of several changes.
+	 */
+	private static final long SAVE_DELAY = 2 * 1000L;
+
+	private static final ConcurrentMap<String, GitHubIssueStore> STORES = new ConcurrentHashMap<String, GitHubIssueStore>();
+
+	private static ScheduledExecutorService saver;
+
+	private final File file;
+
+	private final Map<String, Record> records = new HashMap<String, Record>();
+	private final SortedMap<Long, Set<String>> updatedIndex = new TreeMap<Long, Set<String>>();
+	private final GitHubIssueIndex textIndex = new GitHubIssueIndex();
+	private final Map<String, List<String>> snapshots = new HashMap<String, List<String>>();
+	private final Map<String, Long> refreshTimes = new HashMap<String, Long>();
+	private final Map<String, String[]> validators = new HashMap<String, String[]>();
+
+	/**
+	 * Issue lists handed out by {@link #getIssueList(String)}, kept until
+	 * the stored issues change so their label index is built only once.
+	 */
+	private final Map<String, GitHubIssues> issueLists = new HashMap<String, GitHubIssues>();
+	private List<String> labels;
+
+	private boolean dirty;
+	private boolean saveScheduled;
+	private final AtomicBoolean refreshing = new AtomicBoolean();
+
+	private GitHubIssueStore(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Get the store of a repository, loading it from disk the first time.
+	 *
+	 * @param repository
+	 *            - task repository
+	 * @return store, never null
+	 */
+	public static GitHubIssueStore get(TaskRepository repository) {
+		String key = getKey(repository);
+		GitHubIssueStore store = STORES.get(key);
+		if (store == null) {
+			GitHubIssueStore newStore = new GitHubIssueStore(getFile(key,
+					STORE_FILE_EXTENSION));
+			store = STORES.putIfAbsent(key, newStore);
+			if (store == null) {
+				store = newStore;
+				store.load();
+			}
+		}
+		return store;
+	}
+
+	/**
+	 * Open a store file that is not bound to a repository.
+	 *
+	 * @param file
+	 *            - store file, does not need to exist
+	 * @return store
+	 */
+	public static GitHubIssueStore open(File file) {
+		GitHubIssueStore store = new GitHubIssueStore(file);
+		store.load();
+		return store;
+	}
+
+	/**
+	 * @return key identifying the repository and the API it is read from
+	 */
+	static String getKey(TaskRepository repository) {
+		String key = repository.getRepositoryUrl();
+		String apiUrl = repository.getProperty(GitHub.API_URL_PROPERTY);
+		if (apiUrl != null) {
+			key = key + '|' + apiUrl;
+		}
+		return key;
+	}
+
+	/**
+	 * @return file of a repository in the store directory
+	 */
+	static File getFile(String key, String extension) {
+		return new File(getStateDirectory(STORE_DIRECTORY), getFileName(key,
+				extension));
+	}
+
+	/**
+	 * @return directory in the plug-in state location, or in the temporary
+	 *         directory when running outside of the platform
+	 */
+	static File getStateDirectory(String name) {
+		if (Platform.isRunning()) {
+			Bundle bundle = Platform.getBundle(GitHub.BUNDLE_ID);
+			if (bundle != null) {
+				return Platform.getStateLocation(bundle).append(name)
+						.toFile();
+			}
+		}
+		return new File(new File(System.getProperty("java.io.tmpdir"),
+				GitHub.BUNDLE_ID), name);
+	}
+
+	private static String getFileName(String key, String extension) {
+		StringBuilder name = new StringBuilder();
+		for (int i = 0; i < key.length() && name.length() < 64; i++) {
+			char c = key.charAt(i);
+			name.append(Character.isLetterOrDigit(c) ? c : '_');
+		}
+		return name.append('_').append(Integer.toHexString(key.hashCode()))
+				.append(extension).toString();
+	}
+
+	/**
+	 * Get the time the issue list of a status was last replaced.
+	 *
+	 * @param status
+	 *            - open or closed
+	 * @return milliseconds since the epoch, or -1 if the list is not stored
+	 */
+	public synchronized long getRefreshTime(String status) {
+		Long time = refreshTimes.get(status);
+		return time == null ? -1 : time.longValue();
+	}
+
+	/**
+	 * Get the validators of the stored issue list of a status.
+	 *
+	 * @param status
+	 *            - open or closed
+	 * @return <code>ETag</code> and <code>Last-Modified</code> value, either
+	 *         may be null, or null if the list was stored without validators
+	 */
+	public synchronized String[] getValidators(String status) {
+		String[] values = validators.get(status);
+		return values == null ? null : values.clone();
+	}
+
+	/**
+	 * Get the stored issue list of a status.
+	 *
+	 * @param status
+	 *            - open or closed
+	 * @return issues in the order sent by the server, or null if the list is
+	 *         not stored
+	 */
+	public synchronized List<GitHubIssue> getIssues(String status) {
+		List<String> numbers = snapshots.get(status);
+		if (numbers == null) {
+			return null;
+		}
+		List<GitHubIssue> issues = new ArrayList<GitHubIssue>(numbers.size());
+		for (String number : numbers) {
+			issues.add(records.get(number).issue);
+		}
+		return issues;
+	}
+
+	/**
+	 * Get the stored issue list of a status for repeated label queries.
+	 *
+	 * @param status
+	 *            - open or closed
+	 * @return issues in the order sent by the server, or null if the list is
+	 *         not stored
+	 */
+	public synchronized GitHubIssues getIssueList(String status) {
+		GitHubIssues list = issueLists.get(status);
+		if (list == null) {
+			List<GitHubIssue> issues = getIssues(status);
+			if (issues == null) {
+				return null;
+			}
+			list = new GitHubIssues(issues);
+			issueLists.put(status, list);
+		}
+		return list;
+	}
+
+	/**
+	 * Create a predicate matching the stored issues that contain the words of
+	 * a text query.
+	 *
+	 * @param query
+	 *            - words to look for in the title, body, labels and stored
+	 *            comments
+	 * @return predicate
+	 */
+	public Predicate<GitHubIssue> getTextFilter(String query) {
+		return textIndex.matcher(query);
+	}
+
+	/**
+	 * Search the stored issue list of a status.
+	 *
+	 * @param status
+	 *            - open or closed
+	 * @param query
+	 *            - words to look for in the title, body, labels and stored
+	 *            comments
+	 * @return matching issues in the order sent by the server, or null if the
+	 *         list is not stored
+	 */
+	public synchronized List<GitHubIssue> searchIssues(String status,
+			String query) {
+		List<GitHubIssue> issues = getIssues(status);
+		return issues == null ? null : textIndex.filter(issues, query);
+	}
+
+	/**
+	 * Get a stored issue.
+	 *
+	 * @param number
+	 *            - issue number
+	 * @return issue, or null if not stored
+	 */
+	public synchronized GitHubIssue getIssue(String number) {
+		Record record = records.get(number);
+		return record == null ? null : record.issue;
+	}
+
+	/**
+	 * Get the stored issues updated at or after a time.
+	 *
+	 * @param time
+	 *            - milliseconds since the epoch
+	 * @return issues, oldest update first
+	 */
+	public synchronized List<GitHubIssue> getIssuesUpdatedSince(long time) {
+		List<GitHubIssue> issues = new ArrayList<GitHubIssue>();
+		for (Set<String> numbers : updatedIndex.tailMap(Long.valueOf(time))
+				.values()) {
+			for (String number : numbers) {
+				issues.add(records.get(number).issue);
+			}
+		}
+		return issues;
+	}
+
+	/**
+	 * Get the stored comments of an issue.
+	 *
+	 * @param issue
+	 *            - current state of the issue
+	 * @return comments, or null if they are not stored or the issue was
+	 *         updated since they were stored
+	 */
+	public synchronized GitHubComments getComments(GitHubIssue issue) {
+		Record record = records.get(issue.getNumber());
+		if (record == null || record.comments == null
+				|| !equals(record.issue.getUpdatedAt(), issue.getUpdatedAt())) {
+			return null;
+		}
+		return new GitHubComments(Arrays.asList(record.comments));
+	}
+
+	/**
+	 * Replace the issue list of a status.
+	 *
+	 * @param status
+	 *            - open or closed
+	 * @param issues
+	 *            - all issues with the status, in the order sent by the server
+	 */
+	public synchronized void replaceIssues(String status,
+			Collection<GitHubIssue> issues) {
+		replaceIssues(status, issues, null, null);
+	}
+
+	/**
+	 * Replace the issue list of a status with a list that can be revalidated.
+	 *
+	 * @param status
+	 *            - open or closed
+	 * @param issues
+	 *            - all issues with the status, in the order sent by the server
+	 * @param etag
+	 *            - value of the <code>ETag</code> header, may be null
+	 * @param lastModified
+	 *            - value of the <code>Last-Modified</code> header, may be null
+	 */
+	public synchronized void replaceIssues(String status,
+			Collection<GitHubIssue> issues, String etag, String lastModified) {
+		if (etag == null && lastModified == null) {
+			validators.remove(status);
+		} else {
+			validators.put(status, new String[] { etag, lastModified });
+		}
+		List<String> numbers = new ArrayList<String>(issues.size());
+		for (GitHubIssue issue : issues) {
+			numbers.add(issue.getNumber());
+			put(issue, null);
+		}
+		List<String> previous = snapshots.put(status, numbers);
+		refreshTimes.put(status, Long.valueOf(System.currentTimeMillis()));
+		if (previous != null) {
+			Set<String> listed = new HashSet<String>();
+			for (List<String> snapshot : snapshots.values()) {
+				listed.addAll(snapshot);
+			}
+			for (String number : previous) {
+				if (!listed.contains(number)) {
+					remove(number);
+				}
+			}
+		}
+		changed();
+	}
+
+	/**
+	 * Mark the stored issue list of a status as current, after the server
+	 * confirmed that it did not change.
+	 *
+	 * @param status
+	 *            - open or closed
+	 */
+	public synchronized void markRefreshed(String status) {
+		if (snapshots.containsKey(status)) {
+			refreshTimes.put(status, Long.valueOf(System.currentTimeMillis()));
+			scheduleSave();
+		}
+	}
+
+	/**
+	 * Mark the stored issue lists as outdated, e.g. after an issue was
+	 * changed, so the next query revalidates them.
+	 */
+	public synchronized void invalidate() {
+		for (Map.Entry<String, Long> refreshTime : refreshTimes.entrySet()) {
+			refreshTime.setValue(Long.valueOf(0));
+		}
+		changed();
+	}
+
+	/**
+	 * Store the full state of an issue.
+	 *
+	 * @param issue
+	 *            - issue
+	 * @param comments
+	 *            - comments of the issue, may be null
+	 */
+	public synchronized void putIssue(GitHubIssue issue,
+			GitHubComments comments) {
+		put(issue, comments);
+		changed();
+	}
+
+	/**
+	 * @return the stored labels of the repository, or null if not stored
+	 */
+	public synchronized List<String> getLabels() {
+		return labels == null ? null : new ArrayList<String>(labels);
+	}
+
+	/**
+	 * Store the labels of the repository.
+	 *
+	 * @param labels
+	 *            - labels
+	 */
+	public synchronized void setLabels(Collection<String> labels) {
+		this.labels = new ArrayList<String>(labels);
+		changed();
+	}
+
+	/**
+	 * Claim the background refresh of this store.
+	 *
+	 * @return true if the caller should refresh the store and call
+	 *         {@link #refreshDone()} afterwards, false if a refresh is
+	 *         already running
+	 */
+	public boolean startRefresh() {
+		return refreshing.compareAndSet(false, true);
+	}
+
+	/**
+	 * Release the claim taken with {@link #startRefresh()}.
+	 */
+	public void refreshDone() {
+		refreshing.set(false);
+	}
+
+	/**
+	 * Forget all stored data and delete the store file.
+	 */
+	public synchronized void clear() {
+		records.clear();
+		updatedIndex.clear();
+		textIndex.clear();
+		issueLists.clear();
+		snapshots.clear();
+		refreshTimes.clear();
+		validators.clear();
+		labels = null;
+		dirty = false;
+		if (file.exists() && !file.delete()) {
+			LOG.warn("Failed to delete issue store " + file);
+		}
+	}
+
+	/**
+	 * Write pending changes to disk now.
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void flush() throws IOException {
+		if (!dirty) {
+			return;
+		}
+		File directory = file.getParentFile();
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Failed to create " + directory);
+		}
+		File tmp = new File(file.getPath() + ".tmp");
+		FileOutputStream stream = new FileOutputStream(tmp);
+		DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(stream));
+		try {
+			write(output);
+			output.flush();
+			stream.getFD().sync();
+		} finally {
+			output.close();
+		}
+		dirty = false;
+		if (!tmp.renameTo(file)) {
+			// renaming over an existing file fails on some platforms
+			if (!file.delete() || !tmp.renameTo(file)) {
+				throw new IOException("Failed to replace " + file);
+			}
+		}
+	}
+
+	private void put(GitHubIssue issue, GitHubComments comments) {
+		Record record = records.get(issue.getNumber());
+		GitHubComment[] storedComments = null;
+		if (comments != null) {
+			storedComments = comments.getComments().toArray(
+					new GitHubComment[0]);
+		} else if (record != null
+				&& equals(record.issue.getUpdatedAt(), issue.getUpdatedAt())) {
+			storedComments = record.comments;
+		}
+		boolean textChanged = record == null
+				|| storedComments != record.comments
+				|| !hasSameText(record.issue, issue);
+		if (record != null) {
+			unindex(record);
+		}
+		if (textChanged) {
+			textIndex.add(issue, storedComments == null ? null : Arrays
+					.asList(storedComments));
+		}
+		record = new Record(issue, storedComments);
+		records.put(issue.getNumber(), record);
+		Set<String> numbers = updatedIndex.get(Long.valueOf(record.updatedAt));
+		if (numbers == null) {
+			numbers = new HashSet<String>();
+			updatedIndex.put(Long.valueOf(record.updatedAt), numbers);
+		}
+		numbers.add(issue.getNumber());
+	}
+
+	private void remove(String number) {
+		Record record = records.remove(number);
+		if (record != null) {
+			unindex(record);
+			textIndex.remove(number);
+		}
+	}
+
+	private void unindex(Record record) {
+		Set<String> numbers = updatedIndex.get(Long.valueOf(record.updatedAt));
+		if (numbers != null) {
+			numbers.remove(record.issue.getNumber());
+			if (numbers.isEmpty()) {
+				updatedIndex.remove(Long.valueOf(record.updatedAt));
+			}
+		}
+	}
+
+	private void changed() {
+		issueLists.clear();
+		scheduleSave();
+	}
+
+	private void scheduleSave() {
+		dirty = true;
+		if (!saveScheduled) {
+			saveScheduled = true;
+			getSaver().schedule(new Runnable() {
+
+				public void run() {
+					synchronized (GitHubIssueStore.this) {
+						saveScheduled = false;
+					}
+					try {
+						flush();
+					} catch (IOException e) {
+						LOG.warn("Failed to save issue store " + file, e);
+					}
+				}
+			}, SAVE_DELAY, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private static synchronized ScheduledExecutorService getSaver() {
+		if (saver == null) {
+			ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+					1, new GitHubThreadFactory("GitHub issue store"));
+			saver = executor;
+		}
+		return saver;
+	}
+
+	private synchronized void load() {
+		DataInputStream input;
+		try {
+			input = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(file)));
+		} catch (FileNotFoundException e) {
+			return;
+		}
+		try {
+			read(input);
+		} catch (IOException e) {
+			LOG.warn("Discarding unreadable issue store " + file, e);
+			clear();
+		} finally {
+			try {
+				input.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	private void write(DataOutputStream output) throws IOException {
+		output.writeInt(MAGIC);
+		output.writeInt(VERSION);
+		output.writeInt(records.size());
+		for (Record record : records.values()) {
+			writeIssue(output, record.issue);
+			if (record.comments == null) {
+				output.writeInt(-1);
+			} else {
+				output.writeInt(record.comments.length);
+				for (GitHubComment comment : record.comments) {
+					writeComment(output, comment);
+				}
+			}
+		}
+		output.writeInt(snapshots.size());
+		for (Map.Entry<String, List<String>> snapshot : snapshots.entrySet()) {
+			writeString(output, snapshot.getKey());
+			output.writeLong(getRefreshTime(snapshot.getKey()));
+			String[] values = validators.get(snapshot.getKey());
+			writeString(output, values == null ? null : values[0]);
+			writeString(output, values == null ? null : values[1]);
+			writeStrings(output, snapshot.getValue());
+		}
+		writeStrings(output, labels);
+	}
+
+	private void read(DataInputStream input) throws IOException {
+		if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+			throw new IOException("Unsupported issue store format");
+		}
+		for (int i = input.readInt(); i > 0; i--) {
+			GitHubIssue issue = readIssue(input);
+			int count = input.readInt();
+			List<GitHubComment> comments = null;
+			if (count >= 0) {
+				comments = new ArrayList<GitHubComment>(count);
+				for (int c = 0; c < count; c++) {
+					comments.add(readComment(input));
+				}
+			}
+			put(issue, comments == null ? null : new GitHubComments(comments));
+		}
+		for (int i = input.readInt(); i > 0; i--) {
+			String status = readString(input);
+			refreshTimes.put(status, Long.valueOf(input.readLong()));
+			String etag = readString(input);
+			String lastModified = readString(input);
+			if (etag != null || lastModified != null) {
+				validators.put(status, new String[] { etag, lastModified });
+			}
+			List<String> numbers = readStrings(input);
+			for (String number : numbers) {
+				if (!records.containsKey(number)) {
+					throw new IOException("Unknown issue " + number);
+				}
+			}
+			snapshots.put(status, numbers);
+		}
+		labels = readStrings(input);
+	}
+
+	static void writeIssue(DataOutputStream output, GitHubIssue issue)
+			throws IOException {
+		writeString(output, issue.getNumber());
+		writeString(output, issue.getUser());
+		writeString(output, issue.getTitle());
+		writeString(output, issue.getBody());
+		writeString(output, issue.getState());
+		writeString(output, issue.getCreatedAt());
+		writeString(output, issue.getUpdatedAt());
+		writeString(output, issue.getClosedAt());
+		writeString(output, issue.getGravatarId());
+		writeInteger(output, issue.getComments());
+		writeInteger(output, issue.getVotes());
+		writeStrings(output, issue.getLabels());
+	}
+
+	static GitHubIssue readIssue(DataInputStream input)
+			throws IOException {
+		GitHubIssue issue = new GitHubIssue();
+		issue.setNumber(readString(input));
+		issue.setUser(readString(input));
+		issue.setTitle(readString(input));
+		issue.setBody(readString(input));
+		issue.setState(readString(input));
+		issue.setCreatedAt(readString(input));
+		issue.setUpdatedAt(readString(input));
+		issue.setClosedAt(readString(input));
+		issue.setGravatarId(readString(input));
+		issue.setComments(readInteger(input));
+		issue.setVotes(readInteger(input));
+		issue.setLabels(readStrings(input));
+		return issue;
+	}
+
+	private static void writeComment(DataOutputStream output,
+			GitHubComment comment) throws IOException {
+		writeString(output, comment.getGravatarId());
+		writeString(output, comment.getUser());
+		writeString(output, comment.getBody());
+		writeString(output, comment.getId());
+		writeString(output, comment.getCreatedAt());
+		writeString(output, comment.getUpdatedAt());
+	}
+
+	private static GitHubComment readComment(DataInputStream input)
+			throws IOException {
+		return new GitHubComment(readString(input), readString(input),
+				readString(input), readString(input), readString(input),
+				readString(input));
+	}
+
+	/**
+	 * Strings are written as UTF-8 bytes with their length, since bodies may
+	 * be longer than {@link DataOutputStream#writeUTF(String)} allows.
+	 */
+	static void writeString(DataOutputStream output, String value)
+			throws IOException {
+		if (value == null) {
+			output.writeInt(-1);
+		} else {
+			byte[] bytes = value.getBytes(AbstractGitHubService.CHARSET_UTF_8);
+			output.writeInt(bytes.length);
+			output.write(bytes);
+		}
+	}
+
+	static String readString(DataInputStream input) throws IOException {
+		int length = input.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		input.readFully(bytes);
+		return new String(bytes, AbstractGitHubService.CHARSET_UTF_8);
+	}
+
+	static void writeStrings(DataOutputStream output,
+			Collection<String> values) throws IOException {
+		if (values == null) {
+			output.writeInt(-1);
+		} else {
+			output.writeInt(values.size());
+			for (String value : values) {
+				writeString(output, value);
+			}
+		}
+	}
+
+	static List<String> readStrings(DataInputStream input)
+			throws IOException {
+		int count = input.readInt();
+		if (count < 0) {
+			return null;
+		}
+		List<String> values = new ArrayList<String>(count);
+		for (int i = 0; i < count; i++) {
+			values.add(readString(input));
+		}
+		return values;
+	}
+
+	private static void writeInteger(DataOutputStream output, Integer value)
+			throws IOException {
+		output.writeBoolean(value != null);
+		if (value != null) {
+			output.writeInt(value.intValue());
+		}
+	}
+
+	private static Integer readInteger(DataInputStream input)
+			throws IOException {
+		return input.readBoolean() ? Integer.valueOf(input.readInt()) : null;
+	}
+
+	private static boolean equals(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	private static boolean hasSameText(GitHubIssue a, GitHubIssue b) {
+		return equals(a.getTitle(), b.getTitle())
+				&& equals(a.getBody(), b.getBody())
+				&& (a.getLabels() == null ? b.getLabels() == null : a
+						.getLabels().equals(b.getLabels()));
+	}
+
+	/**
+	 * Stored issue with its comments, if known.
+	 */
+	private static final class Record {
+
+		private final GitHubIssue issue;
+		private final long updatedAt;
+		private final GitHubComment[] comments;
+
+		private Record(GitHubIssue issue, GitHubComment[] comments) {
+			this.issue = issue;
+			this.updatedAt = GitHubDateCodec.parse(issue.getUpdatedAt());
+			this.comments = comments;
+		}
+	}
+
+}
@@ -18,9 +18,11 @@ package org.eclipse.mylyn.github.internal;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 
 import org.eclipse.mylyn.github.internal.collections.CollectionUtils;
 import org.eclipse.mylyn.github.internal.collections.Predicate;
+import org.eclipse.mylyn.github.internal.collections.Predicates;
 
 /**
  * Container of multiple GitHub Issues, used when returning JSON objects,
@@ -30,6 +32,25 @@ public class GitHubIssues {
 
 	private GitHubIssue[] issues;
 
+	/**
+	 * Label index of {@link #issues}, built by the first label query.
+	 */
+	private transient GitHubLabelIndex labelIndex;
+
+	public GitHubIssues() {
+		issues = new GitHubIssue[0];
+	}
+
+	/**
+	 * Create a container of already decoded issues.
+	 * 
+	 * @param issues
+	 *            - issues
+	 */
+	public GitHubIssues(Collection<GitHubIssue> issues) {
+		this.issues = issues.toArray(new GitHubIssue[issues.size()]);
+	}
+
 	/**
 	 * Getter for all issues inside this object
 	 * 
@@ -44,30 +65,148 @@ public class GitHubIssues {
 	 * 
 	 * @param filter
 	 *            - label value
-	 * @return a filtered array.
+	 * @return a filtered view of the issues.
 	 */
 	public final Collection<GitHubIssue> getIssuesLabeled(final String filter) {
 		Collection<GitHubIssue> filteredIssues = null;
 		if (filter.equalsIgnoreCase("all")) {
 			filteredIssues = getIssues();
 		} else {
-			filteredIssues = CollectionUtils.filter(getIssues(),
-					new IssuePredicate(filter));
-
+			filteredIssues = CollectionUtils.select(issues, getLabelIndex()
+					.getLabeled(filter));
 		}
 		return filteredIssues;
 	}
 
+	/**
+	 * Filter the collection of issues by several labels.
+	 * 
+	 * @param allOf
+	 *            - labels all returned issues carry, may be null
+	 * @param anyOf
+	 *            - labels of which returned issues carry at least one, may be
+	 *            null to not restrict the result
+	 * @param noneOf
+	 *            - labels returned issues do not carry, may be null
+	 * @return a filtered view of the issues.
+	 */
+	public final Collection<GitHubIssue> getIssuesLabeled(
+			Collection<String> allOf, Collection<String> anyOf,
+			Collection<String> noneOf) {
+		return CollectionUtils.select(issues, getLabelIndex().select(allOf,
+				anyOf, noneOf));
+	}
+
+	/**
+	 * Select the issues matching a query without copying them. The label is
+	 * looked up in the label index, the filter is applied while the result
+	 * is iterated, and the iteration stops after the first matches.
+	 * 
+	 * @param label
+	 *            - label value, or "all" to not restrict the result
+	 * @param filter
+	 *            - further condition the returned issues match
+	 * @param max
+	 *            - maximum number of returned issues
+	 * @return view of the matching issues, in list order
+	 */
+	public final Iterable<GitHubIssue> select(String label,
+			Predicate<? super GitHubIssue> filter, int max) {
+		return CollectionUtils.limit(CollectionUtils.filtered(
+				getIssuesLabeled(label), filter), max);
+	}
+
+	private synchronized GitHubLabelIndex getLabelIndex() {
+		if (labelIndex == null) {
+			labelIndex = new GitHubLabelIndex(issues);
+		}
+		return labelIndex;
+	}
+
+	/**
+	 * Check if an issue matches a label filter.
+	 * 
+	 * @param issue
+	 *            - issue
+	 * @param filter
+	 *            - label value, or "all" to match any issue
+	 * @return true if the issue matches the filter
+	 */
+	public static boolean isLabeled(GitHubIssue issue, String filter) {
+		return filter.equalsIgnoreCase("all")
+				|| issue.getLabels().contains(filter);
+	}
+
+	/**
+	 * Create a predicate matching a label filter, for issues that are not
+	 * part of an indexed list, e.g. while a list is streamed.
+	 * 
+	 * @param filter
+	 *            - label value, or "all" to match any issue
+	 * @return predicate
+	 * @see #isLabeled(GitHubIssue, String)
+	 */
+	public static Predicate<GitHubIssue> labeled(String filter) {
+		if (filter.equalsIgnoreCase("all")) {
+			return Predicates.alwaysTrue();
+		}
+		return labeled(Collections.singleton(filter), null, null);
+	}
+
+	/**
+	 * Create a predicate matching several labels, for issues that are not
+	 * part of an indexed list.
+	 * 
+	 * @param allOf
+	 *            - labels all matched issues carry, may be null
+	 * @param anyOf
+	 *            - labels of which matched issues carry at least one, may be
+	 *            null to not restrict the result
+	 * @param noneOf
+	 *            - labels matched issues do not carry, may be null
+	 * @return predicate
+	 * @see #getIssuesLabeled(Collection, Collection, Collection)
+	 */
+	public static Predicate<GitHubIssue> labeled(Collection<String> allOf,
+			Collection<String> anyOf, Collection<String> noneOf) {
+		Predicate<GitHubIssue> predicate = Predicates.alwaysTrue();
+		if (allOf != null) {
+			for (String label : allOf) {
+				predicate = Predicates.and(predicate, new IssuePredicate(
+						label));
+			}
+		}
+		if (anyOf != null) {
+			Predicate<GitHubIssue> any = Predicates.not(Predicates
+					.<GitHubIssue> alwaysTrue());
+			for (String label : anyOf) {
+				any = Predicates.or(any, new IssuePredicate(label));
+			}
+			predicate = Predicates.and(predicate, any);
+		}
+		if (noneOf != null) {
+			for (String label : noneOf) {
+				predicate = Predicates.and(predicate, Predicates
+						.not(new IssuePredicate(label)));
+			}
+		}
+		return predicate;
+	}
+
+	/**
+	 * Matches the issues carrying a label.
+	 */
 	private static class IssuePredicate implements Predicate<GitHubIssue> {
 
-		private final String filter;
+		private final String label;
 
-		public IssuePredicate(String filter) {
-			this.filter = filter;
+		public IssuePredicate(String label) {
+			this.label = label;
 		}
 
 		public boolean apply(GitHubIssue issue) {
-			return issue.getLabels().contains(filter);
+			return issue.getLabels() != null
+					&& issue.getLabels().contains(label);
 		}
 
 	}
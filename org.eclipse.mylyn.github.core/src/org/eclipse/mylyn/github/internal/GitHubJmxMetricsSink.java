@@ -0,0 +1,77 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Publishes the metrics as an MXBean named {@link #OBJECT_NAME} on the
+ * platform MBean server, where they are read on demand, e.g. by JConsole.
+ */
+public final class GitHubJmxMetricsSink implements GitHubMetricsSink,
+		GitHubMetricsMXBean {
+
+	/**
+	 * Name of the registered MXBean.
+	 */
+	public static final String OBJECT_NAME = "org.eclipse.mylyn.github:type=Metrics";
+
+	private static final Log LOG = LogFactory
+			.getLog(GitHubJmxMetricsSink.class);
+
+	private GitHubMetrics metrics;
+	private ObjectName name;
+
+	public synchronized void open(GitHubMetrics newMetrics) {
+		this.metrics = newMetrics;
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(OBJECT_NAME);
+			if (server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+			server.registerMBean(this, objectName);
+			name = objectName;
+		} catch (JMException e) {
+			LOG.warn("Failed to register " + OBJECT_NAME, e);
+		}
+	}
+
+	public synchronized void close() {
+		if (name == null) {
+			return;
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+		} catch (JMException e) {
+			LOG.warn("Failed to unregister " + OBJECT_NAME, e);
+		}
+		name = null;
+	}
+
+	public Map<String, GitHubEndpointMetrics> getEndpoints() {
+		return getMetrics().getEndpoints();
+	}
+
+	public Map<String, GitHubHistogram> getPhases() {
+		return getMetrics().getPhases();
+	}
+
+	public void reset() {
+		getMetrics().reset();
+	}
+
+	private synchronized GitHubMetrics getMetrics() {
+		return metrics;
+	}
+
+}
@@ -0,0 +1,116 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Bitmap index from labels to the positions of the issues carrying them in
+ * an issue array.
+ * </p>
+ * <p>
+ * The index is built once for an array and answers label queries by
+ * combining one bitmap per label, instead of scanning the labels of every
+ * issue. The index does not follow later changes to the issues.
+ * </p>
+ */
+public final class GitHubLabelIndex {
+
+	private final int size;
+	private final Map<String, BitSet> labels = new HashMap<String, BitSet>();
+
+	/**
+	 * Index the labels of issues.
+	 *
+	 * @param issues
+	 *            - issues
+	 */
+	public GitHubLabelIndex(GitHubIssue[] issues) {
+		size = issues.length;
+		for (int i = 0; i < issues.length; i++) {
+			if (issues[i].getLabels() == null) {
+				continue;
+			}
+			for (String label : issues[i].getLabels()) {
+				BitSet positions = labels.get(label);
+				if (positions == null) {
+					positions = new BitSet(size);
+					labels.put(label, positions);
+				}
+				positions.set(i);
+			}
+		}
+	}
+
+	/**
+	 * @return number of indexed issues
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the issues carrying a label.
+	 *
+	 * @param label
+	 *            - label
+	 * @return positions of the issues, owned by the caller
+	 */
+	public BitSet getLabeled(String label) {
+		BitSet positions = labels.get(label);
+		return positions == null ? new BitSet(size) : (BitSet) positions
+				.clone();
+	}
+
+	/**
+	 * Select issues by label.
+	 *
+	 * @param allOf
+	 *            - labels all selected issues carry, may be null
+	 * @param anyOf
+	 *            - labels of which selected issues carry at least one, may be
+	 *            null to not restrict the selection
+	 * @param noneOf
+	 *            - labels selected issues do not carry, may be null
+	 * @return positions of the selected issues, owned by the caller
+	 */
+	public BitSet select(Collection<String> allOf, Collection<String> anyOf,
+			Collection<String> noneOf) {
+		BitSet result = new BitSet(size);
+		if (anyOf == null) {
+			result.set(0, size);
+		} else {
+			for (String label : anyOf) {
+				BitSet positions = labels.get(label);
+				if (positions != null) {
+					result.or(positions);
+				}
+			}
+		}
+		if (allOf != null) {
+			for (String label : allOf) {
+				BitSet positions = labels.get(label);
+				if (positions == null) {
+					result.clear();
+					return result;
+				}
+				result.and(positions);
+			}
+		}
+		if (noneOf != null) {
+			for (String label : noneOf) {
+				BitSet positions = labels.get(label);
+				if (positions != null) {
+					result.andNot(positions);
+				}
+			}
+		}
+		return result;
+	}
+
+}
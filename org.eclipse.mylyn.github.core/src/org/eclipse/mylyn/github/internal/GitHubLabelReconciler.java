@@ -0,0 +1,137 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.Status;
+
+/**
+ * <p>
+ * Brings the labels of an issue from their last known server state to the
+ * wanted state with the fewest label calls.
+ * </p>
+ * <p>
+ * Only labels that are missing are added and only labels that are no longer
+ * wanted are removed; unchanged labels cost no request. The calls are
+ * independent of each other and run concurrently. A failed call does not stop
+ * the others, all failures are reported together.
+ * </p>
+ */
+public final class GitHubLabelReconciler {
+
+	private static final String ADD_FAILED_MESSAGE = "Failed to add label %s to issue %s";
+	private static final String REMOVE_FAILED_MESSAGE = "Failed to remove label %s from issue %s";
+	private static final String PARTIAL_FAILURE_MESSAGE = "%d of %d label changes of issue %s failed";
+
+	private final GitHubLabelsService labelsService;
+	private final Executor executor;
+
+	/**
+	 * @param labelsService
+	 *            - service used for the label calls
+	 * @param executor
+	 *            - runs the label calls
+	 */
+	public GitHubLabelReconciler(GitHubLabelsService labelsService,
+			Executor executor) {
+		this.labelsService = labelsService;
+		this.executor = executor;
+	}
+
+	/**
+	 * Get the labels to add.
+	 *
+	 * @param known
+	 *            - labels the issue has on the server
+	 * @param wanted
+	 *            - labels the issue should have
+	 * @return wanted labels the issue does not have yet
+	 */
+	public static Set<String> getAddedLabels(Collection<String> known,
+			Collection<String> wanted) {
+		Set<String> added = new LinkedHashSet<String>(wanted);
+		added.removeAll(known);
+		return added;
+	}
+
+	/**
+	 * Get the labels to remove.
+	 *
+	 * @param known
+	 *            - labels the issue has on the server
+	 * @param wanted
+	 *            - labels the issue should have
+	 * @return labels of the issue that are no longer wanted
+	 */
+	public static Set<String> getRemovedLabels(Collection<String> known,
+			Collection<String> wanted) {
+		Set<String> removed = new LinkedHashSet<String>(known);
+		removed.removeAll(wanted);
+		return removed;
+	}
+
+	/**
+	 * Update the labels of an issue and wait for all calls to finish.
+	 *
+	 * @param issueNumber
+	 *            - issue number
+	 * @param known
+	 *            - labels the issue has on the server
+	 * @param wanted
+	 *            - labels the issue should have
+	 * @return OK status if all changes were made, otherwise a multi status
+	 *         with one error per failed change
+	 */
+	public IStatus reconcile(final String issueNumber,
+			Collection<String> known, Collection<String> wanted) {
+		Map<Future<?>, String> calls = new LinkedHashMap<Future<?>, String>();
+		for (final String label : getRemovedLabels(known, wanted)) {
+			calls.put(GitHubFutures.submit(executor, new Callable<Object>() {
+
+				public Object call() throws GitHubServiceException {
+					labelsService.deleteLabelFromIssue(label, issueNumber);
+					return null;
+				}
+			}), String.format(REMOVE_FAILED_MESSAGE, label, issueNumber));
+		}
+		for (final String label : getAddedLabels(known, wanted)) {
+			calls.put(GitHubFutures.submit(executor, new Callable<Object>() {
+
+				public Object call() throws GitHubServiceException {
+					labelsService.addLabelToIssue(label, issueNumber);
+					return null;
+				}
+			}), String.format(ADD_FAILED_MESSAGE, label, issueNumber));
+		}
+
+		List<IStatus> failures = new ArrayList<IStatus>();
+		for (Map.Entry<Future<?>, String> call : calls.entrySet()) {
+			Throwable failure = GitHubFutures.await(call.getKey());
+			if (failure != null) {
+				failures.add(GitHubConnectorLogger.createErrorStatus(
+						call.getValue() + ": " + failure.getMessage(), failure));
+			}
+		}
+		if (failures.isEmpty()) {
+			return Status.OK_STATUS;
+		}
+		return new MultiStatus(GitHub.BUNDLE_ID, 0,
+				failures.toArray(new IStatus[failures.size()]), String.format(
+						PARTIAL_FAILURE_MESSAGE, failures.size(), calls.size(),
+						issueNumber), null);
+	}
+
+}
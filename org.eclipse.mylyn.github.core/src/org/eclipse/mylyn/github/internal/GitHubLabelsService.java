@@ -3,10 +3,6 @@
  */
 package org.eclipse.mylyn.github.internal;
 
-import static org.eclipse.mylyn.github.internal.GitHub.API_ISSUES_ROOT;
-import static org.eclipse.mylyn.github.internal.GitHub.API_URL_BASE;
-
-import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
@@ -33,12 +29,8 @@ public class GitHubLabelsService extends AbstractGitHubService {
 	 * @see org.eclipse.mylyn.github.internal.AbstractGitHubService#create(java.lang.Object)
 	 */
 	public final String create(String label) throws GitHubServiceException {
-		StringBuilder uri = new StringBuilder(API_URL_BASE);
-		uri.append(API_ISSUES_ROOT).append(GitHub.ADD_LABEL)
-				.append(getTaskRepositoryUserName()).append("/")
-				.append(getTaskRepositoryProjectName()).append("/")
-				.append(label);
-		executeRetrieveLabels(uri.toString(), getCredentials());
+		String uri = getEndpointUri(GitHub.ADD_LABEL) + "/" + label;
+		executeRetrieveLabels(uri, getCredentials());
 		return label;
 	}
 
@@ -51,12 +43,9 @@ public class GitHubLabelsService extends AbstractGitHubService {
 	 */
 	public final String addLabelToIssue(String label, String issueId)
 			throws GitHubServiceException {
-		StringBuilder uri = new StringBuilder(API_URL_BASE);
-		uri.append(API_ISSUES_ROOT).append(GitHub.ADD_LABEL)
-				.append(getTaskRepositoryUserName()).append("/")
-				.append(getTaskRepositoryProjectName()).append("/")
-				.append(label).append("/").append(issueId);
-		executeRetrieveLabels(uri.toString(), getCredentials());
+		String uri = getEndpointUri(GitHub.ADD_LABEL) + "/" + label + "/"
+				+ issueId;
+		executeRetrieveLabels(uri, getCredentials());
 		return label;
 	}
 
@@ -67,11 +56,9 @@ public class GitHubLabelsService extends AbstractGitHubService {
 	 * @see org.eclipse.mylyn.github.internal.AbstractGitHubService#retrieve()
 	 */
 	public final List<String> retrieve() throws GitHubServiceException {
-		StringBuilder uri = new StringBuilder(API_URL_BASE);
-		uri.append(API_ISSUES_ROOT).append("labels/")
-				.append(getTaskRepositoryUserName()).append("/")
-				.append(getTaskRepositoryProjectName());
-		return executeRetrieveLabels(uri.toString(), getCredentials());
+		String uri = getEndpointUri(GitHub.LABELS);
+		GitHubLabels labels = executeRead(uri, GitHubLabels.class);
+		return Arrays.asList(labels.getLabes());
 	}
 
 
@@ -82,12 +69,8 @@ public class GitHubLabelsService extends AbstractGitHubService {
 	 * @see org.eclipse.mylyn.github.internal.AbstractGitHubService#delete(java.lang.String)
 	 */
 	public final void delete(String label) throws GitHubServiceException {
-		StringBuilder uri = new StringBuilder(API_URL_BASE);
-		uri.append(API_ISSUES_ROOT).append(GitHub.REMOVE_LABEL)
-				.append(getTaskRepositoryUserName()).append("/")
-				.append(getTaskRepositoryProjectName()).append("/")
-				.append(label);
-		executeRetrieveLabels(uri.toString(), getCredentials());
+		String uri = getEndpointUri(GitHub.REMOVE_LABEL) + "/" + label;
+		executeRetrieveLabels(uri, getCredentials());
 	}
 
 	/**
@@ -98,30 +81,20 @@ public class GitHubLabelsService extends AbstractGitHubService {
 	 */
 	public final void deleteLabelFromIssue(String label, String issueId)
 			throws GitHubServiceException {
-		StringBuilder uri = new StringBuilder(API_URL_BASE);
-		uri.append(API_ISSUES_ROOT).append(GitHub.REMOVE_LABEL)
-				.append(getTaskRepositoryUserName()).append("/")
-				.append(getTaskRepositoryProjectName()).append("/")
-				.append(label).append("/").append(issueId);
-		executeRetrieveLabels(uri.toString(), getCredentials());
+		String uri = getEndpointUri(GitHub.REMOVE_LABEL) + "/" + label
+				+ "/" + issueId;
+		executeRetrieveLabels(uri, getCredentials());
 	}
 
 	private List<String> executeRetrieveLabels(String uri,
 			NameValuePair[] parametersBody) throws GitHubServiceException {
 		HttpMethod operation = executeOperation(uri, parametersBody);
-		String responseBody = null;
+		GitHubLabels labels;
 		try {
-			responseBody = new String(operation.getResponseBody());
-		} catch (IOException e) {
-			throw new GitHubServiceException(
-					FAILED_TO_READ_RESPONSE_BODY_EXCEPTION_MESSAGE, e);
+			labels = readResponse(operation, GitHubLabels.class);
 		} finally {
-			if (operation != null) {
-				operation.releaseConnection();
-			}
+			operation.releaseConnection();
 		}
-		GitHubLabels labels = getGson().fromJson(responseBody,
-				GitHubLabels.class);
 		return Arrays.asList(labels.getLabes());
 	}
 
@@ -0,0 +1,114 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Writes a summary of the metrics to the log at a fixed interval and when
+ * the sink is closed. Intervals without new requests are skipped.
+ */
+public final class GitHubLogMetricsSink implements GitHubMetricsSink {
+
+	private static final Log LOG = LogFactory
+			.getLog(GitHubLogMetricsSink.class);
+
+	private final long interval;
+
+	private GitHubMetrics metrics;
+	private ScheduledExecutorService executor;
+	private long dumpedRequests = -1;
+
+	/**
+	 * @param interval
+	 *            - milliseconds between two summaries
+	 */
+	public GitHubLogMetricsSink(long interval) {
+		this.interval = interval;
+	}
+
+	public synchronized void open(GitHubMetrics newMetrics) {
+		this.metrics = newMetrics;
+		executor = new ScheduledThreadPoolExecutor(1, new GitHubThreadFactory(
+				"GitHub metrics"));
+		executor.scheduleWithFixedDelay(new Runnable() {
+
+			public void run() {
+				log(false);
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized void close() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+			log(true);
+		}
+	}
+
+	private synchronized void log(boolean always) {
+		if (!LOG.isInfoEnabled()) {
+			return;
+		}
+		long requests = 0;
+		for (GitHubEndpointMetrics endpoint : metrics.getEndpoints().values()) {
+			requests += endpoint.getRequests();
+		}
+		if (always || requests != dumpedRequests) {
+			dumpedRequests = requests;
+			LOG.info(dump(metrics));
+		}
+	}
+
+	/**
+	 * Summarize metrics, one line per endpoint and phase.
+	 *
+	 * @param metrics
+	 *            - metrics
+	 * @return summary
+	 */
+	public static String dump(GitHubMetrics metrics) {
+		StringBuilder text = new StringBuilder("GitHub metrics");
+		for (Map.Entry<String, GitHubEndpointMetrics> entry : metrics
+				.getEndpoints().entrySet()) {
+			GitHubEndpointMetrics endpoint = entry.getValue();
+			GitHubTransferStatistics transfer = endpoint.getTransfer();
+			text.append("\n  ").append(entry.getKey()).append(": ")
+					.append(endpoint.getRequests()).append(" requests, ")
+					.append(endpoint.getFailures()).append(" failed, ")
+					.append(endpoint.getRetries()).append(" retries, status ")
+					.append(endpoint.getStatusCounts()).append(", latency ");
+			append(text, endpoint.getLatency());
+			text.append(", decode ");
+			append(text, endpoint.getDecodeTime());
+			text.append(", ").append(transfer.getWireBytes())
+					.append(" bytes received, ")
+					.append(transfer.getDecodedBytes())
+					.append(" bytes decoded");
+		}
+		for (Map.Entry<String, GitHubHistogram> entry : metrics.getPhases()
+				.entrySet()) {
+			text.append("\n  ").append(entry.getKey()).append(": ")
+					.append(entry.getValue().getCount()).append(" times, ");
+			append(text, entry.getValue());
+		}
+		return text.toString();
+	}
+
+	private static void append(StringBuilder text, GitHubHistogram histogram) {
+		text.append("mean ").append(histogram.getMeanMicros() / 1000)
+				.append(" ms, p50 ").append(histogram.getP50Micros() / 1000)
+				.append(" ms, p99 ").append(histogram.getP99Micros() / 1000)
+				.append(" ms, max ").append(histogram.getMaxMicros() / 1000)
+				.append(" ms");
+	}
+
+}
@@ -0,0 +1,246 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <p>
+ * Request metrics per API endpoint and timings of the phases of queries and
+ * submissions, so a slow synchronization can be attributed to the network,
+ * decoding or task data creation.
+ * </p>
+ * <p>
+ * Metrics are kept in memory with atomic counters and published by
+ * {@link GitHubMetricsSink}s. The default instance opens the
+ * {@link GitHubJmxMetricsSink} if the system property {@link #JMX_PROPERTY}
+ * is true, and the {@link GitHubLogMetricsSink} if
+ * {@link #LOG_INTERVAL_PROPERTY} is set to a number of seconds.
+ * </p>
+ */
+public final class GitHubMetrics {
+
+	/**
+	 * System property enabling the JMX sink.
+	 */
+	public static final String JMX_PROPERTY = "github.metrics.jmx";
+
+	/**
+	 * System property with the seconds between two dumps of the log sink.
+	 */
+	public static final String LOG_INTERVAL_PROPERTY = "github.metrics.log.interval";
+
+	/**
+	 * Phase of {@link GitHubRepositoryConnector#performQuery} answering the
+	 * whole query.
+	 */
+	public static final String PHASE_QUERY = "performQuery";
+
+	/**
+	 * Phase of a query reading the issue lists from the network, including
+	 * the task data created while the lists are streamed.
+	 */
+	public static final String PHASE_QUERY_NETWORK = "performQuery.network";
+
+	/**
+	 * Phase of a query answered from the issue store.
+	 */
+	public static final String PHASE_QUERY_STORE = "performQuery.store";
+
+	/**
+	 * Time a query spent creating task data.
+	 */
+	public static final String PHASE_QUERY_TASK_DATA = "performQuery.createTaskData";
+
+	/**
+	 * Phase of {@link GitHubTaskDataHandler#postTaskData} submitting a task.
+	 */
+	public static final String PHASE_POST = "postTaskData";
+
+	/**
+	 * Phase of a submission planning the requests.
+	 */
+	public static final String PHASE_POST_PLAN = "postTaskData.plan";
+
+	/**
+	 * Phase of a submission sending the requests.
+	 */
+	public static final String PHASE_POST_EXECUTE = "postTaskData.execute";
+
+	/**
+	 * Phase of a submission queuing requests in the outbox.
+	 */
+	public static final String PHASE_POST_QUEUE = "postTaskData.queue";
+
+	private static final String API_ROOT = "/json/";
+	private static final String LABEL = "label";
+
+	private static GitHubMetrics instance;
+
+	private final ConcurrentMap<String, GitHubEndpointMetrics> endpoints = new ConcurrentHashMap<String, GitHubEndpointMetrics>();
+	private final ConcurrentMap<String, GitHubHistogram> phases = new ConcurrentHashMap<String, GitHubHistogram>();
+	private final List<GitHubMetricsSink> sinks = new CopyOnWriteArrayList<GitHubMetricsSink>();
+
+	/**
+	 * @return the metrics recorded by the services
+	 */
+	public static synchronized GitHubMetrics getDefault() {
+		if (instance == null) {
+			instance = new GitHubMetrics();
+			if (Boolean.getBoolean(JMX_PROPERTY)) {
+				instance.addSink(new GitHubJmxMetricsSink());
+			}
+			Long interval = Long.getLong(LOG_INTERVAL_PROPERTY);
+			if (interval != null && interval.longValue() > 0) {
+				instance.addSink(new GitHubLogMetricsSink(
+						interval.longValue() * 1000));
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Close the sinks of the default metrics and forget them.
+	 */
+	public static synchronized void shutdown() {
+		if (instance != null) {
+			for (GitHubMetricsSink sink : instance.sinks) {
+				instance.removeSink(sink);
+			}
+			instance = null;
+		}
+	}
+
+	/**
+	 * Get the name of the endpoint of a request path: the two segments
+	 * following the API root, three for label changes, e.g.
+	 * <code>issues/list</code> or <code>issues/label/add</code>. Paths
+	 * outside the API are named by their first segment.
+	 *
+	 * @param path
+	 *            - request path
+	 * @return endpoint name
+	 */
+	public static String getEndpointName(String path) {
+		if (path == null) {
+			return "";
+		}
+		int root = path.indexOf(API_ROOT);
+		if (root < 0) {
+			String[] segments = path.split("/");
+			for (String segment : segments) {
+				if (segment.length() > 0) {
+					return segment;
+				}
+			}
+			return "";
+		}
+		String[] segments = path.substring(root + API_ROOT.length()).split(
+				"/");
+		if (segments.length > 2 && LABEL.equals(segments[1])) {
+			return segments[0] + "/" + segments[1] + "/" + segments[2];
+		}
+		if (segments.length > 1) {
+			return segments[0] + "/" + segments[1];
+		}
+		return segments[0];
+	}
+
+	/**
+	 * Get the metrics of an endpoint.
+	 *
+	 * @param endpoint
+	 *            - endpoint name, see {@link #getEndpointName(String)}
+	 * @return metrics, never null
+	 */
+	public GitHubEndpointMetrics getEndpoint(String endpoint) {
+		GitHubEndpointMetrics metrics = endpoints.get(endpoint);
+		if (metrics == null) {
+			GitHubEndpointMetrics newMetrics = new GitHubEndpointMetrics();
+			metrics = endpoints.putIfAbsent(endpoint, newMetrics);
+			if (metrics == null) {
+				metrics = newMetrics;
+			}
+		}
+		return metrics;
+	}
+
+	/**
+	 * Get the timings of a phase.
+	 *
+	 * @param phase
+	 *            - phase name, e.g. {@link #PHASE_QUERY}
+	 * @return timings, never null
+	 */
+	public GitHubHistogram getPhase(String phase) {
+		GitHubHistogram histogram = phases.get(phase);
+		if (histogram == null) {
+			GitHubHistogram newHistogram = new GitHubHistogram();
+			histogram = phases.putIfAbsent(phase, newHistogram);
+			if (histogram == null) {
+				histogram = newHistogram;
+			}
+		}
+		return histogram;
+	}
+
+	/**
+	 * @return metrics of all endpoints requested so far, by name
+	 */
+	public Map<String, GitHubEndpointMetrics> getEndpoints() {
+		return Collections
+				.unmodifiableMap(new TreeMap<String, GitHubEndpointMetrics>(
+						endpoints));
+	}
+
+	/**
+	 * @return timings of all phases recorded so far, by name
+	 */
+	public Map<String, GitHubHistogram> getPhases() {
+		return Collections.unmodifiableMap(new TreeMap<String, GitHubHistogram>(
+				phases));
+	}
+
+	/**
+	 * Forget all recorded metrics.
+	 */
+	public void reset() {
+		for (GitHubEndpointMetrics metrics : endpoints.values()) {
+			metrics.reset();
+		}
+		for (GitHubHistogram histogram : phases.values()) {
+			histogram.reset();
+		}
+	}
+
+	/**
+	 * Open a sink publishing these metrics.
+	 *
+	 * @param sink
+	 *            - sink
+	 */
+	public void addSink(GitHubMetricsSink sink) {
+		sinks.add(sink);
+		sink.open(this);
+	}
+
+	/**
+	 * Close a sink.
+	 *
+	 * @param sink
+	 *            - sink opened with {@link #addSink(GitHubMetricsSink)}
+	 */
+	public void removeSink(GitHubMetricsSink sink) {
+		if (sinks.remove(sink)) {
+			sink.close();
+		}
+	}
+
+}
@@ -0,0 +1,29 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.util.Map;
+
+/**
+ * Management interface of the {@link GitHubMetrics}, registered by the
+ * {@link GitHubJmxMetricsSink}.
+ */
+public interface GitHubMetricsMXBean {
+
+	/**
+	 * @return metrics of all endpoints requested so far, by name
+	 */
+	Map<String, GitHubEndpointMetrics> getEndpoints();
+
+	/**
+	 * @return timings of all phases recorded so far, by name
+	 */
+	Map<String, GitHubHistogram> getPhases();
+
+	/**
+	 * Forget all recorded metrics.
+	 */
+	void reset();
+
+}
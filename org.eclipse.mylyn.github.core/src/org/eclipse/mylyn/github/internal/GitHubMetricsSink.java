@@ -0,0 +1,25 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+/**
+ * Publishes the {@link GitHubMetrics} of the connector, e.g. over JMX or to
+ * the log.
+ */
+public interface GitHubMetricsSink {
+
+	/**
+	 * Start publishing.
+	 *
+	 * @param metrics
+	 *            - metrics to publish
+	 */
+	void open(GitHubMetrics metrics);
+
+	/**
+	 * Stop publishing.
+	 */
+	void close();
+
+}
@@ -0,0 +1,597 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.apache.commons.httpclient.ConnectTimeoutException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.mylyn.tasks.core.TaskRepository;
+
+/**
+ * <p>
+ * Durable queue of submissions that could not be sent because the server was
+ * unreachable, replayed in the background once it can be reached again.
+ * </p>
+ * <p>
+ * Submissions are appended to a journal next to the issue store and synced
+ * to disk before {@link #add(GitHubSubmission)} returns. Every record carries
+ * its length and checksum, so a record torn by a crash is detected and cut
+ * off when the journal is read again. Replayed submissions are marked done by
+ * appending a record rather than rewriting the journal, which is compacted
+ * once most of its records are obsolete.
+ * </p>
+ * <p>
+ * Before a replay the queued submissions of an issue are merged into one, see
+ * {@link GitHubSubmission#merge(GitHubSubmission, GitHubSubmission)}. Only
+ * changes of existing issues are queued: a task can not change its id, so an
+ * issue created while offline would have no task once it got its number.
+ * </p>
+ */
+public final class GitHubOutbox {
+
+	private static final Log LOG = LogFactory.getLog(GitHubOutbox.class);
+
+	private static final String OUTBOX_FILE_EXTENSION = ".outbox";
+	private static final int MAGIC = 0x4748514f;
+	private static final int VERSION = 1;
+	private static final int HEADER_LENGTH = 8;
+
+	private static final byte SUBMISSION = 1;
+	private static final byte DONE = 2;
+
+	/**
+	 * Delay before a replay, so a burst of submissions is merged.
+	 */
+	private static final long FLUSH_DELAY = 2 * 1000L;
+
+	/**
+	 * Longest delay between replays while the server is unreachable.
+	 */
+	private static final long MAX_FLUSH_DELAY = 5 * 60 * 1000L;
+
+	/**
+	 * Number of obsolete records tolerated before the journal is compacted.
+	 */
+	private static final int COMPACT_THRESHOLD = 64;
+
+	private static final ConcurrentMap<String, GitHubOutbox> OUTBOXES = new ConcurrentHashMap<String, GitHubOutbox>();
+
+	private static ScheduledExecutorService flusher;
+
+	private final File file;
+	private final Object replayLock = new Object();
+
+	private final SortedMap<Long, GitHubSubmission> pending = new TreeMap<Long, GitHubSubmission>();
+	private long nextSequence = 1;
+	private int records;
+
+	private TaskRepository repository;
+	private boolean flushScheduled;
+	private long flushDelay = FLUSH_DELAY;
+
+	private GitHubOutbox(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Get the outbox of a repository, loading it from disk the first time.
+	 * Queued submissions are replayed in the background.
+	 *
+	 * @param repository
+	 *            - task repository
+	 * @return outbox, never null
+	 */
+	public static GitHubOutbox get(TaskRepository repository) {
+		String key = GitHubIssueStore.getKey(repository);
+		GitHubOutbox outbox = OUTBOXES.get(key);
+		if (outbox == null) {
+			GitHubOutbox newOutbox = new GitHubOutbox(GitHubIssueStore.getFile(
+					key, OUTBOX_FILE_EXTENSION));
+			outbox = OUTBOXES.putIfAbsent(key, newOutbox);
+			if (outbox == null) {
+				outbox = newOutbox;
+				outbox.load();
+			}
+		}
+		outbox.bind(repository);
+		return outbox;
+	}
+
+	/**
+	 * Open an outbox file that is not bound to a repository and is only
+	 * replayed by {@link #replay(TaskRepository, Executor)}.
+	 *
+	 * @param file
+	 *            - journal file, does not need to exist
+	 * @return outbox
+	 */
+	public static GitHubOutbox open(File file) {
+		GitHubOutbox outbox = new GitHubOutbox(file);
+		outbox.load();
+		return outbox;
+	}
+
+	/**
+	 * Check whether a submission failed because the server could not be
+	 * reached, rather than being refused. Only failures to connect count: a
+	 * request that timed out or lost its connection after it was sent may
+	 * have been applied, and sending it again could apply it twice.
+	 *
+	 * @param status
+	 *            - status of the failed submission
+	 * @return true if any request failed before it reached the server
+	 */
+	public static boolean isOffline(IStatus status) {
+		for (Throwable t = status.getException(); t != null; t = t.getCause()) {
+			if (t instanceof ConnectException
+					|| t instanceof NoRouteToHostException
+					|| t instanceof UnknownHostException
+					|| t instanceof ConnectTimeoutException) {
+				return true;
+			}
+		}
+		for (IStatus child : status.getChildren()) {
+			if (isOffline(child)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Queue a submission. It is on disk when this method returns.
+	 *
+	 * @param submission
+	 *            - submission of an existing issue to send later
+	 * @return number of the issue
+	 * @throws IOException
+	 *             - if the journal could not be written
+	 * @throws IllegalArgumentException
+	 *             - if the submission creates the issue
+	 */
+	public synchronized String add(GitHubSubmission submission)
+			throws IOException {
+		if (submission.isCreate()) {
+			throw new IllegalArgumentException(
+					"Issues can not be created offline");
+		}
+		long sequence = nextSequence;
+		List<byte[]> journal = new ArrayList<byte[]>(1);
+		journal.add(createSubmissionRecord(sequence, submission));
+		append(file, journal);
+		records++;
+		nextSequence++;
+		pending.put(Long.valueOf(sequence), submission);
+		scheduleFlush();
+		return submission.getNumber();
+	}
+
+	/**
+	 * @param number
+	 *            - issue number
+	 * @return true if submissions of the issue are waiting to be sent
+	 */
+	public synchronized boolean isPending(String number) {
+		if (number == null) {
+			return false;
+		}
+		for (GitHubSubmission submission : pending.values()) {
+			if (number.equals(submission.getNumber())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return number of queued submissions
+	 */
+	public synchronized int size() {
+		return pending.size();
+	}
+
+	/**
+	 * Send the queued submissions, merged per issue, in the order they were
+	 * queued. A submission refused by the server is logged and dropped; the
+	 * replay stops at the first submission that cannot reach the server.
+	 *
+	 * @param repository
+	 *            - task repository
+	 * @param executor
+	 *            - runs the requests that can be sent concurrently, must not
+	 *            be the executor running the replay since the replay waits
+	 *            for them
+	 * @return true if the outbox was emptied, false if the server could not
+	 *         be reached
+	 * @throws IOException
+	 *             - if the journal could not be written
+	 */
+	public boolean replay(TaskRepository repository, Executor executor)
+			throws IOException {
+		synchronized (replayLock) {
+			try {
+				for (Batch batch : getBatches()) {
+					try {
+						batch.submission.execute(repository, executor);
+						done(batch, null);
+					} catch (CoreException e) {
+						if (isOffline(e.getStatus())) {
+							done(batch, batch.submission.getRemaining());
+							return false;
+						}
+						LOG.warn("Dropping queued changes of issue "
+								+ batch.submission.getNumber(), e);
+						done(batch, null);
+					}
+				}
+				return true;
+			} finally {
+				compact();
+			}
+		}
+	}
+
+	/**
+	 * Stop replaying and forget all outboxes. Queued submissions stay in
+	 * their journals and are replayed once the outboxes are used again.
+	 */
+	public static synchronized void shutdown() {
+		if (flusher != null) {
+			flusher.shutdownNow();
+			flusher = null;
+		}
+		OUTBOXES.clear();
+	}
+
+	private synchronized void bind(TaskRepository repository) {
+		this.repository = repository;
+		scheduleFlush();
+	}
+
+	private synchronized List<Batch> getBatches() {
+		Map<String, Batch> batches = new LinkedHashMap<String, Batch>();
+		for (Map.Entry<Long, GitHubSubmission> entry : pending.entrySet()) {
+			GitHubSubmission submission = entry.getValue();
+			String number = submission.getNumber();
+			Batch batch = batches.get(number);
+			if (batch == null) {
+				batches.put(number, new Batch(entry.getKey(), submission));
+			} else {
+				batch.add(entry.getKey(), submission);
+			}
+		}
+		return new ArrayList<Batch>(batches.values());
+	}
+
+	/**
+	 * Mark the submissions of a batch as sent, keeping what remains to be
+	 * sent in place of the first one.
+	 */
+	private synchronized void done(Batch batch, GitHubSubmission remaining)
+			throws IOException {
+		Long first = batch.sequences.get(0);
+		List<byte[]> journal = new ArrayList<byte[]>();
+		for (Long sequence : batch.sequences) {
+			if (remaining != null && sequence.equals(first)) {
+				journal.add(createSubmissionRecord(sequence.longValue(),
+						remaining));
+			} else {
+				journal.add(createDoneRecord(sequence.longValue()));
+			}
+		}
+		append(file, journal);
+		records += journal.size();
+		for (Long sequence : batch.sequences) {
+			if (remaining != null && sequence.equals(first)) {
+				pending.put(sequence, remaining);
+			} else {
+				pending.remove(sequence);
+			}
+		}
+	}
+
+	private synchronized void scheduleFlush() {
+		if (flushScheduled || repository == null || pending.isEmpty()) {
+			return;
+		}
+		flushScheduled = true;
+		getFlusher().schedule(new Runnable() {
+
+			public void run() {
+				flush();
+			}
+		}, flushDelay, TimeUnit.MILLISECONDS);
+	}
+
+	private void flush() {
+		TaskRepository target;
+		synchronized (this) {
+			target = repository;
+		}
+		boolean emptied = false;
+		try {
+			// the requests of a submission are sent one after the other on
+			// this thread, a flusher thread waiting for another could
+			// deadlock the flusher
+			emptied = replay(target, GitHubFutures.DIRECT_EXECUTOR);
+		} catch (IOException e) {
+			LOG.warn("Failed to write outbox " + file, e);
+		} catch (RuntimeException e) {
+			LOG.warn("Failed to replay outbox " + file, e);
+		}
+		synchronized (this) {
+			flushScheduled = false;
+			flushDelay = emptied ? FLUSH_DELAY : Math.min(flushDelay * 2,
+					MAX_FLUSH_DELAY);
+			scheduleFlush();
+		}
+	}
+
+	private static synchronized ScheduledExecutorService getFlusher() {
+		if (flusher == null) {
+			ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+					GitHub.MAX_SYNC_CONCURRENCY, new GitHubThreadFactory(
+							"GitHub outbox"));
+			flusher = executor;
+		}
+		return flusher;
+	}
+
+	/**
+	 * Append records to the journal and sync it. A failed append is cut off
+	 * again so the journal never ends in a partial record it could be
+	 * continued after.
+	 */
+	private static void append(File file, List<byte[]> journal)
+			throws IOException {
+		File directory = file.getParentFile();
+		if (directory != null && !directory.isDirectory()
+				&& !directory.mkdirs()) {
+			throw new IOException("Failed to create " + directory);
+		}
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(buffer);
+		RandomAccessFile journalFile = new RandomAccessFile(file, "rw");
+		try {
+			long end = journalFile.length();
+			if (end < HEADER_LENGTH) {
+				end = 0;
+				output.writeInt(MAGIC);
+				output.writeInt(VERSION);
+			}
+			for (byte[] record : journal) {
+				CRC32 checksum = new CRC32();
+				checksum.update(record);
+				output.writeInt(record.length);
+				output.writeInt((int) checksum.getValue());
+				output.write(record);
+			}
+			try {
+				journalFile.seek(end);
+				journalFile.write(buffer.toByteArray());
+				journalFile.getFD().sync();
+			} catch (IOException e) {
+				journalFile.setLength(end);
+				throw e;
+			}
+		} finally {
+			journalFile.close();
+		}
+	}
+
+	/**
+	 * Rewrite the journal with only the records still needed, once enough
+	 * obsolete records accumulated.
+	 */
+	private synchronized void compact() throws IOException {
+		int live = pending.size();
+		if (records == live
+				|| (!pending.isEmpty() && records < live + COMPACT_THRESHOLD)) {
+			return;
+		}
+		List<byte[]> journal = new ArrayList<byte[]>(live);
+		for (Map.Entry<Long, GitHubSubmission> entry : pending.entrySet()) {
+			journal.add(createSubmissionRecord(entry.getKey().longValue(),
+					entry.getValue()));
+		}
+		File tmp = new File(file.getPath() + ".tmp");
+		if (tmp.exists() && !tmp.delete()) {
+			throw new IOException("Failed to delete " + tmp);
+		}
+		append(tmp, journal);
+		if (!tmp.renameTo(file)) {
+			// renaming over an existing file fails on some platforms
+			if (!file.delete() || !tmp.renameTo(file)) {
+				throw new IOException("Failed to replace " + file);
+			}
+		}
+		records = journal.size();
+	}
+
+	private synchronized void load() {
+		if (!file.exists()) {
+			return;
+		}
+		long valid = 0;
+		try {
+			DataInputStream input = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(file)));
+			try {
+				if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+					throw new IOException("Unsupported outbox format");
+				}
+				valid = HEADER_LENGTH;
+				long size = file.length();
+				while (true) {
+					byte[] record = readRecord(input, size - valid
+							- HEADER_LENGTH);
+					if (record == null) {
+						break;
+					}
+					apply(record);
+					records++;
+					valid += HEADER_LENGTH + record.length;
+				}
+			} finally {
+				input.close();
+			}
+		} catch (IOException e) {
+			LOG.warn("Discarding unreadable outbox " + file, e);
+			if (!file.renameTo(new File(file.getPath() + ".bad"))) {
+				LOG.warn("Failed to move unreadable outbox " + file);
+			}
+			pending.clear();
+			records = 0;
+			return;
+		}
+		if (valid < file.length()) {
+			LOG.warn("Cutting off incomplete record at " + valid + " of "
+					+ file);
+			try {
+				RandomAccessFile journalFile = new RandomAccessFile(file, "rw");
+				try {
+					journalFile.setLength(valid);
+				} finally {
+					journalFile.close();
+				}
+			} catch (IOException e) {
+				LOG.warn("Failed to repair outbox " + file, e);
+			}
+		}
+	}
+
+	/**
+	 * @param input
+	 *            - journal positioned at the start of a record
+	 * @param available
+	 *            - bytes left in the journal after the record header
+	 * @return next complete record, or null at the end of the journal or at
+	 *         a record that was not completely written
+	 */
+	private static byte[] readRecord(DataInputStream input, long available)
+			throws IOException {
+		try {
+			int length = input.readInt();
+			int expected = input.readInt();
+			// a torn header may claim more bytes than the journal holds
+			if (length < 0 || length > available) {
+				return null;
+			}
+			byte[] record = new byte[length];
+			input.readFully(record);
+			CRC32 checksum = new CRC32();
+			checksum.update(record);
+			return (int) checksum.getValue() == expected ? record : null;
+		} catch (EOFException e) {
+			return null;
+		}
+	}
+
+	private void apply(byte[] record) throws IOException {
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(
+				record));
+		byte type = input.readByte();
+		if (type == SUBMISSION) {
+			long sequence = input.readLong();
+			pending.put(Long.valueOf(sequence), readSubmission(input));
+			nextSequence = Math.max(nextSequence, sequence + 1);
+		} else if (type == DONE) {
+			pending.remove(Long.valueOf(input.readLong()));
+		} else {
+			throw new IOException("Unknown outbox record " + type);
+		}
+	}
+
+	private static byte[] createSubmissionRecord(long sequence,
+			GitHubSubmission submission) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(buffer);
+		output.writeByte(SUBMISSION);
+		output.writeLong(sequence);
+		GitHubIssueStore.writeString(output, submission.getNumber());
+		GitHubIssueStore.writeIssue(output, submission.getIssue());
+		output.writeBoolean(submission.isCreate());
+		output.writeBoolean(submission.isEdit());
+		GitHubTaskOperation transition = submission.getTransition();
+		GitHubIssueStore.writeString(output, transition == null ? null
+				: transition.getId());
+		GitHubIssueStore.writeStrings(output, submission.getOldLabels());
+		GitHubIssueStore.writeStrings(output, submission.getComments());
+		output.flush();
+		return buffer.toByteArray();
+	}
+
+	private static GitHubSubmission readSubmission(DataInputStream input)
+			throws IOException {
+		String number = GitHubIssueStore.readString(input);
+		GitHubIssue issue = GitHubIssueStore.readIssue(input);
+		issue.setNumber(number);
+		boolean create = input.readBoolean();
+		boolean edit = input.readBoolean();
+		GitHubTaskOperation transition = GitHubTaskOperation
+				.fromId(GitHubIssueStore.readString(input));
+		List<String> oldLabels = GitHubIssueStore.readStrings(input);
+		List<String> comments = GitHubIssueStore.readStrings(input);
+		return new GitHubSubmission(issue, create, edit, transition, oldLabels,
+				comments);
+	}
+
+	private static byte[] createDoneRecord(long sequence) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(buffer);
+		output.writeByte(DONE);
+		output.writeLong(sequence);
+		output.flush();
+		return buffer.toByteArray();
+	}
+
+	/**
+	 * Queued submissions of one issue, merged.
+	 */
+	private static final class Batch {
+
+		private final List<Long> sequences = new ArrayList<Long>();
+		private GitHubSubmission submission;
+
+		private Batch(Long sequence, GitHubSubmission submission) {
+			this.sequences.add(sequence);
+			this.submission = submission;
+		}
+
+		private void add(Long sequence, GitHubSubmission later) {
+			sequences.add(sequence);
+			submission = GitHubSubmission.merge(submission, later);
+		}
+	}
+
+}
@@ -0,0 +1,142 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.mylyn.tasks.core.TaskRepository;
+
+/**
+ * <p>
+ * Configuration of a repository that rarely changes, currently its labels,
+ * shared by all attribute mappers and the UI of the repository.
+ * </p>
+ * <p>
+ * The configuration is read from the server by
+ * {@link #refresh(TaskRepository)}, which the connector calls from
+ * <code>updateRepositoryConfiguration</code>, and is stale after
+ * {@link #TIME_TO_LIVE}. Labels are kept in the {@link GitHubIssueStore}, so
+ * they are known right away in the next session.
+ * </p>
+ */
+public final class GitHubRepositoryConfiguration {
+
+	/**
+	 * Time the configuration is used before it is read again.
+	 */
+	public static final long TIME_TO_LIVE = 60 * 60 * 1000L;
+
+	private static final ConcurrentMap<String, GitHubRepositoryConfiguration> CONFIGURATIONS = new ConcurrentHashMap<String, GitHubRepositoryConfiguration>();
+
+	private final GitHubIssueStore store;
+	private final Object refreshLock = new Object();
+
+	private List<String> labels;
+	private long refreshTime;
+
+	private GitHubRepositoryConfiguration(GitHubIssueStore store) {
+		this.store = store;
+		List<String> storedLabels = store.getLabels();
+		if (storedLabels != null) {
+			labels = Collections.unmodifiableList(storedLabels);
+		}
+	}
+
+	/**
+	 * Get the configuration of a repository.
+	 *
+	 * @param repository
+	 *            - task repository
+	 * @return configuration, never null
+	 */
+	public static GitHubRepositoryConfiguration get(TaskRepository repository) {
+		String key = GitHubIssueStore.getKey(repository);
+		GitHubRepositoryConfiguration configuration = CONFIGURATIONS.get(key);
+		if (configuration == null) {
+			GitHubRepositoryConfiguration newConfiguration = new GitHubRepositoryConfiguration(
+					GitHubIssueStore.get(repository));
+			configuration = CONFIGURATIONS.putIfAbsent(key, newConfiguration);
+			if (configuration == null) {
+				configuration = newConfiguration;
+			}
+		}
+		return configuration;
+	}
+
+	/**
+	 * Get the labels without going to the server.
+	 *
+	 * @return labels of the repository, or null if they were never read
+	 */
+	public synchronized List<String> getLabels() {
+		return labels;
+	}
+
+	/**
+	 * Get the labels, reading them from the server if they were never read
+	 * or are stale.
+	 *
+	 * @param repository
+	 *            - task repository
+	 * @return labels of the repository
+	 * @throws GitHubServiceException
+	 */
+	public List<String> getLabels(TaskRepository repository)
+			throws GitHubServiceException {
+		synchronized (this) {
+			if (labels != null && !isStale()) {
+				return labels;
+			}
+		}
+		return refresh(repository, false);
+	}
+
+	/**
+	 * @return true if the configuration was not read from the server within
+	 *         {@link #TIME_TO_LIVE}
+	 */
+	public synchronized boolean isStale() {
+		return refreshTime + TIME_TO_LIVE < System.currentTimeMillis();
+	}
+
+	/**
+	 * Read the configuration from the server now.
+	 *
+	 * @param repository
+	 *            - task repository
+	 * @return labels of the repository
+	 * @throws GitHubServiceException
+	 */
+	public List<String> refresh(TaskRepository repository)
+			throws GitHubServiceException {
+		return refresh(repository, true);
+	}
+
+	private List<String> refresh(TaskRepository repository, boolean force)
+			throws GitHubServiceException {
+		// concurrent callers wait for one request instead of sending their own
+		synchronized (refreshLock) {
+			long start = System.currentTimeMillis();
+			synchronized (this) {
+				if (!force && labels != null && !isStale()) {
+					return labels;
+				}
+			}
+			List<String> newLabels = Collections
+					.unmodifiableList(new ArrayList<String>(GitHubService
+							.getLabelsService(repository).retrieve()));
+			synchronized (this) {
+				labels = newLabels;
+				refreshTime = start;
+			}
+			store.setLabels(newLabels);
+			return newLabels;
+		}
+	}
+
+}
@@ -19,12 +19,25 @@ package org.eclipse.mylyn.github.internal;
 import static org.eclipse.mylyn.github.internal.GitHubConnectorLogger.createErrorStatus;
 
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.mylyn.github.internal.collections.Predicate;
+import org.eclipse.mylyn.github.internal.collections.Predicates;
 import org.eclipse.mylyn.tasks.core.AbstractRepositoryConnector;
 import org.eclipse.mylyn.tasks.core.IRepositoryQuery;
 import org.eclipse.mylyn.tasks.core.ITask;
@@ -47,13 +60,41 @@ public class GitHubRepositoryConnector extends AbstractRepositoryConnector {
 	 */
 	protected static final String LABEL = GitHub.CONNECTOR_KIND;
 
+	private static final String MONITOR_STATUS_CHANGED_TASKS = "Getting changed tasks";
+
+	/**
+	 * Maximum number of list requests running concurrently.
+	 */
+	private static final int MAX_QUERY_THREADS = 4;
+
+	private static final long QUERY_THREAD_KEEP_ALIVE = 60 * 1000L;
+
+	private static final long CANCELLATION_POLL_INTERVAL = 100L;
+
+	/**
+	 * Age up to which stored issue lists answer queries without being
+	 * revalidated.
+	 */
+	private static final long STORE_MAX_AGE = 60 * 1000L;
+
 	/**
 	 * GitHub specific {@link AbstractTaskDataHandler}.
 	 */
 	private final GitHubTaskDataHandler taskDataHandler;
 
+	/**
+	 * Runs independent list requests, e.g. the open and closed issues of a
+	 * query, concurrently.
+	 */
+	private final ThreadPoolExecutor executor;
+
 	public GitHubRepositoryConnector() {
 		taskDataHandler = new GitHubTaskDataHandler();
+		executor = new ThreadPoolExecutor(MAX_QUERY_THREADS,
+				MAX_QUERY_THREADS, QUERY_THREAD_KEEP_ALIVE,
+				TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+				new GitHubThreadFactory("GitHub query"));
+		executor.allowCoreThreadTimeOut(true);
 	}
 
 	/**
@@ -119,34 +160,224 @@ public class GitHubRepositoryConnector extends AbstractRepositoryConnector {
 
 		IStatus result;
 		monitor.beginTask(GitHub.MONITOR_STATUS_IN_PROGRESS, statuses.length);
+		List<Future<List<GitHubIssue>>> pending = new ArrayList<Future<List<GitHubIssue>>>();
+		long start = System.nanoTime();
+		String phase = GitHubMetrics.PHASE_QUERY_NETWORK;
+		TaskDataCollectingHandler handler = null;
 		try {
 			String label = query.getAttribute(GitHub.QUERY_TEXT_LABEL);
-			List<GitHubIssue> filteredIssues = new ArrayList<GitHubIssue>();
-			GitHubIssueService issueService = GitHubService
-					.getIssueService(repository);
-			for (String status : statuses) {
-				GitHubIssues issues = issueService
-						.getFilteredIssues(
-								query.getAttribute(GitHub.QUERY_TEXT_ATTRIBUTE),
-								status);
-				filteredIssues.addAll(issues
-						.getIssuesLabeled(label == null ? "all" : label));
+			if (label == null) {
+				label = "all";
 			}
-
-			for (GitHubIssue issue : filteredIssues) {
-				TaskData taskData = taskDataHandler.createTaskData(repository,
-						monitor, issue, true);
-				collector.accept(taskData);
+			String filter = query.getAttribute(GitHub.QUERY_TEXT_ATTRIBUTE);
+			boolean listQuery = filter == null || filter.length() == 0;
+			GitHubIssueStore store = GitHubIssueStore.get(repository);
+			List<GitHubIssues> storedLists = getStoredIssues(repository,
+					store, statuses, session);
+			if (storedLists != null) {
+				// the label and the text are looked up in the indexes of
+				// the store, the lists are only read up to the last hit
+				phase = GitHubMetrics.PHASE_QUERY_STORE;
+				handler = new TaskDataCollectingHandler(
+						repository, collector,
+						Predicates.<GitHubIssue> alwaysTrue(), monitor);
+				Predicate<GitHubIssue> textFilter = listQuery ? Predicates
+						.<GitHubIssue> alwaysTrue() : store
+						.getTextFilter(filter);
+				for (GitHubIssues list : storedLists) {
+					for (GitHubIssue issue : list.select(label, textFilter,
+							handler.getRemainingHits())) {
+						handler.handle(issue);
+					}
+					monitor.worked(1);
+				}
+			} else {
+				handler = new TaskDataCollectingHandler(
+						repository, collector, GitHubIssues.labeled(label),
+						monitor);
+				GitHubIssueService issueService = GitHubService
+						.getIssueService(repository);
+				// fetch the other lists in the background while the first
+				// one is streamed, then hand them over in order; complete
+				// lists are revalidated against and kept in the store
+				for (int i = 1; i < statuses.length; i++) {
+					pending.add(listQuery ? issueService.submitStoredIssues(
+							statuses[i], store, executor) : issueService
+							.submitFilteredIssues(filter, statuses[i],
+									executor));
+				}
+				if (listQuery) {
+					issueService.getStoredIssues(statuses[0], store, handler);
+				} else {
+					issueService.getFilteredIssues(filter, statuses[0],
+							handler);
+				}
+				monitor.worked(1);
+				for (int i = 1; i < statuses.length; i++) {
+					List<GitHubIssue> issues = await(pending.get(i - 1),
+							monitor);
+					for (GitHubIssue issue : issues) {
+						handler.handle(issue);
+					}
+					monitor.worked(1);
+				}
 			}
-			monitor.worked(1);
 			result = Status.OK_STATUS;
+		} catch (OperationCanceledException e) {
+			result = Status.CANCEL_STATUS;
 		} catch (GitHubServiceException e) {
 			result = createErrorStatus(e);
+		} finally {
+			for (Future<List<GitHubIssue>> issues : pending) {
+				issues.cancel(true);
+			}
+			long elapsed = System.nanoTime() - start;
+			GitHubMetrics metrics = GitHubMetrics.getDefault();
+			metrics.getPhase(GitHubMetrics.PHASE_QUERY).record(elapsed);
+			metrics.getPhase(phase).record(elapsed);
+			if (handler != null) {
+				metrics.getPhase(GitHubMetrics.PHASE_QUERY_TASK_DATA).record(
+						handler.taskDataTime);
+			}
 		}
 		monitor.done();
 		return result;
 	}
 
+	/**
+	 * Get the stored issue lists that can answer a query without going to
+	 * the network. Lists refreshed within {@link #STORE_MAX_AGE} are used
+	 * as they are. Older lists are only used by background synchronizations
+	 * and are then refreshed in the background for the next query.
+	 * 
+	 * @return the stored lists in the order of the statuses, or null if the
+	 *         query has to go to the network
+	 */
+	private List<GitHubIssues> getStoredIssues(TaskRepository repository,
+			GitHubIssueStore store, String[] statuses,
+			ISynchronizationSession session) {
+		long now = System.currentTimeMillis();
+		boolean fresh = true;
+		List<GitHubIssues> lists = new ArrayList<GitHubIssues>();
+		for (String status : statuses) {
+			GitHubIssues list = store.getIssueList(status);
+			if (list == null) {
+				return null;
+			}
+			fresh &= now - store.getRefreshTime(status) < STORE_MAX_AGE;
+			lists.add(list);
+		}
+		if (fresh) {
+			return lists;
+		}
+		if (session != null && !session.isUser()) {
+			refreshInBackground(repository, store);
+			return lists;
+		}
+		return null;
+	}
+
+	private void refreshInBackground(final TaskRepository repository,
+			final GitHubIssueStore store) {
+		if (!store.startRefresh()) {
+			return;
+		}
+		try {
+			executor.execute(new Runnable() {
+
+				public void run() {
+					try {
+						// revalidate the lists one after the other, this
+						// task already holds a thread of the executor
+						GitHubService.getIssueService(repository)
+								.refreshStoredIssues(store, true,
+										GitHubFutures.DIRECT_EXECUTOR);
+					} catch (GitHubServiceException e) {
+						GitHubConnectorLogger.logError(e);
+					} finally {
+						store.refreshDone();
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			store.refreshDone();
+		}
+	}
+
+	/**
+	 * Wait for a request running in the background, giving up as soon as the
+	 * monitor is cancelled.
+	 */
+	private static <V> V await(Future<V> future, IProgressMonitor monitor)
+			throws GitHubServiceException {
+		while (true) {
+			if (monitor.isCanceled()) {
+				future.cancel(true);
+				throw new OperationCanceledException();
+			}
+			try {
+				return future.get(CANCELLATION_POLL_INTERVAL,
+						TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check the monitor again
+			} catch (InterruptedException e) {
+				future.cancel(true);
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				throw GitHubIssueService.unwrap(e);
+			}
+		}
+	}
+
+	/**
+	 * Turns streamed issues into partial task data and hands them to the
+	 * collector while the rest of the list is still being read. Issues
+	 * beyond {@link TaskDataCollector#MAX_HITS} are dropped.
+	 */
+	private final class TaskDataCollectingHandler implements
+			GitHubIssueHandler {
+
+		private final TaskRepository repository;
+		private final TaskDataCollector collector;
+		private final Predicate<GitHubIssue> filter;
+		private final IProgressMonitor monitor;
+		private int hits;
+
+		/**
+		 * Nanoseconds spent creating task data, handlers are only used by one
+		 * thread at a time.
+		 */
+		private long taskDataTime;
+
+		private TaskDataCollectingHandler(TaskRepository repository,
+				TaskDataCollector collector, Predicate<GitHubIssue> filter,
+				IProgressMonitor monitor) {
+			this.repository = repository;
+			this.collector = collector;
+			this.filter = filter;
+			this.monitor = monitor;
+		}
+
+		public void handle(GitHubIssue issue) throws GitHubServiceException {
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			if (hits < TaskDataCollector.MAX_HITS && filter.apply(issue)) {
+				hits++;
+				long start = System.nanoTime();
+				TaskData taskData = taskDataHandler.createTaskData(repository,
+						monitor, issue, true);
+				taskDataTime += System.nanoTime() - start;
+				collector.accept(taskData);
+			}
+		}
+
+		private int getRemainingHits() {
+			return TaskDataCollector.MAX_HITS - hits;
+		}
+	}
+
 	@Override
 	public final TaskData getTaskData(TaskRepository repository, String taskId,
 			IProgressMonitor monitor) throws CoreException {
@@ -179,16 +410,166 @@ public class GitHubRepositoryConnector extends AbstractRepositoryConnector {
 		return GitHubRepositoryUrlBuilder.obtainTaskUrl(repositoryUrl, taskId);
 	}
 
+	/**
+	 * @return true if the shared {@link GitHubRepositoryConfiguration} of the
+	 *         repository is stale
+	 * @see org.eclipse.mylyn.tasks.core.AbstractRepositoryConnector#isRepositoryConfigurationStale(org.eclipse.mylyn.tasks.core.TaskRepository,
+	 *      org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	@Override
+	public final boolean isRepositoryConfigurationStale(
+			TaskRepository repository, IProgressMonitor monitor)
+			throws CoreException {
+		return GitHubRepositoryConfiguration.get(repository).isStale();
+	}
+
+	/**
+	 * Read the labels of the repository into the shared
+	 * {@link GitHubRepositoryConfiguration}.
+	 * 
+	 * @see org.eclipse.mylyn.tasks.core.AbstractRepositoryConnector#updateRepositoryConfiguration(org.eclipse.mylyn.tasks.core.TaskRepository,
+	 *      org.eclipse.core.runtime.IProgressMonitor)
+	 */
 	@Override
 	public final void updateRepositoryConfiguration(
 			TaskRepository taskRepository, IProgressMonitor monitor)
 			throws CoreException {
+		try {
+			GitHubRepositoryConfiguration.get(taskRepository).refresh(
+					taskRepository);
+		} catch (GitHubServiceException e) {
+			throw new CoreException(createErrorStatus(e));
+		}
+	}
+
+	/**
+	 * Mark the tasks of issues updated since the last full synchronization as
+	 * stale, so only those are retrieved. The issue lists are revalidated
+	 * against the issue store, so unchanged lists are not downloaded again.
+	 * The new high-water mark is kept in the session until
+	 * {@link #postSynchronization} stores it.
+	 * 
+	 * @see org.eclipse.mylyn.tasks.core.AbstractRepositoryConnector#preSynchronization(org.eclipse.mylyn.tasks.core.sync.ISynchronizationSession,
+	 *      org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	@Override
+	public final void preSynchronization(ISynchronizationSession session,
+			IProgressMonitor monitor) throws CoreException {
+		if (!session.isFullSynchronization()) {
+			return;
+		}
+		monitor.beginTask(MONITOR_STATUS_CHANGED_TASKS,
+				IProgressMonitor.UNKNOWN);
+		try {
+			TaskRepository repository = session.getTaskRepository();
+			long lastSynchronization = getSynchronizationTimeStamp(repository);
+			GitHubIssueStore store = GitHubIssueStore.get(repository);
+			// issues at the high-water mark were seen by the last
+			// synchronization, unless the refresh moves them to the mark
+			Set<String> seenIssues = getIssuesUpdatedAt(store,
+					lastSynchronization);
+			// without a high-water mark every issue is listed again
+			GitHubService.getIssueService(repository).refreshStoredIssues(
+					store, lastSynchronization >= 0, executor);
+
+			long highWaterMark = lastSynchronization;
+			Set<String> changedIssues = new HashSet<String>();
+			for (GitHubIssue issue : store
+					.getIssuesUpdatedSince(lastSynchronization)) {
+				long updatedAt = GitHubDateCodec.parse(issue.getUpdatedAt());
+				if (updatedAt == lastSynchronization
+						&& seenIssues.contains(issue.getNumber())) {
+					continue;
+				}
+				changedIssues.add(issue.getNumber());
+				highWaterMark = Math.max(highWaterMark, updatedAt);
+			}
+
+			if (lastSynchronization < 0) {
+				for (ITask task : session.getTasks()) {
+					session.markStale(task);
+				}
+			} else if (changedIssues.isEmpty()) {
+				session.setNeedsPerformQueries(false);
+			} else {
+				for (ITask task : session.getTasks()) {
+					if (changedIssues.contains(task.getTaskId())) {
+						session.markStale(task);
+					}
+				}
+			}
+			if (highWaterMark >= 0) {
+				session.setData(Long.toString(highWaterMark));
+			}
+		} catch (GitHubServiceException e) {
+			throw new CoreException(createErrorStatus(e));
+		} finally {
+			monitor.done();
+		}
 	}
 
+	/**
+	 * Store the high-water mark computed by {@link #preSynchronization} once a
+	 * full synchronization completed without errors.
+	 * 
+	 * @see org.eclipse.mylyn.tasks.core.AbstractRepositoryConnector#postSynchronization(org.eclipse.mylyn.tasks.core.sync.ISynchronizationSession,
+	 *      org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	@Override
+	public final void postSynchronization(ISynchronizationSession session,
+			IProgressMonitor monitor) throws CoreException {
+		if (session.isFullSynchronization() && session.getStatus() == null
+				&& session.getData() instanceof String) {
+			session.getTaskRepository().setSynchronizationTimeStamp(
+					(String) session.getData());
+		}
+	}
+
+	/**
+	 * Compare the modification dates only for partial task data from query
+	 * results, and do a full comparison for anything else.
+	 * 
+	 * @see org.eclipse.mylyn.tasks.core.AbstractRepositoryConnector#hasTaskChanged(org.eclipse.mylyn.tasks.core.TaskRepository,
+	 *      org.eclipse.mylyn.tasks.core.ITask,
+	 *      org.eclipse.mylyn.tasks.core.data.TaskData)
+	 */
 	@Override
 	public final boolean hasTaskChanged(TaskRepository repository, ITask task,
 			TaskData taskData) {
-		return new TaskMapper(taskData).hasChanges(task);
+		TaskMapper mapper = new TaskMapper(taskData);
+		if (taskData.isPartial()) {
+			Date repositoryDate = mapper.getModificationDate();
+			Date localDate = task.getModificationDate();
+			if (repositoryDate != null && localDate != null) {
+				return !repositoryDate.equals(localDate);
+			}
+		}
+		return mapper.hasChanges(task);
+	}
+
+	private static Set<String> getIssuesUpdatedAt(GitHubIssueStore store,
+			long time) {
+		Set<String> numbers = new HashSet<String>();
+		if (time >= 0) {
+			for (GitHubIssue issue : store.getIssuesUpdatedSince(time)) {
+				if (GitHubDateCodec.parse(issue.getUpdatedAt()) == time) {
+					numbers.add(issue.getNumber());
+				}
+			}
+		}
+		return numbers;
+	}
+
+	private static long getSynchronizationTimeStamp(TaskRepository repository) {
+		String timeStamp = repository.getSynchronizationTimeStamp();
+		if (timeStamp != null) {
+			try {
+				return Long.parseLong(timeStamp);
+			} catch (NumberFormatException e) {
+				// not set by this connector, do a full synchronization
+			}
+		}
+		return -1;
 	}
 
 	@Override
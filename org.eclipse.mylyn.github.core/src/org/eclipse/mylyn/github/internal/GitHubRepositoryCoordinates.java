@@ -0,0 +1,121 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import static org.eclipse.mylyn.github.internal.GitHub.API_ISSUES_ROOT;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.mylyn.tasks.core.TaskRepository;
+
+/**
+ * <p>
+ * User, project and API root of a task repository, parsed once from its
+ * URL and shared by all services of the repository.
+ * </p>
+ * <p>
+ * The request prefixes of the repository's endpoints are built up front, so
+ * building a request URI only appends the request parameters.
+ * </p>
+ */
+public final class GitHubRepositoryCoordinates {
+
+	private static final String[] OPERATIONS = { GitHub.OPEN, GitHub.REOPEN,
+			GitHub.CLOSE, GitHub.EDIT, GitHub.SHOW, GitHub.LIST, GitHub.SEARCH,
+			GitHub.ADD_LABEL, GitHub.REMOVE_LABEL, GitHub.COMMENTS,
+			GitHub.COMMENT, GitHub.LABELS };
+
+	private static final ConcurrentMap<String, GitHubRepositoryCoordinates> COORDINATES = new ConcurrentHashMap<String, GitHubRepositoryCoordinates>();
+
+	private final String user;
+	private final String project;
+	private final String apiUrlBase;
+	private final String repositoryPath;
+	private final Map<String, String> prefixes;
+
+	private GitHubRepositoryCoordinates(String repositoryUrl, String apiUrl) {
+		this.user = GitHubRepositoryUrlBuilder
+				.buildTaskRepositoryUserName(repositoryUrl);
+		this.project = GitHubRepositoryUrlBuilder
+				.buildTaskRepositoryProject(repositoryUrl);
+		if (apiUrl == null || apiUrl.length() == 0) {
+			this.apiUrlBase = GitHub.API_URL_BASE;
+		} else {
+			this.apiUrlBase = apiUrl.endsWith("/") ? apiUrl : apiUrl + "/";
+		}
+		this.repositoryPath = user + "/" + project;
+		Map<String, String> uris = new HashMap<String, String>();
+		for (String operation : OPERATIONS) {
+			uris.put(operation, buildIssuesUri(operation));
+		}
+		this.prefixes = uris;
+	}
+
+	/**
+	 * Get the coordinates of a task repository.
+	 *
+	 * @param repository
+	 *            - task repository
+	 * @return coordinates, never null
+	 */
+	public static GitHubRepositoryCoordinates get(TaskRepository repository) {
+		String key = GitHubIssueStore.getKey(repository);
+		GitHubRepositoryCoordinates coordinates = COORDINATES.get(key);
+		if (coordinates == null) {
+			GitHubRepositoryCoordinates newCoordinates = new GitHubRepositoryCoordinates(
+					repository.getRepositoryUrl(), repository
+							.getProperty(GitHub.API_URL_PROPERTY));
+			coordinates = COORDINATES.putIfAbsent(key, newCoordinates);
+			if (coordinates == null) {
+				coordinates = newCoordinates;
+			}
+		}
+		return coordinates;
+	}
+
+	/**
+	 * @return owner of the repository, or null if the repository URL is not a
+	 *         GitHub project URL
+	 */
+	public String getUser() {
+		return user;
+	}
+
+	/**
+	 * @return name of the project, or null if the repository URL is not a
+	 *         GitHub project URL
+	 */
+	public String getProject() {
+		return project;
+	}
+
+	/**
+	 * @return root of the API, ending with a slash
+	 */
+	public String getApiUrlBase() {
+		return apiUrlBase;
+	}
+
+	/**
+	 * Get the URI of an issues endpoint of the repository, e.g.
+	 * <code>.../issues/show/:user/:repo</code>.
+	 *
+	 * @param operation
+	 *            - operation, e.g. {@link GitHub#SHOW}
+	 * @return URI without a trailing slash, append the parameters of the
+	 *         request
+	 */
+	public String getEndpointUri(String operation) {
+		String uri = prefixes.get(operation);
+		return uri != null ? uri : buildIssuesUri(operation);
+	}
+
+	private String buildIssuesUri(String operation) {
+		return apiUrlBase + API_ISSUES_ROOT + operation + repositoryPath;
+	}
+
+}
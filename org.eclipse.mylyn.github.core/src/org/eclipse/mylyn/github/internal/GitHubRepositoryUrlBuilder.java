@@ -19,10 +19,20 @@ public final class GitHubRepositoryUrlBuilder {
 
 	private static final String FORWARD_SLASH = "/";
 
+	private static final Pattern TASK_URL_PATTERN = Pattern
+			.compile("(http://.+?)/issues/issue/([^/]+)");
+
+	private static final Pattern TASK_ID_PATTERN = Pattern
+			.compile(".+?/issues/issue/([^/]+)");
+
 	private GitHubRepositoryUrlBuilder() {
 
 	}
 
+	/**
+	 * Parse the project of a repository URL. Services use the parsed
+	 * {@link GitHubRepositoryCoordinates} of their repository instead.
+	 */
 	public static String buildTaskRepositoryProject(String repositoryUrl) {
 		Matcher matcher = GitHub.URL_PATTERN.matcher(repositoryUrl);
 		if (matcher.matches()) {
@@ -31,6 +41,10 @@ public final class GitHubRepositoryUrlBuilder {
 		return null;
 	}
 
+	/**
+	 * Parse the user of a repository URL. Services use the parsed
+	 * {@link GitHubRepositoryCoordinates} of their repository instead.
+	 */
 	public static String buildTaskRepositoryUserName(String repositoryUrl) {
 		Matcher matcher = GitHub.URL_PATTERN.matcher(repositoryUrl);
 		if (matcher.matches()) {
@@ -63,8 +77,7 @@ public final class GitHubRepositoryUrlBuilder {
 
 	public static String obtainRepositoryUrlFromTaskUrl(String taskFullUrl) {
 		if (taskFullUrl != null) {
-			Matcher matcher = Pattern.compile(
-					"(http://.+?)/issues/issue/([^/]+)").matcher(taskFullUrl);
+			Matcher matcher = TASK_URL_PATTERN.matcher(taskFullUrl);
 			if (matcher.matches()) {
 				return matcher.group(1);
 			}
@@ -74,8 +87,7 @@ public final class GitHubRepositoryUrlBuilder {
 
 	public static String obtainTaskIdFromTaskUrl(String taskFullUrl) {
 		if (taskFullUrl != null) {
-			Matcher matcher = Pattern.compile(".+?/issues/issue/([^/]+)")
-					.matcher(taskFullUrl);
+			Matcher matcher = TASK_ID_PATTERN.matcher(taskFullUrl);
 			if (matcher.matches()) {
 				return matcher.group(1);
 			}
@@ -0,0 +1,391 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.httpclient.HttpStatus;
+
+/**
+ * <p>
+ * Paces the requests sent to one API host.
+ * </p>
+ * <p>
+ * The scheduler tracks the quota reported by the server in the
+ * <code>X-RateLimit-*</code> response headers and spreads the remaining
+ * requests over the rest of the rate limit window with a token bucket. As
+ * long as the server did not report a quota, requests are not delayed. When
+ * the quota is exhausted, or the server asks to come back later with
+ * <code>Retry-After</code>, all requests to the host are held back until then.
+ * </p>
+ * <p>
+ * Failed idempotent requests are retried after a jittered exponential
+ * backoff, see {@link #getBackoffDelay(int)}.
+ * </p>
+ */
+public final class GitHubRequestScheduler {
+
+	/**
+	 * Number of times an idempotent request is retried.
+	 */
+	public static final int MAX_RETRIES = 3;
+
+	/**
+	 * Length of the rate limit window assumed when the server does not send
+	 * <code>X-RateLimit-Reset</code>.
+	 */
+	private static final long DEFAULT_WINDOW = 60 * 1000L;
+
+	/**
+	 * Maximum number of requests sent back to back while quota remains.
+	 */
+	private static final int MAX_BURST = 10;
+
+	private static final long BASE_BACKOFF = 500L;
+	private static final long MAX_BACKOFF = 30 * 1000L;
+
+	/**
+	 * Requests that would have to wait longer than this fail instead of
+	 * blocking the caller.
+	 */
+	private static final long MAX_WAIT = 2 * 60 * 1000L;
+
+	private static final String RATE_LIMIT_EXCEEDED_MESSAGE = "API rate limit exceeded, retry in %d seconds.";
+
+	private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+	private static final ConcurrentMap<String, GitHubRequestScheduler> SCHEDULERS = new ConcurrentHashMap<String, GitHubRequestScheduler>();
+
+	private final Random random = new Random();
+
+	// token bucket, guarded by this
+	private long limit = -1;
+	private long remaining = -1;
+	private double capacity;
+	private double tokens;
+	private double tokensPerMillisecond;
+	private long lastRefill;
+	private long pausedUntil;
+
+	private final AtomicInteger queueDepth = new AtomicInteger();
+	private final AtomicLong requestCount = new AtomicLong();
+	private final AtomicLong delayedRequestCount = new AtomicLong();
+	private final AtomicLong retryCount = new AtomicLong();
+	private final AtomicLong totalWaitTime = new AtomicLong();
+	private final AtomicLong maxWaitTime = new AtomicLong();
+
+	/**
+	 * Get the scheduler shared by all requests to the host of an url.
+	 *
+	 * @param url
+	 *            - any url on the host
+	 * @return scheduler, never null
+	 */
+	public static GitHubRequestScheduler get(String url) {
+		String host;
+		try {
+			host = new URI(url).getAuthority();
+		} catch (URISyntaxException e) {
+			host = null;
+		}
+		if (host == null) {
+			host = url;
+		}
+		host = host.toLowerCase(Locale.US);
+		GitHubRequestScheduler scheduler = SCHEDULERS.get(host);
+		if (scheduler == null) {
+			GitHubRequestScheduler newScheduler = new GitHubRequestScheduler();
+			scheduler = SCHEDULERS.putIfAbsent(host, newScheduler);
+			if (scheduler == null) {
+				scheduler = newScheduler;
+			}
+		}
+		return scheduler;
+	}
+
+	/**
+	 * Wait until the next request may be sent.
+	 *
+	 * @throws GitHubServiceException
+	 *             - if the request would have to wait too long or the
+	 *             calling thread was interrupted
+	 */
+	public void acquire() throws GitHubServiceException {
+		long wait = reserve();
+		if (wait > MAX_WAIT) {
+			// the request is not sent, so it must not use up the quota
+			release();
+			throw new GitHubServiceException(String.format(
+					RATE_LIMIT_EXCEEDED_MESSAGE, wait / 1000));
+		}
+		requestCount.incrementAndGet();
+		if (wait <= 0) {
+			return;
+		}
+		sleep(wait);
+		delayedRequestCount.incrementAndGet();
+	}
+
+	/**
+	 * Take a token from the bucket without waiting.
+	 *
+	 * @return milliseconds the caller has to wait before sending the request
+	 */
+	public synchronized long reserve() {
+		long now = System.currentTimeMillis();
+		long wait = 0;
+		if (tokensPerMillisecond > 0) {
+			tokens = Math.min(capacity, tokens + (now - lastRefill)
+					* tokensPerMillisecond);
+			lastRefill = now;
+			tokens -= 1;
+			if (tokens < 0) {
+				wait = (long) Math.ceil(-tokens / tokensPerMillisecond);
+			}
+		}
+		return Math.max(wait, pausedUntil - now);
+	}
+
+	/**
+	 * Give back a token taken by {@link #reserve()} for a request that is not
+	 * sent.
+	 */
+	private synchronized void release() {
+		if (tokensPerMillisecond > 0) {
+			tokens = Math.min(capacity, tokens + 1);
+		}
+	}
+
+	/**
+	 * Update the quota from the rate limit headers of a response.
+	 *
+	 * @param limitHeader
+	 *            - value of <code>X-RateLimit-Limit</code>, may be null
+	 * @param remainingHeader
+	 *            - value of <code>X-RateLimit-Remaining</code>, may be null
+	 * @param resetHeader
+	 *            - value of <code>X-RateLimit-Reset</code> in seconds since
+	 *            the epoch, may be null
+	 */
+	public synchronized void update(String limitHeader, String remainingHeader,
+			String resetHeader) {
+		long newRemaining = parseLong(remainingHeader);
+		if (newRemaining < 0) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		long reset = parseLong(resetHeader);
+		long windowEnd = reset > 0 ? reset * 1000 : now + DEFAULT_WINDOW;
+		limit = parseLong(limitHeader);
+		remaining = newRemaining;
+		if (remaining == 0) {
+			pausedUntil = Math.max(pausedUntil, windowEnd);
+		}
+		boolean unlimited = tokensPerMillisecond <= 0;
+		tokensPerMillisecond = Math.max(remaining, 1)
+				/ (double) Math.max(windowEnd - now, 1000);
+		capacity = Math.max(1, Math.min(remaining, MAX_BURST));
+		if (unlimited) {
+			tokens = capacity;
+			lastRefill = now;
+		} else {
+			tokens = Math.min(tokens, capacity);
+		}
+	}
+
+	/**
+	 * Hold back all requests to the host for a while.
+	 *
+	 * @param delay
+	 *            - milliseconds
+	 */
+	public synchronized void pause(long delay) {
+		pausedUntil = Math.max(pausedUntil, System.currentTimeMillis() + delay);
+	}
+
+	/**
+	 * Wait before retrying a failed request. A delay requested by the server
+	 * holds back all requests to the host, otherwise only the caller backs
+	 * off.
+	 *
+	 * @param attempt
+	 *            - number of retries already done, starting at 0
+	 * @param retryAfterHeader
+	 *            - value of <code>Retry-After</code>, may be null
+	 * @throws GitHubServiceException
+	 *             - if the calling thread was interrupted
+	 */
+	public void retryLater(int attempt, String retryAfterHeader)
+			throws GitHubServiceException {
+		retryCount.incrementAndGet();
+		long retryAfter = parseRetryAfter(retryAfterHeader);
+		if (retryAfter >= 0) {
+			pause(retryAfter);
+		} else {
+			sleep(getBackoffDelay(attempt));
+		}
+	}
+
+	/**
+	 * Get the backoff before a retry: an exponentially growing delay of which
+	 * a random half is skipped, so clients failing together do not retry
+	 * together.
+	 *
+	 * @param attempt
+	 *            - number of retries already done, starting at 0
+	 * @return milliseconds
+	 */
+	public long getBackoffDelay(int attempt) {
+		long delay = Math.min(MAX_BACKOFF, BASE_BACKOFF << Math.min(attempt, 16));
+		long half = delay / 2;
+		synchronized (random) {
+			return half + (long) (random.nextDouble() * half);
+		}
+	}
+
+	/**
+	 * Check if a failed request may succeed when sent again.
+	 *
+	 * @param status
+	 *            - HTTP status of the response
+	 * @param remainingHeader
+	 *            - value of <code>X-RateLimit-Remaining</code>, may be null
+	 * @return true for server errors and exceeded rate limits
+	 */
+	public static boolean isRetryable(int status, String remainingHeader) {
+		switch (status) {
+		case HttpStatus.SC_INTERNAL_SERVER_ERROR:
+		case HttpStatus.SC_BAD_GATEWAY:
+		case HttpStatus.SC_SERVICE_UNAVAILABLE:
+		case HttpStatus.SC_GATEWAY_TIMEOUT:
+		case 429:
+			return true;
+		case HttpStatus.SC_FORBIDDEN:
+			return parseLong(remainingHeader) == 0;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Parse a <code>Retry-After</code> header.
+	 *
+	 * @param value
+	 *            - delay in seconds or HTTP date, may be null
+	 * @return delay in milliseconds, or -1 if the value could not be parsed
+	 */
+	public static long parseRetryAfter(String value) {
+		if (value == null) {
+			return -1;
+		}
+		long seconds = parseLong(value);
+		if (seconds >= 0) {
+			return seconds * 1000;
+		}
+		SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT,
+				Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		try {
+			return Math.max(0, format.parse(value.trim()).getTime()
+					- System.currentTimeMillis());
+		} catch (ParseException e) {
+			return -1;
+		}
+	}
+
+	private static long parseLong(String value) {
+		if (value == null) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private void sleep(long wait) throws GitHubServiceException {
+		queueDepth.incrementAndGet();
+		try {
+			Thread.sleep(wait);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new GitHubServiceException(e);
+		} finally {
+			queueDepth.decrementAndGet();
+			totalWaitTime.addAndGet(wait);
+			long max = maxWaitTime.get();
+			while (wait > max && !maxWaitTime.compareAndSet(max, wait)) {
+				max = maxWaitTime.get();
+			}
+		}
+	}
+
+	/**
+	 * @return number of requests currently waiting to be sent or retried
+	 */
+	public int getQueueDepth() {
+		return queueDepth.get();
+	}
+
+	/**
+	 * @return number of requests scheduled so far
+	 */
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	/**
+	 * @return number of requests that had to wait before being sent
+	 */
+	public long getDelayedRequestCount() {
+		return delayedRequestCount.get();
+	}
+
+	/**
+	 * @return number of retried requests
+	 */
+	public long getRetryCount() {
+		return retryCount.get();
+	}
+
+	/**
+	 * @return milliseconds spent waiting by all requests
+	 */
+	public long getTotalWaitTime() {
+		return totalWaitTime.get();
+	}
+
+	/**
+	 * @return longest wait of a single request in milliseconds
+	 */
+	public long getMaxWaitTime() {
+		return maxWaitTime.get();
+	}
+
+	/**
+	 * @return last reported request limit, or -1 if unknown
+	 */
+	public synchronized long getRateLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return last reported number of remaining requests, or -1 if unknown
+	 */
+	public synchronized long getRateLimitRemaining() {
+		return remaining;
+	}
+
+}
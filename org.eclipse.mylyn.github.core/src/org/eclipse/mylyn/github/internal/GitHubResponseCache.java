@@ -0,0 +1,167 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Cache of decoded API responses, used to revalidate reads with conditional
+ * requests.
+ * </p>
+ * <p>
+ * Entries are keyed by request URI, user and a digest of the token and
+ * remember the <code>ETag</code> and <code>Last-Modified</code> validators
+ * sent by the server. Cached values are shared between callers and must be
+ * treated as read only.
+ * </p>
+ */
+public final class GitHubResponseCache {
+
+	private static final int DEFAULT_MAX_ENTRIES = 512;
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private final Map<String, CachedResponse> entries;
+
+	public GitHubResponseCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	public GitHubResponseCache(final int maxEntries) {
+		entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<String, CachedResponse> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Build the cache key of a request.
+	 *
+	 * @param uri
+	 *            - request uri
+	 * @param user
+	 *            - user name of the credentials, may be null
+	 * @param token
+	 *            - token of the credentials, may be null
+	 * @return cache key, holding a SHA-256 digest instead of the token
+	 */
+	public static String createKey(String uri, String user, String token) {
+		return new StringBuilder(uri).append('\n').append(user).append('\n')
+				.append(digest(token)).toString();
+	}
+
+	private static String digest(String token) {
+		if (token == null) {
+			return null;
+		}
+		try {
+			byte[] hash = MessageDigest.getInstance(DIGEST_ALGORITHM).digest(
+					token.getBytes(AbstractGitHubService.CHARSET_UTF_8));
+			StringBuilder hex = new StringBuilder(hash.length * 2);
+			for (byte b : hash) {
+				hex.append(HEX_DIGITS[(b >> 4) & 0xf]).append(
+						HEX_DIGITS[b & 0xf]);
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Get a cached response.
+	 *
+	 * @param key
+	 * @return the entry, or null if the response is not cached
+	 */
+	public synchronized CachedResponse get(String key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * Cache a decoded response. Responses without validators are not cached
+	 * since they can not be revalidated.
+	 *
+	 * @param key
+	 * @param etag
+	 *            - value of the ETag header, may be null
+	 * @param lastModified
+	 *            - value of the Last-Modified header, may be null
+	 * @param value
+	 *            - decoded response
+	 */
+	public synchronized void put(String key, String etag, String lastModified,
+			Object value) {
+		if (etag == null && lastModified == null) {
+			entries.remove(key);
+		} else {
+			entries.put(key, new CachedResponse(etag, lastModified, value));
+		}
+	}
+
+	/**
+	 * Forget all cached responses.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * @return number of cached responses
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Decoded response with its validators.
+	 */
+	public static final class CachedResponse {
+
+		private final String etag;
+		private final String lastModified;
+		private final Object value;
+
+		/**
+		 * @param etag
+		 *            - value of the ETag header, may be null
+		 * @param lastModified
+		 *            - value of the Last-Modified header, may be null
+		 * @param value
+		 *            - decoded response
+		 */
+		public CachedResponse(String etag, String lastModified, Object value) {
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.value = value;
+		}
+
+		public String getEtag() {
+			return etag;
+		}
+
+		public String getLastModified() {
+			return lastModified;
+		}
+
+		public Object getValue() {
+			return value;
+		}
+	}
+
+}
@@ -20,6 +20,10 @@ import org.eclipse.mylyn.tasks.core.TaskRepository;
 
 /**
  * Facility to perform API operations on a GitHub issue tracker.
+ * <p>
+ * Services are lightweight: all services created for the same repository
+ * share one pooled {@link GitHubTransport}.
+ * </p>
  */
 public final class GitHubService {
 
@@ -46,4 +50,27 @@ public final class GitHubService {
 		return new GitHubCommentsService(repository);
 	}
 
+	/**
+	 * Get the number of concurrent requests allowed when retrieving task
+	 * data.
+	 * 
+	 * @param repository
+	 *            - task repository, may be null
+	 * @return value of {@link GitHub#SYNC_CONCURRENCY_PROPERTY}, between 1
+	 *         and {@link GitHub#MAX_SYNC_CONCURRENCY}
+	 */
+	public static int getConcurrency(TaskRepository repository) {
+		String value = repository == null ? null : repository
+				.getProperty(GitHub.SYNC_CONCURRENCY_PROPERTY);
+		int concurrency = GitHub.DEFAULT_SYNC_CONCURRENCY;
+		if (value != null) {
+			try {
+				concurrency = Integer.parseInt(value.trim());
+			} catch (NumberFormatException e) {
+				// keep the default
+			}
+		}
+		return Math.max(1, Math.min(concurrency, GitHub.MAX_SYNC_CONCURRENCY));
+	}
+
 }
@@ -0,0 +1,321 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.mylyn.tasks.core.RepositoryResponse;
+import org.eclipse.mylyn.tasks.core.RepositoryResponse.ResponseKind;
+import org.eclipse.mylyn.tasks.core.TaskRepository;
+
+/**
+ * <p>
+ * The requests needed to submit a change of an issue, planned so that
+ * nothing is sent twice and nothing unchanged is sent at all.
+ * </p>
+ * <p>
+ * The issue is created or edited first, and only if its title or body
+ * changed. The status transition follows without editing the issue again.
+ * Label changes and the new comment do not depend on each other and are sent
+ * concurrently once the issue is in its new state. Their failures are
+ * reported together, after the other requests completed.
+ * </p>
+ * <p>
+ * A submission remembers which of its requests were sent, so the rest can be
+ * queued in the {@link GitHubOutbox} when the network is down.
+ * </p>
+ */
+public final class GitHubSubmission {
+
+	private static final String FOLLOW_UP_FAILED_MESSAGE = "Issue %s was saved, but some changes failed";
+	private static final String COMMENT_FAILED_MESSAGE = "Failed to add comment to issue %s: %s";
+
+	private final GitHubIssue issue;
+	private final boolean create;
+	private final boolean edit;
+	private final GitHubTaskOperation transition;
+	private final List<String> oldLabels;
+	private final List<String> comments;
+
+	private String number;
+	private boolean issueSent;
+	private boolean transitionSent;
+	private boolean labelsSent;
+	private volatile int commentsSent;
+
+	/**
+	 * Plan a submission.
+	 *
+	 * @param issue
+	 *            - wanted state of the issue
+	 * @param create
+	 *            - true if the issue does not exist yet
+	 * @param edit
+	 *            - true if the title or body changed
+	 * @param transition
+	 *            - {@link GitHubTaskOperation#CLOSE},
+	 *            {@link GitHubTaskOperation#REOPEN} or null
+	 * @param oldLabels
+	 *            - labels the issue had before the change, or null if the
+	 *            labels did not change
+	 * @param comment
+	 *            - new comment, may be null
+	 */
+	public GitHubSubmission(GitHubIssue issue, boolean create, boolean edit,
+			GitHubTaskOperation transition, List<String> oldLabels,
+			String comment) {
+		this(issue, create, edit, transition, oldLabels,
+				comment == null || comment.trim().length() == 0 ? Collections
+						.<String> emptyList() : Collections
+						.singletonList(comment));
+	}
+
+	/**
+	 * Plan a submission with several new comments, which are added in order.
+	 *
+	 * @param issue
+	 *            - wanted state of the issue
+	 * @param create
+	 *            - true if the issue does not exist yet
+	 * @param edit
+	 *            - true if the title or body changed
+	 * @param transition
+	 *            - {@link GitHubTaskOperation#CLOSE},
+	 *            {@link GitHubTaskOperation#REOPEN} or null
+	 * @param oldLabels
+	 *            - labels the issue had before the change, or null if the
+	 *            labels did not change
+	 * @param comments
+	 *            - new comments, not null
+	 */
+	public GitHubSubmission(GitHubIssue issue, boolean create, boolean edit,
+			GitHubTaskOperation transition, List<String> oldLabels,
+			List<String> comments) {
+		this.issue = issue;
+		this.create = create;
+		this.edit = edit && !create;
+		this.transition = transition == GitHubTaskOperation.LEAVE ? null
+				: transition;
+		this.oldLabels = oldLabels;
+		this.comments = comments;
+		this.number = issue.getNumber();
+	}
+
+	/**
+	 * Merge two submissions of the same issue into one that has the effect
+	 * of both: the issue is saved once in its later state, the later
+	 * transition wins, labels go from the earlier known state to the later
+	 * wanted state and all comments are added in order. A later comment equal
+	 * to an earlier one, such as a submission retried after an error, is
+	 * added only once.
+	 *
+	 * @param earlier
+	 * @param later
+	 * @return merged submission
+	 */
+	public static GitHubSubmission merge(GitHubSubmission earlier,
+			GitHubSubmission later) {
+		GitHubIssue issue = later.issue;
+		issue.setNumber(earlier.number);
+		List<String> comments = new ArrayList<String>(earlier.comments);
+		for (String comment : later.comments) {
+			if (!earlier.comments.contains(comment)) {
+				comments.add(comment);
+			}
+		}
+		return new GitHubSubmission(issue, earlier.create, earlier.edit
+				|| later.edit, later.transition != null ? later.transition
+				: earlier.transition,
+				earlier.oldLabels != null ? earlier.oldLabels
+						: later.oldLabels, comments);
+	}
+
+	/**
+	 * @return issue number, known once the issue was created
+	 */
+	public String getNumber() {
+		return number;
+	}
+
+	GitHubIssue getIssue() {
+		return issue;
+	}
+
+	boolean isCreate() {
+		return create;
+	}
+
+	boolean isEdit() {
+		return edit;
+	}
+
+	GitHubTaskOperation getTransition() {
+		return transition;
+	}
+
+	List<String> getOldLabels() {
+		return oldLabels;
+	}
+
+	List<String> getComments() {
+		return comments;
+	}
+
+	/**
+	 * Get the requests of this submission that were not sent by
+	 * {@link #execute(TaskRepository, Executor)}.
+	 *
+	 * @return submission of the unsent requests, or null if all were sent
+	 */
+	public GitHubSubmission getRemaining() {
+		boolean labelsPending = !labelsSent && (oldLabels != null || create);
+		int sent = commentsSent;
+		if (issueSent && transitionSent && !labelsPending
+				&& sent == comments.size()) {
+			return null;
+		}
+		if (create && !issueSent) {
+			return new GitHubSubmission(issue, true, false, transition,
+					oldLabels, comments);
+		}
+		issue.setNumber(number);
+		List<String> knownLabels = null;
+		if (labelsPending) {
+			knownLabels = oldLabels != null ? oldLabels
+					: new ArrayList<String>();
+		}
+		return new GitHubSubmission(issue, false, edit && !issueSent,
+				transitionSent ? null : transition, knownLabels,
+				new ArrayList<String>(comments.subList(sent, comments.size())));
+	}
+
+	/**
+	 * @return number of requests the submission needs, not counting label
+	 *         changes
+	 */
+	public int getRequestCount() {
+		int count = 0;
+		if (create || edit) {
+			count++;
+		}
+		if (transition != null) {
+			count++;
+		}
+		return count + comments.size();
+	}
+
+	/**
+	 * Send the submission.
+	 *
+	 * @param repository
+	 *            - task repository
+	 * @param executor
+	 *            - runs the requests that can be sent concurrently
+	 * @return response for the submitted task
+	 * @throws CoreException
+	 *             - if a request failed
+	 */
+	public RepositoryResponse execute(TaskRepository repository,
+			Executor executor) throws CoreException {
+		GitHubIssueService issueService = GitHubService
+				.getIssueService(repository);
+		List<String> wantedLabels = issue.getLabels();
+		List<String> knownLabels = oldLabels;
+		try {
+			GitHubIssue saved = null;
+			if (create) {
+				saved = issueService.create(issue);
+				number = saved.getNumber();
+			} else if (edit) {
+				saved = issueService.update(issue);
+			}
+			issueSent = true;
+			if (transition == GitHubTaskOperation.CLOSE) {
+				saved = issueService.close(number);
+			} else if (transition == GitHubTaskOperation.REOPEN) {
+				saved = issueService.reopen(number);
+			}
+			transitionSent = true;
+			if (saved != null && saved.getLabels() != null) {
+				knownLabels = saved.getLabels();
+			}
+		} catch (GitHubServiceException e) {
+			throw new CoreException(GitHubConnectorLogger.createErrorStatus(e));
+		}
+
+		Future<?> commentTask = null;
+		if (commentsSent < comments.size()) {
+			commentTask = GitHubFutures.submit(executor,
+					createComments(repository));
+		}
+		List<IStatus> failures = new ArrayList<IStatus>();
+		if (oldLabels != null || create) {
+			IStatus labelStatus = new GitHubLabelReconciler(GitHubService
+					.getLabelsService(repository), executor).reconcile(number,
+					knownLabels == null ? new ArrayList<String>() : knownLabels,
+					wantedLabels);
+			if (labelStatus.isOK()) {
+				labelsSent = true;
+			} else {
+				addAll(failures, labelStatus);
+			}
+		}
+		if (commentTask != null) {
+			Throwable failure = GitHubFutures.await(commentTask);
+			if (failure != null) {
+				failures.add(GitHubConnectorLogger.createErrorStatus(String
+						.format(COMMENT_FAILED_MESSAGE, number,
+								failure.getMessage()), failure));
+			}
+		}
+		if (!failures.isEmpty()) {
+			throw new CoreException(new MultiStatus(GitHub.BUNDLE_ID, 0,
+					failures.toArray(new IStatus[failures.size()]),
+					String.format(FOLLOW_UP_FAILED_MESSAGE, number), null));
+		}
+		return new RepositoryResponse(create ? ResponseKind.TASK_CREATED
+				: ResponseKind.TASK_UPDATED, number);
+	}
+
+	private Callable<Object> createComments(final TaskRepository repository) {
+		return new Callable<Object>() {
+
+			public Object call() throws GitHubServiceException {
+				GitHubCommentsService commentsService = GitHubService
+						.getCommentsService(repository);
+				while (commentsSent < comments.size()) {
+					GitHubComment newComment = new GitHubComment();
+					newComment.setBody(comments.get(commentsSent));
+					newComment.setGravatarId(issue.getGravatarId());
+					newComment.setUser(issue.getUser());
+					newComment.setCreatedAt(issue.getCreatedAt());
+					newComment.setUpdatedAt(issue.getUpdatedAt());
+					newComment.setId(number);
+					commentsService.create(newComment);
+					commentsSent++;
+				}
+				return null;
+			}
+		};
+	}
+
+	private static void addAll(List<IStatus> failures, IStatus status) {
+		if (status.isMultiStatus()) {
+			for (IStatus child : status.getChildren()) {
+				failures.add(child);
+			}
+		} else {
+			failures.add(status);
+		}
+	}
+
+}
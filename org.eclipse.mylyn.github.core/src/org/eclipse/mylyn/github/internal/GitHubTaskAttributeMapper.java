@@ -1,8 +1,5 @@
 package org.eclipse.mylyn.github.internal;
 
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -21,12 +18,9 @@ import org.eclipse.mylyn.tasks.core.data.TaskAttributeMapper;
  */
 public final class GitHubTaskAttributeMapper extends TaskAttributeMapper {
 
-	private DateFormat dateFormat = SimpleDateFormat.getDateTimeInstance();
 	private static final Log LOG = LogFactory
 			.getLog(GitHubTaskAttributeMapper.class);
 
-	private List<String> labels;
-
 	/**
 	 * Create a new task attribute map for a specified repository.
 	 * 
@@ -48,26 +42,22 @@ public final class GitHubTaskAttributeMapper extends TaskAttributeMapper {
 	}
 
 	/**
-	 * Get the value of a date attribute properly formatted.
+	 * Get the value of a date attribute, stored as milliseconds since the
+	 * epoch or, by earlier versions, as a localized date.
 	 * 
 	 * @see org.eclipse.mylyn.tasks.core.data.TaskAttributeMapper#getDateValue(org.eclipse.mylyn.tasks.core.data.TaskAttribute)
 	 */
 	@Override
 	public Date getDateValue(TaskAttribute attribute) {
-		String value = attribute.getValue();
-		if (value != null) {
-			try {
-				return dateFormat.parse(value);
-			} catch (ParseException e) {
-				return super.getDateValue(attribute);
-			}
-		}
-		return null;
+		long time = GitHubDateCodec.parseAttributeValue(attribute.getValue());
+		return time == -1 ? null : new Date(time);
 	}
 
 	/**
 	 * Provide the available list of labels from repository as options for Task
-	 * Attribute
+	 * Attribute. Labels come from the shared
+	 * {@link GitHubRepositoryConfiguration} and are only read from the server
+	 * if they were never read before.
 	 * 
 	 * @see org.eclipse.mylyn.tasks.core.data.TaskAttributeMapper#getOptions(org.eclipse.mylyn.tasks.core.data.TaskAttribute)
 	 */
@@ -76,8 +66,10 @@ public final class GitHubTaskAttributeMapper extends TaskAttributeMapper {
 		TaskAttribute mappedLabelAttribute = attribute.getTaskData().getRoot()
 				.getMappedAttribute(GitHub.GITHUB_TASK_LABEL);
 		if (mappedLabelAttribute != null) {
+			List<String> labels = GitHubRepositoryConfiguration.get(
+					getTaskRepository()).getLabels();
 			if (labels == null) {
-				gatherLabels();
+				labels = gatherLabels();
 			}
 			if (labels != null && (!labels.isEmpty())) {
 				Map<String, String> newLabels = new LinkedHashMap<String, String>();
@@ -93,12 +85,13 @@ public final class GitHubTaskAttributeMapper extends TaskAttributeMapper {
 	/**
 	 * Gather labels from server.
 	 */
-	private void gatherLabels() {
+	private List<String> gatherLabels() {
 		try {
-			labels = GitHubService.getLabelsService(getTaskRepository())
-					.retrieve();
+			return GitHubRepositoryConfiguration.get(getTaskRepository())
+					.getLabels(getTaskRepository());
 		} catch (GitHubServiceException e) {
 			LOG.error("Failed to retrieve labels from server." + e.getMessage());
+			return null;
 		}
 	}
 
@@ -2,18 +2,28 @@ package org.eclipse.mylyn.github.internal;
 
 import static org.eclipse.mylyn.github.internal.GitHubConnectorLogger.createErrorStatus;
 
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.mylyn.tasks.core.ITaskMapping;
 import org.eclipse.mylyn.tasks.core.RepositoryResponse;
 import org.eclipse.mylyn.tasks.core.RepositoryResponse.ResponseKind;
@@ -21,9 +31,9 @@ import org.eclipse.mylyn.tasks.core.TaskRepository;
 import org.eclipse.mylyn.tasks.core.data.AbstractTaskDataHandler;
 import org.eclipse.mylyn.tasks.core.data.TaskAttribute;
 import org.eclipse.mylyn.tasks.core.data.TaskAttributeMapper;
-import org.eclipse.mylyn.tasks.core.data.TaskAttributeMetaData;
 import org.eclipse.mylyn.tasks.core.data.TaskCommentMapper;
 import org.eclipse.mylyn.tasks.core.data.TaskData;
+import org.eclipse.mylyn.tasks.core.data.TaskDataCollector;
 import org.eclipse.mylyn.tasks.core.data.TaskOperation;
 
 /**
@@ -34,10 +44,25 @@ public class GitHubTaskDataHandler extends AbstractTaskDataHandler {
 
 	private static final String DATA_VERSION = "1";
 
-	private DateFormat dateFormat = SimpleDateFormat.getDateTimeInstance();
+	private static final String MONITOR_STATUS_TASK_DATA = "Retrieving tasks";
 
-	private final DateFormat githubDateFormat = new SimpleDateFormat(
-			"yyyy/MM/dd HH:mm:ss Z");
+	private static final long WORKER_KEEP_ALIVE = 60 * 1000L;
+
+	private static final long CANCELLATION_POLL_INTERVAL = 100L;
+
+	/**
+	 * Fetches issues and comments for {@link #getMultiTaskData}, shared by all
+	 * repositories.
+	 */
+	private final ThreadPoolExecutor executor;
+
+	public GitHubTaskDataHandler() {
+		executor = new ThreadPoolExecutor(GitHub.MAX_SYNC_CONCURRENCY,
+				GitHub.MAX_SYNC_CONCURRENCY, WORKER_KEEP_ALIVE,
+				TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+				new GitHubThreadFactory("GitHub task data"));
+		executor.allowCoreThreadTimeOut(true);
+	}
 
 	/**
 	 * @see org.eclipse.mylyn.tasks.core.data.AbstractTaskDataHandler#getAttributeMapper(org.eclipse.mylyn.tasks.core.TaskRepository)
@@ -63,15 +88,114 @@ public class GitHubTaskDataHandler extends AbstractTaskDataHandler {
 
 		data.setVersion(DATA_VERSION);
 
-		for (GitHubTaskAttributes attr : GitHubTaskAttributes.values()) {
-			if (attr.isInitTask()) {
-				createAttribute(data, attr, null);
-			}
+		TaskAttribute root = data.getRoot();
+		for (GitHubAttributeTemplate template : GitHubAttributeTemplate
+				.getInitTaskTemplates()) {
+			template.create(root);
 		}
 
 		return true;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @return always {@code true}
+	 */
+	@Override
+	public final boolean canGetMultiTaskData(TaskRepository taskRepository) {
+		return true;
+	}
+
+	/**
+	 * Retrieve the full task data of several tasks. Issues and their comments
+	 * are fetched on the worker pool, with at most
+	 * {@link GitHubService#getConcurrency(TaskRepository)} tasks in flight,
+	 * and the task data is created on the calling thread in completion order.
+	 * Tasks that could not be retrieved are reported to
+	 * {@link TaskDataCollector#failed(String, IStatus)}.
+	 * 
+	 * @see org.eclipse.mylyn.tasks.core.data.AbstractTaskDataHandler#getMultiTaskData(org.eclipse.mylyn.tasks.core.TaskRepository,
+	 *      java.util.Set, org.eclipse.mylyn.tasks.core.data.TaskDataCollector,
+	 *      org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	@Override
+	public final void getMultiTaskData(TaskRepository repository,
+			Set<String> taskIds, TaskDataCollector collector,
+			IProgressMonitor monitor) throws CoreException {
+		monitor.beginTask(MONITOR_STATUS_TASK_DATA, taskIds.size());
+		CompletionService<FetchedIssue> completionService = new ExecutorCompletionService<FetchedIssue>(
+				executor);
+		Map<Future<FetchedIssue>, String> running = new HashMap<Future<FetchedIssue>, String>();
+		Iterator<String> pending = taskIds.iterator();
+		int concurrency = GitHubService.getConcurrency(repository);
+		try {
+			while (running.size() < concurrency && pending.hasNext()) {
+				submit(completionService, running, repository, pending.next());
+			}
+			while (!running.isEmpty()) {
+				Future<FetchedIssue> done = completionService.poll(
+						CANCELLATION_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+				if (monitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+				if (done == null) {
+					continue;
+				}
+				String taskId = running.remove(done);
+				if (pending.hasNext()) {
+					submit(completionService, running, repository,
+							pending.next());
+				}
+				try {
+					FetchedIssue fetched = done.get();
+					collector.accept(createTaskData(repository, monitor,
+							fetched.issue, fetched.comments));
+				} catch (ExecutionException e) {
+					collector.failed(taskId,
+							createErrorStatus(GitHubIssueService.unwrap(e)));
+				}
+				monitor.worked(1);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		} finally {
+			for (Future<FetchedIssue> future : running.keySet()) {
+				future.cancel(true);
+			}
+			monitor.done();
+		}
+	}
+
+	private void submit(CompletionService<FetchedIssue> completionService,
+			Map<Future<FetchedIssue>, String> running,
+			final TaskRepository repository, final String taskId) {
+		running.put(completionService.submit(new Callable<FetchedIssue>() {
+
+			public FetchedIssue call() throws GitHubServiceException {
+				GitHubIssue issue = GitHubService.getIssueService(repository)
+						.retrieve(taskId);
+				return new FetchedIssue(issue, retrieveComments(repository,
+						issue));
+			}
+		}), taskId);
+	}
+
+	/**
+	 * Issue retrieved by a worker, together with its comments.
+	 */
+	private static final class FetchedIssue {
+
+		private final GitHubIssue issue;
+		private final GitHubComments comments;
+
+		private FetchedIssue(GitHubIssue issue, GitHubComments comments) {
+			this.issue = issue;
+			this.comments = comments;
+		}
+	}
+
 	/**
 	 * Post a task data.
 	 * 
@@ -84,85 +208,99 @@ public class GitHubTaskDataHandler extends AbstractTaskDataHandler {
 			TaskData taskData, Set<TaskAttribute> oldAttributes,
 			IProgressMonitor monitor) throws CoreException {
 
-		GitHubIssue issue = createIssue(taskData);
-		GitHubIssueService issueService = GitHubService
-				.getIssueService(repository);
+		GitHubMetrics metrics = GitHubMetrics.getDefault();
+		long start = System.nanoTime();
+		GitHubOutbox outbox = GitHubOutbox.get(repository);
+		GitHubSubmission submission = planSubmission(taskData, oldAttributes);
+		long planned = System.nanoTime();
+		metrics.getPhase(GitHubMetrics.PHASE_POST_PLAN).record(planned - start);
 		try {
-			if (taskData.isNew()) {
-				issue = issueService.create(issue);
-			} else {
-				TaskAttribute operationAttribute = taskData.getRoot()
-						.getAttribute(TaskAttribute.OPERATION);
-
-				GitHubTaskOperation operation = null;
-
-				if (operationAttribute != null) {
-					String opId = operationAttribute.getValue();
-					operation = GitHubTaskOperation.fromId(opId);
-
-				}
-				if (operation != null && operation != GitHubTaskOperation.LEAVE) {
-					issueService.update(issue);
-					switch (operation) {
-					case REOPEN:
-						issueService.reopenIssue(issue);
-						break;
-					case CLOSE:
-						issueService.closeIssue(issue);
-						break;
-					default:
-						throw new IllegalStateException("not implemented: "
-								+ operation);
-					}
-				} else {
-					issueService.update(issue);
+			if (!submission.isCreate()
+					&& outbox.isPending(submission.getNumber())) {
+				// keep the order of changes the outbox has not sent yet
+				return queue(outbox, submission, submission);
+			}
+			try {
+				return submission.execute(repository, executor);
+			} catch (CoreException e) {
+				GitHubSubmission remaining = submission.getRemaining();
+				// an issue that was not created yet is not queued, its task
+				// could not take the number the issue gets later
+				if (remaining == null || remaining.isCreate()
+						|| !GitHubOutbox.isOffline(e.getStatus())) {
+					throw e;
 				}
+				return queue(outbox, submission, remaining);
+			} finally {
+				metrics.getPhase(GitHubMetrics.PHASE_POST_EXECUTE).record(
+						System.nanoTime() - planned);
 			}
-			updateTaskLabels(repository, issue, oldAttributes);
-			updateComments(repository, taskData, issue);
+		} finally {
+			GitHubIssueStore.get(repository).invalidate();
+			metrics.getPhase(GitHubMetrics.PHASE_POST).record(
+					System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Queue the unsent part of a submission to be sent when the server can be
+	 * reached again.
+	 */
+	private RepositoryResponse queue(GitHubOutbox outbox,
+			GitHubSubmission submission, GitHubSubmission remaining)
+			throws CoreException {
+		long start = System.nanoTime();
+		try {
+			String number = outbox.add(remaining);
 			return new RepositoryResponse(
-					taskData.isNew() ? ResponseKind.TASK_CREATED
-							: ResponseKind.TASK_UPDATED, issue.getNumber());
-		} catch (GitHubServiceException e) {
+					submission.isCreate() ? ResponseKind.TASK_CREATED
+							: ResponseKind.TASK_UPDATED, number);
+		} catch (IOException e) {
 			throw new CoreException(createErrorStatus(e));
+		} finally {
+			GitHubMetrics.getDefault().getPhase(GitHubMetrics.PHASE_POST_QUEUE)
+					.record(System.nanoTime() - start);
 		}
-
 	}
 
-	private void updateComments(TaskRepository repository, TaskData taskData,
-			GitHubIssue issue) throws GitHubServiceException {
-		TaskAttribute newCommentAttribute = taskData.getRoot()
-				.getMappedAttribute(TaskAttribute.COMMENT_NEW);
-		if (newCommentAttribute != null) {
-			String newComment = newCommentAttribute.getValue();
-			GitHubComment comment = new GitHubComment();
-			comment.setBody(newComment);
-			comment.setGravatarId(issue.getGravatarId());
-			comment.setUser(issue.getUser());
-			comment.setCreatedAt(issue.getCreatedAt());
-			comment.setUpdatedAt(issue.getUpdatedAt());
-			comment.setId(issue.getNumber());
-			GitHubService.getCommentsService(repository).create(comment);
-
+	/**
+	 * Plan the requests for the changed attributes of a task.
+	 */
+	private GitHubSubmission planSubmission(TaskData taskData,
+			Set<TaskAttribute> oldAttributes) {
+		boolean edit = false;
+		List<String> oldLabels = null;
+		for (TaskAttribute attribute : oldAttributes) {
+			if (attribute == null) {
+				continue;
+			}
+			String id = attribute.getId();
+			if (id.equals(GitHubTaskAttributes.TITLE.getId())
+					|| id.equals(GitHubTaskAttributes.BODY.getId())) {
+				edit = true;
+			} else if (id.equalsIgnoreCase(GitHubTaskAttributes.LABEL.getId())) {
+				oldLabels = getOldLabelsValue(oldAttributes);
+			}
 		}
 
-	}
-
-	private void updateTaskLabels(TaskRepository repository, GitHubIssue issue,
-			Set<TaskAttribute> oldAttributes) throws GitHubServiceException {
-		GitHubLabelsService labelsService = GitHubService
-				.getLabelsService(repository);
-		List<String> oldLabels = getOldLabelsValue(oldAttributes);
-		List<String> currentLabels = issue.getLabels();
-		oldLabels.removeAll(currentLabels);
-		for (String label : oldLabels) {
-			labelsService.deleteLabelFromIssue(label, issue.getNumber());
+		GitHubTaskOperation operation = null;
+		TaskAttribute operationAttribute = taskData.getRoot().getAttribute(
+				TaskAttribute.OPERATION);
+		if (operationAttribute != null) {
+			operation = GitHubTaskOperation.fromId(operationAttribute
+					.getValue());
 		}
 
-		for (String label : issue.getLabels()) {
-			labelsService.addLabelToIssue(label, issue.getNumber());
+		String comment = null;
+		TaskAttribute newCommentAttribute = taskData.getRoot()
+				.getMappedAttribute(TaskAttribute.COMMENT_NEW);
+		if (newCommentAttribute != null) {
+			comment = newCommentAttribute.getValue();
 		}
 
+		GitHubIssue issue = createIssue(taskData);
+		return new GitHubSubmission(issue, taskData.isNew(), edit, operation,
+				oldLabels, comment);
 	}
 
 	private List<String> getOldLabelsValue(Set<TaskAttribute> oldAttributes) {
@@ -189,25 +327,65 @@ public class GitHubTaskDataHandler extends AbstractTaskDataHandler {
 	}
 
 	/**
-	 * Create a partial task
+	 * Create a task data from an issue.
 	 * 
 	 * @param repository
 	 *            - repository instance
 	 * @param monitor
 	 *            - monitor object
-	 * @param user
-	 *            - user
-	 * @param project
-	 *            - project
 	 * @param issue
 	 *            - issue instance
+	 * @param isPartialData
+	 *            - true to only fill in the attributes shown in query
+	 *            results; comments are then left out and fetched when the
+	 *            full task data is requested
 	 * @return a new task data.
 	 * @throws GitHubServiceException
 	 */
 	public final TaskData createTaskData(TaskRepository repository,
 			IProgressMonitor monitor, GitHubIssue issue, boolean isPartialData)
 			throws GitHubServiceException {
+		GitHubComments comments = null;
+		if (!isPartialData) {
+			comments = retrieveComments(repository, issue);
+		}
+		return createTaskData(repository, monitor, issue, comments);
+	}
+
+	/**
+	 * Get the comments of an issue from the issue store, or from the server
+	 * if the issue was updated since they were stored.
+	 */
+	private static GitHubComments retrieveComments(TaskRepository repository,
+			GitHubIssue issue) throws GitHubServiceException {
+		GitHubIssueStore store = GitHubIssueStore.get(repository);
+		GitHubComments comments = store.getComments(issue);
+		if (comments == null) {
+			comments = GitHubService.getCommentsService(repository).retrieve(
+					issue.getNumber());
+		}
+		store.putIssue(issue, comments);
+		return comments;
+	}
 
+	/**
+	 * Create a task data from an issue and its already retrieved comments.
+	 * 
+	 * @param repository
+	 *            - repository instance
+	 * @param monitor
+	 *            - monitor object
+	 * @param issue
+	 *            - issue instance
+	 * @param comments
+	 *            - comments of the issue, or null to create partial task
+	 *            data
+	 * @return a new task data.
+	 */
+	public final TaskData createTaskData(TaskRepository repository,
+			IProgressMonitor monitor, GitHubIssue issue,
+			GitHubComments comments) {
+		boolean isPartialData = comments == null;
 		TaskData data = new TaskData(getAttributeMapper(repository),
 				GitHub.CONNECTOR_KIND, repository.getRepositoryUrl(),
 				issue.getNumber());
@@ -220,35 +398,32 @@ public class GitHubTaskDataHandler extends AbstractTaskDataHandler {
 		createAttribute(data, GitHubTaskAttributes.BODY, issue.getBody());
 		createAttribute(data, GitHubTaskAttributes.STATUS, issue.getState());
 		createAttribute(data, GitHubTaskAttributes.CREATION_DATE,
-				toLocalDate(issue.getCreatedAt()));
+				GitHubDateCodec.toAttributeValue(issue.getCreatedAt()));
 		createAttribute(data, GitHubTaskAttributes.MODIFICATION_DATE,
-				toLocalDate(issue.getCreatedAt()));
+				GitHubDateCodec.toAttributeValue(issue.getUpdatedAt()));
 		createAttribute(data, GitHubTaskAttributes.CLOSED_DATE,
-				toLocalDate(issue.getClosedAt()));
+				GitHubDateCodec.toAttributeValue(issue.getClosedAt()));
 		createLabelAttribute(data, GitHubTaskAttributes.LABEL,
 				issue.getLabels());
 		createVotesAttribute(data, GitHubTaskAttributes.VOTES, issue.getVotes());
 		createAttribute(data, GitHubTaskAttributes.REPORTED_BY, issue.getUser());
 		createAttribute(data, GitHubTaskAttributes.REPORTER_GRAVATAR_ID,
 				issue.getGravatarId());
-		updateTaskDataWithComments(repository, data, issue);
-		createAttribute(data, GitHubTaskAttributes.NEW_COMMENTS, null);
-		if (isPartial(data)) {
-			data.setPartial(isPartialData);
+		if (!isPartialData) {
+			updateTaskDataWithComments(repository, data, comments);
 		}
+		createAttribute(data, GitHubTaskAttributes.NEW_COMMENTS, null);
+		data.setPartial(isPartialData);
 
 		return data;
 	}
 
 	private void updateTaskDataWithComments(TaskRepository repository,
-			TaskData data, GitHubIssue issue) throws GitHubServiceException {
+			TaskData data, GitHubComments comments) {
 		// Initialize a counter, since you want to number each task, since the
 		// editor part likes to display
 		// them with numbers.
 		int count = 0;
-		GitHubComments comments = null;
-		comments = GitHubService.getCommentsService(repository).retrieve(
-				issue.getNumber());
 		// Loop through the comments in your native database.
 		for (GitHubComment comment : comments.getComments()) {
 			TaskCommentMapper mapper = new TaskCommentMapper(); // Create a new
@@ -258,14 +433,9 @@ public class GitHubTaskDataHandler extends AbstractTaskDataHandler {
 			// Set properties and text associated with this comment.
 
 			mapper.setAuthor(repository.createPerson(comment.getUser()));
-			String createdAt = comment.getCreatedAt();
-			Date createdAtDate = new Date();
-			try {
-				createdAtDate = githubDateFormat.parse(createdAt);
-			} catch (ParseException e) {
-				// ignore for now.
-			}
-			mapper.setCreationDate(createdAtDate);
+			long createdAt = GitHubDateCodec.parse(comment.getCreatedAt());
+			mapper.setCreationDate(createdAt == -1 ? new Date() : new Date(
+					createdAt));
 			mapper.setText(comment.getBody());
 			mapper.setNumber(count);
 
@@ -285,43 +455,17 @@ public class GitHubTaskDataHandler extends AbstractTaskDataHandler {
 
 	private void createVotesAttribute(TaskData data,
 			GitHubTaskAttributes attribute, Integer value) {
-		TaskAttribute attr = data.getRoot().createAttribute(attribute.getId());
-		TaskAttributeMetaData metaData = attr.getMetaData();
-		metaData.defaults().setType(attribute.getType())
-				.setKind(attribute.getKind()).setLabel(attribute.getLabel())
-				.setReadOnly(attribute.isReadOnly());
-
-		if (value != null) {
-			attr.setValue(String.valueOf(value));
-		}
-
+		GitHubAttributeTemplate.get(attribute).create(data.getRoot(),
+				value == null ? null : value.toString());
 	}
 
 	private void createLabelAttribute(TaskData data,
 			GitHubTaskAttributes attribute, List<String> labels) {
-		TaskAttribute attr = data.getRoot().createAttribute(attribute.getId());
-		TaskAttributeMetaData metaData = attr.getMetaData();
-		metaData.defaults().setType(attribute.getType())
-				.setKind(attribute.getKind()).setLabel(attribute.getLabel())
-				.setReadOnly(attribute.isReadOnly());
-
+		TaskAttribute attr = GitHubAttributeTemplate.get(attribute).create(
+				data.getRoot());
 		if (labels != null) {
 			attr.setValues(labels);
 		}
-
-	}
-
-	private boolean isPartial(TaskData data) {
-		for (GitHubTaskAttributes attribute : GitHubTaskAttributes.values()) {
-			if (attribute.isRequiredForFullTaskData()) {
-				TaskAttribute taskAttribute = data.getRoot().getAttribute(
-						attribute.getId());
-				if (taskAttribute == null) {
-					return true;
-				}
-			}
-		}
-		return false;
 	}
 
 	private void createOperations(TaskData data, GitHubIssue issue) {
@@ -358,32 +502,11 @@ public class GitHubTaskDataHandler extends AbstractTaskDataHandler {
 				+ issue.getState() : operation.getLabel();
 	}
 
-	private String toLocalDate(String date) {
-		String localDate = date;
-		if (date != null && date.trim().length() > 0) {
-			// expect "2010/02/02 22:58:39 -0800"
-			try {
-				Date d = githubDateFormat.parse(date);
-				localDate = dateFormat.format(d);
-			} catch (ParseException e) {
-				// ignore
-			}
-		}
-		return localDate;
-	}
-
 	private String toGitHubDate(TaskData taskData, GitHubTaskAttributes attr) {
 		TaskAttribute attribute = taskData.getRoot().getAttribute(attr.name());
 		String value = attribute == null ? null : attribute.getValue();
-		if (value != null) {
-			try {
-				Date d = dateFormat.parse(value);
-				value = githubDateFormat.format(d);
-			} catch (ParseException e) {
-				// ignore
-			}
-		}
-		return value;
+		long time = GitHubDateCodec.parseAttributeValue(value);
+		return time == -1 ? value : GitHubDateCodec.format(time);
 	}
 
 	private GitHubIssue createIssue(TaskData taskData) {
@@ -424,15 +547,7 @@ public class GitHubTaskDataHandler extends AbstractTaskDataHandler {
 
 	private void createAttribute(TaskData data, GitHubTaskAttributes attribute,
 			String value) {
-		TaskAttribute attr = data.getRoot().createAttribute(attribute.getId());
-		TaskAttributeMetaData metaData = attr.getMetaData();
-		metaData.defaults().setType(attribute.getType())
-				.setKind(attribute.getKind()).setLabel(attribute.getLabel())
-				.setReadOnly(attribute.isReadOnly());
-
-		if (value != null) {
-			attr.addValue(value);
-		}
+		GitHubAttributeTemplate.get(attribute).create(data.getRoot(), value);
 	}
 
 }
@@ -0,0 +1,33 @@
+/**
+ * 
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates named daemon threads for the connector's worker pools, so idle
+ * pools never keep the workbench from shutting down.
+ */
+public final class GitHubThreadFactory implements ThreadFactory {
+
+	private final String name;
+	private final AtomicInteger count = new AtomicInteger();
+
+	/**
+	 * @param name
+	 *            - prefix of the thread names
+	 */
+	public GitHubThreadFactory(String name) {
+		this.name = name;
+	}
+
+	public Thread newThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, name + " "
+				+ count.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	}
+
+}
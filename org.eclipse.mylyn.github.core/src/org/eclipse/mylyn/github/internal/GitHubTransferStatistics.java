@@ -0,0 +1,87 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Byte counters of the responses received for a repository, showing what
+ * compressed transfer saves.
+ * </p>
+ * <p>
+ * Wire bytes are the bytes of the response bodies as sent by the server,
+ * decoded bytes are the bytes after decompression. Only bodies that were
+ * read to the end or closed are counted.
+ * </p>
+ */
+public final class GitHubTransferStatistics {
+
+	private final AtomicLong responses = new AtomicLong();
+	private final AtomicLong compressedResponses = new AtomicLong();
+	private final AtomicLong wireBytes = new AtomicLong();
+	private final AtomicLong decodedBytes = new AtomicLong();
+
+	/**
+	 * Count a response body.
+	 *
+	 * @param wire
+	 *            - bytes received
+	 * @param decoded
+	 *            - bytes after decompression
+	 * @param compressed
+	 *            - true if the body was compressed
+	 */
+	void add(long wire, long decoded, boolean compressed) {
+		responses.incrementAndGet();
+		if (compressed) {
+			compressedResponses.incrementAndGet();
+		}
+		wireBytes.addAndGet(wire);
+		decodedBytes.addAndGet(decoded);
+	}
+
+	/**
+	 * @return number of response bodies read
+	 */
+	public long getResponses() {
+		return responses.get();
+	}
+
+	/**
+	 * @return number of response bodies that were compressed
+	 */
+	public long getCompressedResponses() {
+		return compressedResponses.get();
+	}
+
+	/**
+	 * @return bytes of the response bodies as received
+	 */
+	public long getWireBytes() {
+		return wireBytes.get();
+	}
+
+	/**
+	 * @return bytes of the response bodies after decompression
+	 */
+	public long getDecodedBytes() {
+		return decodedBytes.get();
+	}
+
+	void reset() {
+		responses.set(0);
+		compressedResponses.set(0);
+		wireBytes.set(0);
+		decodedBytes.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return responses.get() + " responses (" + compressedResponses.get()
+				+ " compressed), " + wireBytes.get() + " bytes received, "
+				+ decodedBytes.get() + " bytes decoded";
+	}
+
+}
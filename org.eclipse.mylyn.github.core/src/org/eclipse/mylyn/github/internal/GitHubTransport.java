@@ -0,0 +1,149 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.internal;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+import org.eclipse.mylyn.tasks.core.TaskRepository;
+
+/**
+ * <p>
+ * Pooled HTTP transport shared by all services operating on the same task
+ * repository.
+ * </p>
+ * <p>
+ * Connections are kept alive between requests, limited per host and evicted
+ * once they have been idle for a while, so a synchronization reuses the same
+ * TCP/TLS connections instead of opening new ones for every request.
+ * </p>
+ */
+public final class GitHubTransport {
+
+	private static final int MAX_CONNECTIONS_PER_HOST = 4;
+	private static final int MAX_TOTAL_CONNECTIONS = 20;
+	private static final int CONNECTION_TIMEOUT = 30 * 1000;
+	private static final int SOCKET_TIMEOUT = 60 * 1000;
+	private static final long CONNECTION_MANAGER_TIMEOUT = 60 * 1000L;
+	private static final long IDLE_CONNECTION_TIMEOUT = 30 * 1000L;
+	private static final long IDLE_CONNECTION_CHECK_INTERVAL = 10 * 1000L;
+
+	/**
+	 * Key used for requests that are not bound to a repository (e.g.
+	 * gravatars).
+	 */
+	private static final String NO_REPOSITORY = "";
+
+	private static final ConcurrentMap<String, GitHubTransport> TRANSPORTS = new ConcurrentHashMap<String, GitHubTransport>();
+
+	private static IdleConnectionTimeoutThread idleConnectionEvictor;
+
+	private final MultiThreadedHttpConnectionManager connectionManager;
+	private final HttpClient httpClient;
+	private final GitHubResponseCache responseCache = new GitHubResponseCache();
+	private final GitHubTransferStatistics statistics = new GitHubTransferStatistics();
+
+	private GitHubTransport(int maxConnectionsPerHost) {
+		connectionManager = new MultiThreadedHttpConnectionManager();
+		HttpConnectionManagerParams params = connectionManager.getParams();
+		params.setDefaultMaxConnectionsPerHost(maxConnectionsPerHost);
+		params.setMaxTotalConnections(MAX_TOTAL_CONNECTIONS);
+		params.setConnectionTimeout(CONNECTION_TIMEOUT);
+		params.setSoTimeout(SOCKET_TIMEOUT);
+		params.setStaleCheckingEnabled(true);
+		httpClient = new HttpClient(connectionManager);
+		httpClient.getParams().setConnectionManagerTimeout(
+				CONNECTION_MANAGER_TIMEOUT);
+	}
+
+	/**
+	 * Get the transport shared by all services of a repository. The
+	 * connection limit per host follows the repository's synchronization
+	 * concurrency when the transport is created.
+	 *
+	 * @param repository
+	 *            - task repository, may be null for requests that are not
+	 *            bound to a repository
+	 * @return the transport, never null
+	 */
+	public static GitHubTransport get(TaskRepository repository) {
+		String key = repository == null ? NO_REPOSITORY : repository
+				.getRepositoryUrl();
+		GitHubTransport transport = TRANSPORTS.get(key);
+		if (transport == null) {
+			GitHubTransport newTransport = new GitHubTransport(Math.max(
+					MAX_CONNECTIONS_PER_HOST,
+					GitHubService.getConcurrency(repository)));
+			transport = TRANSPORTS.putIfAbsent(key, newTransport);
+			if (transport == null) {
+				transport = newTransport;
+				registerForEviction(transport.connectionManager);
+			} else {
+				newTransport.connectionManager.shutdown();
+			}
+		}
+		return transport;
+	}
+
+	/**
+	 * Close all pooled connections and forget all transports.
+	 */
+	public static synchronized void shutdown() {
+		if (idleConnectionEvictor != null) {
+			idleConnectionEvictor.shutdown();
+			idleConnectionEvictor = null;
+		}
+		for (GitHubTransport transport : TRANSPORTS.values()) {
+			transport.connectionManager.shutdown();
+		}
+		TRANSPORTS.clear();
+	}
+
+	private static synchronized void registerForEviction(
+			MultiThreadedHttpConnectionManager connectionManager) {
+		if (idleConnectionEvictor == null) {
+			idleConnectionEvictor = new IdleConnectionTimeoutThread();
+			idleConnectionEvictor.setName("GitHub idle connection evictor");
+			idleConnectionEvictor.setDaemon(true);
+			idleConnectionEvictor.setConnectionTimeout(IDLE_CONNECTION_TIMEOUT);
+			idleConnectionEvictor
+					.setTimeoutInterval(IDLE_CONNECTION_CHECK_INTERVAL);
+			idleConnectionEvictor.start();
+		}
+		idleConnectionEvictor.addConnectionManager(connectionManager);
+	}
+
+	/**
+	 * Get the HTTP client backed by this transport's connection pool.
+	 *
+	 * @return http client
+	 */
+	public HttpClient getHttpClient() {
+		return httpClient;
+	}
+
+	/**
+	 * Get the cache used to revalidate reads.
+	 *
+	 * @return response cache
+	 */
+	public GitHubResponseCache getResponseCache() {
+		return responseCache;
+	}
+
+	/**
+	 * Get the byte counters of the responses received through this
+	 * transport.
+	 *
+	 * @return transfer statistics
+	 */
+	public GitHubTransferStatistics getStatistics() {
+		return statistics;
+	}
+
+}
@@ -3,7 +3,6 @@
  */
 package org.eclipse.mylyn.github.internal;
 
-import static org.eclipse.mylyn.github.internal.GitHub.API_URL_BASE;
 import static org.eclipse.mylyn.github.internal.GitHub.API_USER_ROOT;
 import static org.eclipse.mylyn.github.internal.GitHub.EMAILS;
 import static org.eclipse.mylyn.github.internal.GitHub.SHOW;
@@ -34,7 +33,7 @@ public class GitHubUserService extends AbstractGitHubService {
 	 */
 	public final GitHubUser retrieve(String username) throws GitHubServiceException {
 		StringBuffer uri = new StringBuffer();
-		uri.append(API_URL_BASE).append(API_USER_ROOT).append(SHOW)
+		uri.append(getApiUrlBase()).append(API_USER_ROOT).append(SHOW)
 				.append(username);
 		return executeRetrieveUser(uri.toString());
 	}
@@ -47,12 +46,13 @@ public class GitHubUserService extends AbstractGitHubService {
 	 */
 	public final boolean validateCredentials() throws GitHubServiceException {
 		StringBuffer uri = new StringBuffer();
-		uri.append(API_URL_BASE).append(API_USER_ROOT).append(EMAILS);
+		uri.append(getApiUrlBase()).append(API_USER_ROOT).append(EMAILS);
 		return executeValidateCredentials(uri.toString());
 	}
 
 	/**
-	 * Download the gravatar raw data.
+	 * Download the gravatar raw data. Gravatars are not served by the API, so
+	 * their downloads do not count against its rate limit.
 	 * 
 	 * @param gravatarId
 	 * @return a byte array representing the jpg gravatar.
@@ -70,8 +70,8 @@ public class GitHubUserService extends AbstractGitHubService {
 		GetMethod method = new GetMethod(uri);
 		method.setQueryString("s=20");
 		try {
-			executeMethod(method);
-			return method.getResponseBody();
+			executeMethod(method, GitHubRequestScheduler.get(uri));
+			return readResponseBody(method);
 		} catch (IOException e) {
 			throw new GitHubServiceException(
 					FAILED_TO_READ_RESPONSE_BODY_EXCEPTION_MESSAGE, e);
@@ -110,20 +110,13 @@ public class GitHubUserService extends AbstractGitHubService {
 	private GitHubUser executeRetrieveUser(String uri)
 			throws GitHubServiceException {
 		GetMethod method = new GetMethod(uri);
-		String responseBody = null;
+		GitHubShowUser user;
 		try {
 			executeMethod(method);
-			responseBody = new String(method.getResponseBody());
-		} catch (IOException e) {
-			throw new GitHubServiceException(
-					FAILED_TO_READ_RESPONSE_BODY_EXCEPTION_MESSAGE, e);
+			user = readResponse(method, GitHubShowUser.class);
 		} finally {
-			if (method != null) {
-				method.releaseConnection();
-			}
+			method.releaseConnection();
 		}
-		GitHubShowUser user = getGson().fromJson(responseBody,
-				GitHubShowUser.class);
 		return user.getUser();
 	}
 
@@ -3,11 +3,21 @@
  */
 package org.eclipse.mylyn.github.internal.collections;
 
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * Utility operation for collections
+ * <p>
+ * Apart from {@link #filter(Collection, Predicate)}, the operations return
+ * lazy views: nothing is copied, and elements are only looked at while the
+ * view is iterated. Views can be chained, e.g. a label selection, filtered by
+ * text, limited to the first matches.
+ * </p>
  * 
  * @author Gabriel Ciuloaica (gciuloaica@gmail.com)
  * 
@@ -40,4 +50,162 @@ public final class CollectionUtils {
 		return filteredCollection;
 	}
 
+	/**
+	 * Filter lazily.
+	 * 
+	 * @param <T>
+	 *            - generic type
+	 * @param source
+	 *            - elements
+	 * @param predicate
+	 *            - predicate, applied while iterating
+	 * @return view of the elements matching the predicate
+	 */
+	public static <T> Iterable<T> filtered(final Iterable<T> source,
+			final Predicate<? super T> predicate) {
+		return new Iterable<T>() {
+
+			public Iterator<T> iterator() {
+				final Iterator<T> iterator = source.iterator();
+				return new ReadOnlyIterator<T>() {
+
+					private T next;
+					private boolean hasNext;
+
+					public boolean hasNext() {
+						while (!hasNext && iterator.hasNext()) {
+							T candidate = iterator.next();
+							if (predicate.apply(candidate)) {
+								next = candidate;
+								hasNext = true;
+							}
+						}
+						return hasNext;
+					}
+
+					public T next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						hasNext = false;
+						T result = next;
+						next = null;
+						return result;
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * Stop after the first elements. The source is not iterated further than
+	 * needed.
+	 * 
+	 * @param <T>
+	 *            - generic type
+	 * @param source
+	 *            - elements
+	 * @param max
+	 *            - maximum number of elements
+	 * @return view of the first elements
+	 */
+	public static <T> Iterable<T> limit(final Iterable<T> source, final int max) {
+		return new Iterable<T>() {
+
+			public Iterator<T> iterator() {
+				final Iterator<T> iterator = source.iterator();
+				return new ReadOnlyIterator<T>() {
+
+					private int count;
+
+					public boolean hasNext() {
+						return count < max && iterator.hasNext();
+					}
+
+					public T next() {
+						if (count >= max) {
+							throw new NoSuchElementException();
+						}
+						count++;
+						return iterator.next();
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * Iterate the set bits of a bit set.
+	 * 
+	 * @param positions
+	 *            - bit set, must not change while iterating
+	 * @return positions in ascending order
+	 */
+	public static IntIterator positions(final BitSet positions) {
+		return new IntIterator() {
+
+			private int next = positions.nextSetBit(0);
+
+			public boolean hasNext() {
+				return next >= 0;
+			}
+
+			public int next() {
+				if (next < 0) {
+					throw new NoSuchElementException();
+				}
+				int result = next;
+				next = positions.nextSetBit(next + 1);
+				return result;
+			}
+		};
+	}
+
+	/**
+	 * Select elements of an array by position.
+	 * 
+	 * @param <T>
+	 *            - generic type
+	 * @param elements
+	 *            - elements
+	 * @param positions
+	 *            - positions to select, must not change afterwards
+	 * @return view of the selected elements, in array order
+	 */
+	public static <T> Collection<T> select(final T[] elements,
+			final BitSet positions) {
+		return new AbstractCollection<T>() {
+
+			@Override
+			public Iterator<T> iterator() {
+				final IntIterator iterator = positions(positions);
+				return new ReadOnlyIterator<T>() {
+
+					public boolean hasNext() {
+						return iterator.hasNext();
+					}
+
+					public T next() {
+						return elements[iterator.next()];
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return positions.cardinality();
+			}
+		};
+	}
+
+	/**
+	 * Iterator of a view, which can not remove elements.
+	 */
+	private abstract static class ReadOnlyIterator<T> implements Iterator<T> {
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
 }
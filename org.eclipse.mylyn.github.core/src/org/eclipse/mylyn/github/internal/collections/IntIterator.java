@@ -0,0 +1,26 @@
+/**
+ * 
+ */
+package org.eclipse.mylyn.github.internal.collections;
+
+/**
+ * Iterator over primitive int values, used to walk positions without boxing
+ * them.
+ */
+public interface IntIterator {
+
+	/**
+	 * @return true if there are more values
+	 */
+	boolean hasNext();
+
+	/**
+	 * Get the next value.
+	 * 
+	 * @return value
+	 * @throws java.util.NoSuchElementException
+	 *             - if there are no more values
+	 */
+	int next();
+
+}
@@ -0,0 +1,89 @@
+/**
+ * 
+ */
+package org.eclipse.mylyn.github.internal.collections;
+
+/**
+ * Combinators for {@link Predicate}s. Combined predicates evaluate their
+ * operands lazily, from left to right, and stop as soon as the result is
+ * known.
+ */
+public final class Predicates {
+
+	private static final Predicate<Object> ALWAYS_TRUE = new Predicate<Object>() {
+
+		public boolean apply(Object type) {
+			return true;
+		}
+	};
+
+	private Predicates() {
+
+	}
+
+	/**
+	 * @param <T>
+	 *            - generic type
+	 * @return predicate matching everything
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Predicate<T> alwaysTrue() {
+		return (Predicate<T>) ALWAYS_TRUE;
+	}
+
+	/**
+	 * @param <T>
+	 *            - generic type
+	 * @param first
+	 *            - first predicate
+	 * @param second
+	 *            - second predicate, only applied if the first one matches
+	 * @return predicate matching what both predicates match
+	 */
+	public static <T> Predicate<T> and(final Predicate<? super T> first,
+			final Predicate<? super T> second) {
+		return new Predicate<T>() {
+
+			public boolean apply(T type) {
+				return first.apply(type) && second.apply(type);
+			}
+		};
+	}
+
+	/**
+	 * @param <T>
+	 *            - generic type
+	 * @param first
+	 *            - first predicate
+	 * @param second
+	 *            - second predicate, only applied if the first one does not
+	 *            match
+	 * @return predicate matching what either predicate matches
+	 */
+	public static <T> Predicate<T> or(final Predicate<? super T> first,
+			final Predicate<? super T> second) {
+		return new Predicate<T>() {
+
+			public boolean apply(T type) {
+				return first.apply(type) || second.apply(type);
+			}
+		};
+	}
+
+	/**
+	 * @param <T>
+	 *            - generic type
+	 * @param predicate
+	 *            - predicate
+	 * @return predicate matching what the predicate does not match
+	 */
+	public static <T> Predicate<T> not(final Predicate<? super T> predicate) {
+		return new Predicate<T>() {
+
+			public boolean apply(T type) {
+				return !predicate.apply(type);
+			}
+		};
+	}
+
+}
@@ -11,7 +11,15 @@ import org.junit.runners.Suite.SuiteClasses;
  * 
  */
 @RunWith(Suite.class)
-@SuiteClasses({ GitHubServiceTest.class, MarshalingTest.class })
+@SuiteClasses({ GitHubServiceTest.class, MarshalingTest.class,
+		GitHubRepositoryConnectorTest.class, GitHubIssueServiceTest.class,
+		GitHubRequestSchedulerTest.class, GitHubDateCodecTest.class,
+		GitHubIssueStoreTest.class, GitHubIssuesTest.class,
+		CollectionUtilsTest.class, GitHubLabelReconcilerTest.class,
+		GitHubSubmissionTest.class, GitHubOutboxTest.class,
+		GitHubAvatarStoreTest.class, GitHubRepositoryConfigurationTest.class,
+		GitHubContentEncodingTest.class, GitHubMetricsTest.class,
+		GitHubRepositoryCoordinatesTest.class })
 public class AllHeadlessTests {
 
 }
@@ -0,0 +1,105 @@
+package org.eclipse.mylyn.github.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.mylyn.github.internal.collections.CollectionUtils;
+import org.eclipse.mylyn.github.internal.collections.IntIterator;
+import org.eclipse.mylyn.github.internal.collections.Predicate;
+import org.eclipse.mylyn.github.internal.collections.Predicates;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Test the lazy collection views and predicate combinators.
+ */
+@RunWith(JUnit4.class)
+public class CollectionUtilsTest {
+
+	private static final List<Integer> NUMBERS = Arrays.asList(1, 2, 3, 4, 5,
+			6, 7, 8, 9, 10);
+
+	/**
+	 * Combined predicates filter lazily, and a limit stops the evaluation.
+	 */
+	@Test
+	public final void filterIsLazy() {
+		CountingPredicate even = new CountingPredicate(2);
+		Predicate<Integer> selected = Predicates.or(
+				Predicates.and(even, Predicates.not(new CountingPredicate(4))),
+				new CountingPredicate(5));
+
+		Iterable<Integer> view = CollectionUtils.filtered(NUMBERS, selected);
+		assertEquals(0, even.applied);
+		assertEquals(Arrays.asList(2, 5, 6, 10), toList(view));
+		assertEquals(NUMBERS.size(), even.applied);
+
+		even.applied = 0;
+		assertEquals(Arrays.asList(2, 5),
+				toList(CollectionUtils.limit(view, 2)));
+		assertEquals(5, even.applied);
+	}
+
+	/**
+	 * Positions of a bit set select array elements without copying them.
+	 */
+	@Test
+	public final void selectByPosition() {
+		BitSet positions = new BitSet();
+		positions.set(1);
+		positions.set(3);
+		positions.set(4);
+		String[] elements = { "a", "b", "c", "d", "e" };
+
+		Collection<String> selected = CollectionUtils.select(elements,
+				positions);
+		assertEquals(3, selected.size());
+		assertEquals(Arrays.asList("b", "d", "e"),
+				new ArrayList<String>(selected));
+		elements[3] = "x";
+		assertEquals(Arrays.asList("b", "x", "e"),
+				new ArrayList<String>(selected));
+
+		IntIterator iterator = CollectionUtils.positions(positions);
+		int sum = 0;
+		while (iterator.hasNext()) {
+			sum += iterator.next();
+		}
+		assertEquals(8, sum);
+		assertFalse(CollectionUtils.positions(new BitSet()).hasNext());
+	}
+
+	private static <T> List<T> toList(Iterable<T> iterable) {
+		List<T> list = new ArrayList<T>();
+		for (T t : iterable) {
+			list.add(t);
+		}
+		return list;
+	}
+
+	/**
+	 * Matches multiples and counts its applications.
+	 */
+	private static final class CountingPredicate implements Predicate<Integer> {
+
+		private final int divisor;
+		private int applied;
+
+		private CountingPredicate(int divisor) {
+			this.divisor = divisor;
+		}
+
+		public boolean apply(Integer type) {
+			applied++;
+			return type.intValue() % divisor == 0;
+		}
+	}
+
+}
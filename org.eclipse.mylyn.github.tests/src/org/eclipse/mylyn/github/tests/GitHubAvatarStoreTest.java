@@ -0,0 +1,101 @@
+package org.eclipse.mylyn.github.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.mylyn.github.internal.GitHubAvatarStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Test the expiry and size bound of the avatar store.
+ */
+@RunWith(JUnit4.class)
+public class GitHubAvatarStoreTest {
+
+	private static final long HOUR = 60 * 60 * 1000L;
+
+	private File directory;
+
+	/**
+	 * Create a temporary avatar directory.
+	 *
+	 * @throws IOException
+	 */
+	@Before
+	public final void setUp() throws IOException {
+		directory = File.createTempFile("github", ".avatars");
+		directory.delete();
+	}
+
+	/**
+	 * Delete the avatar directory.
+	 */
+	@After
+	public final void tearDown() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	/**
+	 * Stored avatars are read back until they expire.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public final void avatarsExpire() throws IOException {
+		GitHubAvatarStore store = new GitHubAvatarStore(directory, HOUR, 1024);
+		byte[] avatar = { 1, 2, 3 };
+		store.put("abc123", avatar);
+		assertArrayEquals(avatar, store.get("abc123"));
+		assertArrayEquals(avatar, new GitHubAvatarStore(directory, HOUR, 1024)
+				.get("abc123"));
+		assertNull(store.get("def456"));
+
+		File file = directory.listFiles()[0];
+		assertTrue(file.setLastModified(System.currentTimeMillis() - 2 * HOUR));
+		assertNull(store.get("abc123"));
+
+		store.put("../escape", avatar);
+		assertEquals(1, directory.listFiles().length);
+	}
+
+	/**
+	 * The oldest avatars are deleted when the store grows beyond its limit.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public final void sizeIsBounded() throws IOException {
+		GitHubAvatarStore store = new GitHubAvatarStore(directory, HOUR, 400);
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < 4; i++) {
+			store.put("avatar" + i, new byte[100]);
+			new File(directory, "avatar" + i + ".img").setLastModified(now
+					- (10 - i) * 1000L);
+		}
+		assertEquals(400, store.getSize());
+
+		store.put("avatar4", new byte[100]);
+		assertTrue(store.getSize() <= 300);
+		assertNull(store.get("avatar0"));
+		assertNull(store.get("avatar1"));
+		assertEquals(100, store.get("avatar4").length);
+		assertEquals(store.getSize(), new GitHubAvatarStore(directory, HOUR,
+				400).getSize());
+	}
+
+}
@@ -0,0 +1,166 @@
+package org.eclipse.mylyn.github.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.mylyn.github.internal.GitHub;
+import org.eclipse.mylyn.github.internal.GitHubContentEncoding;
+import org.eclipse.mylyn.github.internal.GitHubService;
+import org.eclipse.mylyn.github.internal.GitHubServiceException;
+import org.eclipse.mylyn.github.internal.GitHubTransferStatistics;
+import org.eclipse.mylyn.github.internal.GitHubTransport;
+import org.eclipse.mylyn.github.tests.server.StubGitHubServer;
+import org.eclipse.mylyn.tasks.core.TaskRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Test the decoding of compressed responses and the transfer counters.
+ */
+@RunWith(JUnit4.class)
+public class GitHubContentEncodingTest {
+
+	private static final byte[] BODY = createBody();
+
+	/**
+	 * Gzip, zlib and raw deflate bodies are decoded and counted.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public final void compressedBodiesAreDecoded() throws IOException {
+		GitHubTransferStatistics statistics = new GitHubTransferStatistics();
+		byte[] gzip = gzip(BODY);
+		byte[] zlib = deflate(BODY, false);
+		byte[] raw = deflate(BODY, true);
+
+		assertArrayEquals(BODY, read(gzip, "gzip", statistics));
+		assertArrayEquals(BODY, read(zlib, "deflate", statistics));
+		assertArrayEquals(BODY, read(raw, "Deflate", statistics));
+
+		assertEquals(3, statistics.getResponses());
+		assertEquals(3, statistics.getCompressedResponses());
+		assertEquals(gzip.length + zlib.length + raw.length,
+				statistics.getWireBytes());
+		assertEquals(3 * BODY.length, statistics.getDecodedBytes());
+	}
+
+	/**
+	 * Bodies without or with an empty encoding are passed through.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public final void identityIsPassedThrough() throws IOException {
+		GitHubTransferStatistics statistics = new GitHubTransferStatistics();
+
+		assertArrayEquals(BODY, read(BODY, null, statistics));
+		assertArrayEquals(new byte[0], read(new byte[0], "gzip", statistics));
+
+		assertEquals(2, statistics.getResponses());
+		assertEquals(0, statistics.getCompressedResponses());
+		assertEquals(BODY.length, statistics.getWireBytes());
+		assertEquals(BODY.length, statistics.getDecodedBytes());
+	}
+
+	/**
+	 * Unknown encodings are rejected rather than decoded as JSON.
+	 *
+	 * @throws IOException
+	 */
+	@Test(expected = IOException.class)
+	public final void unknownEncodingIsRejected() throws IOException {
+		read(BODY, "br", null);
+	}
+
+	/**
+	 * Responses of the server are received compressed.
+	 *
+	 * @throws IOException
+	 * @throws GitHubServiceException
+	 */
+	@Test
+	public final void responsesAreCompressed() throws IOException,
+			GitHubServiceException {
+		StubGitHubServer server = new StubGitHubServer();
+		server.generateIssues(50, 0);
+		server.start();
+		try {
+			TaskRepository repository = server.createRepository("foo", "bar");
+			GitHubTransferStatistics statistics = GitHubTransport.get(
+					repository).getStatistics();
+			long compressed = statistics.getCompressedResponses();
+			long wire = statistics.getWireBytes();
+			long decoded = statistics.getDecodedBytes();
+
+			GitHubService.getIssueService(repository).getFilteredIssues(null,
+					GitHub.TASK_STATUS_OPEN);
+
+			assertEquals(compressed + 1, statistics.getCompressedResponses());
+			assertTrue((statistics.getWireBytes() - wire) * 2 < statistics
+					.getDecodedBytes() - decoded);
+		} finally {
+			server.stop();
+		}
+	}
+
+	private static byte[] read(byte[] body, String encoding,
+			GitHubTransferStatistics statistics) throws IOException {
+		InputStream input = GitHubContentEncoding.decode(
+				new ByteArrayInputStream(body), encoding, statistics);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try {
+			byte[] buffer = new byte[100];
+			int n;
+			while ((n = input.read(buffer)) != -1) {
+				output.write(buffer, 0, n);
+			}
+		} finally {
+			input.close();
+		}
+		return output.toByteArray();
+	}
+
+	private static byte[] gzip(byte[] body) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		OutputStream gzip = new GZIPOutputStream(output);
+		gzip.write(body);
+		gzip.close();
+		return output.toByteArray();
+	}
+
+	private static byte[] deflate(byte[] body, boolean raw)
+			throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		OutputStream deflate = new DeflaterOutputStream(output, new Deflater(
+				Deflater.DEFAULT_COMPRESSION, raw));
+		deflate.write(body);
+		deflate.close();
+		return output.toByteArray();
+	}
+
+	private static byte[] createBody() {
+		StringBuilder json = new StringBuilder("{\"issues\":[");
+		for (int i = 0; i < 200; i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append("{\"number\":").append(i)
+					.append(",\"title\":\"Issue ").append(i)
+					.append("\",\"state\":\"open\"}");
+		}
+		return json.append("]}").toString().getBytes();
+	}
+
+}
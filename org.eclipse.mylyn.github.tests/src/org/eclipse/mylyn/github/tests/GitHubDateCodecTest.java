@@ -0,0 +1,89 @@
+package org.eclipse.mylyn.github.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import org.eclipse.mylyn.github.internal.GitHubDateCodec;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Test the GitHub timestamp codec against {@link SimpleDateFormat}.
+ */
+@RunWith(JUnit4.class)
+public class GitHubDateCodecTest {
+
+	private static final String[] DATES = { "2010/02/02 22:58:39 -0800",
+			"2011/01/01 00:00:00 +0000", "2012/02/29 23:59:59 +0130",
+			"2000/03/01 12:30:00 -1100", "1999/12/31 23:59:59 +1400",
+			"1970/01/01 00:00:00 +0000", "1969/12/31 18:00:00 -0600",
+			"2100/02/28 08:15:42 +0545" };
+
+	/**
+	 * Timestamps are parsed like SimpleDateFormat does.
+	 *
+	 * @throws ParseException
+	 */
+	@Test
+	public final void parseMatchesSimpleDateFormat() throws ParseException {
+		DateFormat format = new SimpleDateFormat(
+				GitHubDateCodec.GITHUB_DATE_FORMAT, Locale.US);
+		for (String date : DATES) {
+			assertEquals(date, format.parse(date).getTime(),
+					GitHubDateCodec.parse(date));
+		}
+	}
+
+	/**
+	 * Formatted timestamps are parsed back to the same time.
+	 */
+	@Test
+	public final void formatRoundTrips() {
+		for (String date : DATES) {
+			long time = GitHubDateCodec.parse(date);
+			String formatted = GitHubDateCodec.format(time);
+			assertEquals(formatted, time, GitHubDateCodec.parse(formatted));
+		}
+		assertEquals("1970/01/01 00:00:00 +0000", GitHubDateCodec.format(0));
+		assertEquals("2010/02/03 06:58:39 +0000", GitHubDateCodec
+				.format(GitHubDateCodec.parse("2010/02/02 22:58:39 -0800")));
+	}
+
+	/**
+	 * Invalid timestamps are rejected.
+	 */
+	@Test
+	public final void invalidDatesAreRejected() {
+		assertEquals(-1, GitHubDateCodec.parse(null));
+		assertEquals(-1, GitHubDateCodec.parse(""));
+		assertEquals(-1, GitHubDateCodec.parse("yesterday"));
+		assertEquals(-1, GitHubDateCodec.parse("2011/13/01 00:00:00 +0000"));
+		assertEquals(-1, GitHubDateCodec.parse("2011/02/29 00:00:00 +0000"));
+	}
+
+	/**
+	 * Attribute values are read as milliseconds, API timestamps or localized
+	 * dates stored by earlier versions.
+	 */
+	@Test
+	public final void attributeValuesAreParsed() {
+		long time = GitHubDateCodec.parse(DATES[0]);
+		assertEquals(time,
+				GitHubDateCodec.parseAttributeValue(Long.toString(time)));
+		assertEquals(time, GitHubDateCodec.parseAttributeValue(DATES[0]));
+		assertEquals(Long.toString(time),
+				GitHubDateCodec.toAttributeValue(DATES[0]));
+
+		String localized = DateFormat.getDateTimeInstance().format(
+				new Date(time));
+		assertEquals(time, GitHubDateCodec.parseAttributeValue(localized));
+		assertEquals(-1, GitHubDateCodec.parseAttributeValue(null));
+	}
+
+}
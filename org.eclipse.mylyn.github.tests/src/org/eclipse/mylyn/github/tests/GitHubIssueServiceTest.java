@@ -0,0 +1,210 @@
+package org.eclipse.mylyn.github.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.mylyn.github.internal.GitHub;
+import org.eclipse.mylyn.github.internal.GitHubIssue;
+import org.eclipse.mylyn.github.internal.GitHubIssueHandler;
+import org.eclipse.mylyn.github.internal.GitHubIssueService;
+import org.eclipse.mylyn.github.internal.GitHubIssueStore;
+import org.eclipse.mylyn.github.internal.GitHubIssues;
+import org.eclipse.mylyn.github.internal.GitHubRequestScheduler;
+import org.eclipse.mylyn.github.internal.GitHubService;
+import org.eclipse.mylyn.github.internal.GitHubServiceException;
+import org.eclipse.mylyn.github.tests.server.StubGitHubServer;
+import org.eclipse.mylyn.github.tests.server.StubServerTestCase;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Test the issue service against a local stub server.
+ */
+@RunWith(JUnit4.class)
+public class GitHubIssueServiceTest extends StubServerTestCase {
+
+	private static final int NUMBER_OF_ISSUES = 20;
+
+	private GitHubIssueService service;
+
+	/**
+	 * Add open and closed issues.
+	 */
+	@Override
+	protected void populate(StubGitHubServer stubServer) {
+		stubServer.generateIssues(NUMBER_OF_ISSUES, 0);
+	}
+
+	/**
+	 * Create the issue service of the stub server.
+	 */
+	@Before
+	public final void setUp() {
+		service = GitHubService.getIssueService(repository);
+	}
+
+	/**
+	 * An unchanged issue list is revalidated and not decoded again.
+	 *
+	 * @throws GitHubServiceException
+	 */
+	@Test
+	public final void unchangedListIsRevalidated()
+			throws GitHubServiceException {
+		GitHubIssues first = service.getFilteredIssues(null,
+				GitHub.TASK_STATUS_OPEN);
+		GitHubIssues second = service.getFilteredIssues(null,
+				GitHub.TASK_STATUS_OPEN);
+
+		assertSame(first, second);
+		assertEquals(NUMBER_OF_ISSUES / 2, second.getIssues().size());
+		assertEquals(2, server.getRequestCount("issues/list"));
+		assertEquals(1, server.getNotModifiedCount());
+	}
+
+	/**
+	 * Stored issue lists are revalidated with the validators kept in the
+	 * store, and downloaded again only when asked to.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public final void storedListsAreRevalidated() throws Exception {
+		File file = File.createTempFile("github", ".store");
+		file.delete();
+		try {
+			GitHubIssueStore store = GitHubIssueStore.open(file);
+			assertTrue(service.refreshStoredIssues(store, true, executor));
+			assertEquals(NUMBER_OF_ISSUES / 2, store.getIssues(
+					GitHub.TASK_STATUS_OPEN).size());
+			store.flush();
+
+			GitHubIssueStore reopened = GitHubIssueStore.open(file);
+			assertFalse(service.refreshStoredIssues(reopened, true, executor));
+			assertEquals(2, server.getNotModifiedCount());
+
+			assertTrue(service.refreshStoredIssues(reopened, false, executor));
+			assertEquals(2, server.getNotModifiedCount());
+			assertEquals(6, server.getRequestCount("issues/list"));
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Reads authenticate with a header and never put the token in the URI.
+	 *
+	 * @throws GitHubServiceException
+	 */
+	@Test
+	public final void readsKeepTokenOutOfUri() throws GitHubServiceException {
+		service.getFilteredIssues(null, GitHub.TASK_STATUS_OPEN);
+		service.getFilteredIssues(null, GitHub.TASK_STATUS_OPEN);
+
+		assertEquals(2, server.getRequestCount("issues/list"));
+		assertEquals(0, server.getExposedCredentialsCount());
+	}
+
+	/**
+	 * Streamed issues are handed over in list order, and replayed from the
+	 * cache when the list was not modified.
+	 *
+	 * @throws GitHubServiceException
+	 */
+	@Test
+	public final void streamedListIsReplayedWhenNotModified()
+			throws GitHubServiceException {
+		List<GitHubIssue> first = streamIssues();
+		List<GitHubIssue> second = streamIssues();
+
+		assertEquals(NUMBER_OF_ISSUES / 2, first.size());
+		assertEquals(first, second);
+		assertEquals(1, server.getNotModifiedCount());
+		GitHubIssue[] expected = service
+				.getFilteredIssues(null, GitHub.TASK_STATUS_OPEN).getIssues()
+				.toArray(new GitHubIssue[0]);
+		assertArrayEquals(expected, first.toArray());
+	}
+
+	/**
+	 * Searches return the issues of a state whose text contains the term.
+	 *
+	 * @throws GitHubServiceException
+	 */
+	@Test
+	public final void searchMatchesText() throws GitHubServiceException {
+		GitHubIssue issue = new GitHubIssue();
+		issue.setNumber(Integer.toString(NUMBER_OF_ISSUES + 1));
+		issue.setTitle("Editor crashes");
+		issue.setBody("Stack trace attached");
+		issue.setState(GitHub.TASK_STATUS_OPEN);
+		server.addIssue(issue);
+
+		GitHubIssues found = service.getFilteredIssues("crash",
+				GitHub.TASK_STATUS_OPEN);
+
+		assertEquals(1, found.getIssues().size());
+		assertEquals(issue.getNumber(), found.getIssues().iterator().next()
+				.getNumber());
+		assertEquals(0, service.getFilteredIssues("crash",
+				GitHub.TASK_STATUS_CLOSED).getIssues().size());
+		assertEquals(2, server.getRequestCount("issues/search"));
+	}
+
+	/**
+	 * Reads failing with a server error are retried before giving up.
+	 */
+	@Test
+	public final void failedReadsAreRetried() {
+		server.setErrorRate(1);
+		try {
+			service.getFilteredIssues(null, GitHub.TASK_STATUS_OPEN);
+			fail("Expected a server error");
+		} catch (GitHubServiceException e) {
+			// expected
+		}
+		assertEquals(GitHubRequestScheduler.MAX_RETRIES + 1,
+				server.getInjectedErrorCount());
+		assertEquals(0, server.getRequestCount("issues/list"));
+	}
+
+	/**
+	 * The quota announced by the server is known to the scheduler.
+	 *
+	 * @throws GitHubServiceException
+	 */
+	@Test
+	public final void rateLimitIsReported() throws GitHubServiceException {
+		server.setRateLimit(60, 60 * 1000L);
+		service.getFilteredIssues(null, GitHub.TASK_STATUS_OPEN);
+		service.getFilteredIssues(null, GitHub.TASK_STATUS_CLOSED);
+
+		GitHubRequestScheduler scheduler = GitHubRequestScheduler.get(server
+				.getApiUrl());
+		assertEquals(60, scheduler.getRateLimit());
+		assertEquals(58, scheduler.getRateLimitRemaining());
+		assertEquals(0, server.getRateLimitedCount());
+	}
+
+	private List<GitHubIssue> streamIssues() throws GitHubServiceException {
+		final List<GitHubIssue> issues = new ArrayList<GitHubIssue>();
+		service.getFilteredIssues(null, GitHub.TASK_STATUS_OPEN,
+				new GitHubIssueHandler() {
+					public void handle(GitHubIssue issue) {
+						issues.add(issue);
+					}
+				});
+		return issues;
+	}
+
+}
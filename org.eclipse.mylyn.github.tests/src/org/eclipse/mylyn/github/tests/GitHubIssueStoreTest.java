@@ -0,0 +1,218 @@
+package org.eclipse.mylyn.github.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.mylyn.github.internal.GitHub;
+import org.eclipse.mylyn.github.internal.GitHubComment;
+import org.eclipse.mylyn.github.internal.GitHubComments;
+import org.eclipse.mylyn.github.internal.GitHubDateCodec;
+import org.eclipse.mylyn.github.internal.GitHubIssue;
+import org.eclipse.mylyn.github.internal.GitHubIssueStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Test the on-disk issue store.
+ */
+@RunWith(JUnit4.class)
+public class GitHubIssueStoreTest {
+
+	private File file;
+
+	/**
+	 * Create a temporary store file.
+	 *
+	 * @throws IOException
+	 */
+	@Before
+	public final void setUp() throws IOException {
+		file = File.createTempFile("github", ".store");
+		file.delete();
+	}
+
+	/**
+	 * Delete the store file.
+	 */
+	@After
+	public final void tearDown() {
+		file.delete();
+	}
+
+	/**
+	 * Issues, comments and labels survive reopening the store.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public final void storeIsPersisted() throws IOException {
+		GitHubIssueStore store = GitHubIssueStore.open(file);
+		List<GitHubIssue> open = Arrays.asList(
+				createIssue("2", "2011/01/02 10:00:00 -0800"),
+				createIssue("1", "2011/01/01 10:00:00 -0800"));
+		store.replaceIssues(GitHub.TASK_STATUS_OPEN, open);
+		store.putIssue(open.get(1), new GitHubComments(Collections
+				.singletonList(new GitHubComment("", "user", "comment", "7",
+						"2011/01/01 10:00:00 -0800",
+						"2011/01/01 10:00:00 -0800"))));
+		store.setLabels(Arrays.asList("bug", "feature"));
+		store.flush();
+
+		GitHubIssueStore reopened = GitHubIssueStore.open(file);
+		List<GitHubIssue> issues = reopened.getIssues(GitHub.TASK_STATUS_OPEN);
+		assertEquals(2, issues.size());
+		assertEquals("2", issues.get(0).getNumber());
+		assertEquals("Issue 2", issues.get(0).getTitle());
+		assertEquals(Arrays.asList("bug"), issues.get(0).getLabels());
+		assertNull(reopened.getIssues(GitHub.TASK_STATUS_CLOSED));
+		assertTrue(reopened.getRefreshTime(GitHub.TASK_STATUS_OPEN) > 0);
+		GitHubComments comments = reopened.getComments(issues.get(1));
+		assertNotNull(comments);
+		assertEquals("comment", comments.getComments().iterator().next()
+				.getBody());
+		assertEquals(Arrays.asList("bug", "feature"), reopened.getLabels());
+	}
+
+	/**
+	 * Validators of a stored list survive reopening the store and are
+	 * dropped when the list is replaced without them.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public final void validatorsArePersisted() throws IOException {
+		GitHubIssueStore store = GitHubIssueStore.open(file);
+		List<GitHubIssue> open = Collections.singletonList(createIssue("1",
+				"2011/01/01 10:00:00 -0800"));
+		store.replaceIssues(GitHub.TASK_STATUS_OPEN, open, "\"abc\"", null);
+		store.flush();
+
+		GitHubIssueStore reopened = GitHubIssueStore.open(file);
+		assertArrayEquals(new String[] { "\"abc\"", null }, reopened
+				.getValidators(GitHub.TASK_STATUS_OPEN));
+		assertNull(reopened.getValidators(GitHub.TASK_STATUS_CLOSED));
+
+		reopened.replaceIssues(GitHub.TASK_STATUS_OPEN, open);
+		assertNull(reopened.getValidators(GitHub.TASK_STATUS_OPEN));
+	}
+
+	/**
+	 * A revalidated list is current again and keeps its validators.
+	 */
+	@Test
+	public final void revalidatedListIsRefreshed() {
+		GitHubIssueStore store = GitHubIssueStore.open(file);
+		store.replaceIssues(GitHub.TASK_STATUS_OPEN, Collections
+				.singletonList(createIssue("1", "2011/01/01 10:00:00 -0800")),
+				"\"abc\"", null);
+		store.invalidate();
+		assertEquals(0, store.getRefreshTime(GitHub.TASK_STATUS_OPEN));
+
+		store.markRefreshed(GitHub.TASK_STATUS_OPEN);
+		store.markRefreshed(GitHub.TASK_STATUS_CLOSED);
+
+		assertTrue(store.getRefreshTime(GitHub.TASK_STATUS_OPEN) > 0);
+		assertEquals(-1, store.getRefreshTime(GitHub.TASK_STATUS_CLOSED));
+		assertNotNull(store.getValidators(GitHub.TASK_STATUS_OPEN));
+	}
+
+	/**
+	 * Comments are not handed out once the issue was updated.
+	 */
+	@Test
+	public final void commentsOfUpdatedIssuesAreStale() {
+		GitHubIssueStore store = GitHubIssueStore.open(file);
+		GitHubIssue issue = createIssue("1", "2011/01/01 10:00:00 -0800");
+		store.putIssue(issue, new GitHubComments());
+
+		assertNotNull(store.getComments(issue));
+		assertNull(store.getComments(createIssue("1",
+				"2011/01/03 10:00:00 -0800")));
+	}
+
+	/**
+	 * Issues are found by update time and dropped once no list contains
+	 * them.
+	 */
+	@Test
+	public final void issuesAreIndexedByUpdateTime() {
+		GitHubIssueStore store = GitHubIssueStore.open(file);
+		store.replaceIssues(GitHub.TASK_STATUS_OPEN, Arrays.asList(
+				createIssue("1", "2011/01/01 10:00:00 -0800"),
+				createIssue("2", "2011/01/02 10:00:00 -0800"),
+				createIssue("3", "2011/01/03 10:00:00 -0800")));
+
+		List<String> numbers = new ArrayList<String>();
+		for (GitHubIssue issue : store.getIssuesUpdatedSince(GitHubDateCodec
+				.parse("2011/01/02 10:00:00 -0800"))) {
+			numbers.add(issue.getNumber());
+		}
+		assertEquals(Arrays.asList("2", "3"), numbers);
+
+		store.replaceIssues(GitHub.TASK_STATUS_OPEN,
+				Collections.singletonList(createIssue("3",
+						"2011/01/03 10:00:00 -0800")));
+		assertNull(store.getIssue("1"));
+		assertEquals(1, store.getIssuesUpdatedSince(0).size());
+	}
+
+	/**
+	 * Text searches see title, body, labels and stored comments, and follow
+	 * changes to the issues.
+	 */
+	@Test
+	public final void issuesAreSearchedByText() {
+		GitHubIssueStore store = GitHubIssueStore.open(file);
+		GitHubIssue first = createIssue("1", "2011/01/01 10:00:00 -0800");
+		first.setBody("NullPointerException in the query page");
+		GitHubIssue second = createIssue("2", "2011/01/02 10:00:00 -0800");
+		second.setLabels(Collections.singletonList("feature"));
+		store.replaceIssues(GitHub.TASK_STATUS_OPEN,
+				Arrays.asList(second, first));
+		store.putIssue(second, new GitHubComments(Collections
+				.singletonList(new GitHubComment("", "user", "Query page too",
+						"7", "2011/01/02 10:00:00 -0800",
+						"2011/01/02 10:00:00 -0800"))));
+
+		assertEquals(Arrays.asList(second, first), store.searchIssues(
+				GitHub.TASK_STATUS_OPEN, "query PAGE"));
+		assertEquals(Arrays.asList(first), store.searchIssues(
+				GitHub.TASK_STATUS_OPEN, "nullpointer"));
+		assertEquals(Arrays.asList(second), store.searchIssues(
+				GitHub.TASK_STATUS_OPEN, "feature"));
+		assertTrue(store.searchIssues(GitHub.TASK_STATUS_OPEN, "issue 3")
+				.isEmpty());
+		assertNull(store.searchIssues(GitHub.TASK_STATUS_CLOSED, "issue"));
+
+		GitHubIssue updated = createIssue("1", "2011/01/03 10:00:00 -0800");
+		store.replaceIssues(GitHub.TASK_STATUS_OPEN, Arrays.asList(updated));
+		assertTrue(store.searchIssues(GitHub.TASK_STATUS_OPEN, "nullpointer")
+				.isEmpty());
+		assertEquals(Arrays.asList(updated), store.searchIssues(
+				GitHub.TASK_STATUS_OPEN, "issue 1"));
+	}
+
+	private static GitHubIssue createIssue(String number, String updatedAt) {
+		GitHubIssue issue = new GitHubIssue();
+		issue.setNumber(number);
+		issue.setTitle("Issue " + number);
+		issue.setState(GitHub.TASK_STATUS_OPEN);
+		issue.setUpdatedAt(updatedAt);
+		issue.setLabels(Collections.singletonList("bug"));
+		return issue;
+	}
+
+}
@@ -0,0 +1,121 @@
+package org.eclipse.mylyn.github.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.mylyn.github.internal.GitHubIssue;
+import org.eclipse.mylyn.github.internal.GitHubIssues;
+import org.eclipse.mylyn.github.internal.collections.CollectionUtils;
+import org.eclipse.mylyn.github.internal.collections.Predicate;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Test label queries on issue lists.
+ */
+@RunWith(JUnit4.class)
+public class GitHubIssuesTest {
+
+	private final GitHubIssues issues = new GitHubIssues(Arrays.asList(
+			createIssue("1", "bug"), createIssue("2", "bug", "ui"),
+			createIssue("3", "feature", "ui"), createIssue("4"),
+			createIssue("5", "feature")));
+
+	/**
+	 * A single label selects the issues carrying it, in list order.
+	 */
+	@Test
+	public final void singleLabel() {
+		assertEquals(Arrays.asList("1", "2"),
+				numbers(issues.getIssuesLabeled("bug")));
+		assertEquals(Arrays.asList("1", "2", "3", "4", "5"),
+				numbers(issues.getIssuesLabeled("all")));
+		assertEquals(Collections.emptyList(),
+				numbers(issues.getIssuesLabeled("unknown")));
+	}
+
+	/**
+	 * Labels combine with and, or and not.
+	 */
+	@Test
+	public final void combinedLabels() {
+		assertEquals(Arrays.asList("2"), numbers(issues.getIssuesLabeled(
+				Arrays.asList("bug", "ui"), null, null)));
+		assertEquals(Arrays.asList("1", "2", "3", "5"),
+				numbers(issues.getIssuesLabeled(null,
+						Arrays.asList("bug", "feature"), null)));
+		assertEquals(Arrays.asList("1", "4", "5"),
+				numbers(issues.getIssuesLabeled(null, null,
+						Arrays.asList("ui"))));
+		assertEquals(Arrays.asList("5"), numbers(issues.getIssuesLabeled(
+				null, Arrays.asList("feature", "unknown"),
+				Arrays.asList("ui"))));
+		assertEquals(Collections.emptyList(), numbers(issues
+				.getIssuesLabeled(Arrays.asList("bug", "unknown"), null, null)));
+	}
+
+	/**
+	 * Label predicates for streamed issues match what the label index
+	 * selects.
+	 */
+	@Test
+	public final void predicatesMatchIndex() {
+		List<List<List<String>>> queries = Arrays.asList(
+				Arrays.asList(Arrays.asList("bug", "ui"), null, null),
+				Arrays.asList(null, Arrays.asList("bug", "feature"), null),
+				Arrays.asList(null, null, Arrays.asList("ui")),
+				Arrays.asList(null, Arrays.asList("feature", "unknown"),
+						Arrays.asList("ui")),
+				Arrays.asList(null, Collections.<String> emptyList(), null));
+		for (List<List<String>> query : queries) {
+			assertEquals(numbers(issues.getIssuesLabeled(query.get(0),
+					query.get(1), query.get(2))), numbers(CollectionUtils
+					.filtered(issues.getIssues(), GitHubIssues.labeled(
+							query.get(0), query.get(1), query.get(2)))));
+		}
+		assertEquals(Arrays.asList("2", "3"), numbers(CollectionUtils
+				.filtered(issues.getIssues(), GitHubIssues.labeled("ui"))));
+	}
+
+	/**
+	 * A query reads the label selection only up to its last hit.
+	 */
+	@Test
+	public final void selectStopsAtLimit() {
+		final List<String> tested = new ArrayList<String>();
+		Predicate<GitHubIssue> filter = new Predicate<GitHubIssue>() {
+
+			public boolean apply(GitHubIssue issue) {
+				tested.add(issue.getNumber());
+				return !"1".equals(issue.getNumber());
+			}
+		};
+
+		assertEquals(Arrays.asList("2", "3"), numbers(issues.select("all",
+				filter, 2)));
+		assertEquals(Arrays.asList("1", "2", "3"), tested);
+		assertEquals(Arrays.asList("3"), numbers(issues.select("feature",
+				filter, 1)));
+	}
+
+	private static List<String> numbers(Iterable<GitHubIssue> issues) {
+		List<String> numbers = new ArrayList<String>();
+		for (GitHubIssue issue : issues) {
+			numbers.add(issue.getNumber());
+		}
+		return numbers;
+	}
+
+	private static GitHubIssue createIssue(String number, String... labels) {
+		GitHubIssue issue = new GitHubIssue();
+		issue.setNumber(number);
+		issue.setLabels(Arrays.asList(labels));
+		return issue;
+	}
+
+}
@@ -0,0 +1,86 @@
+package org.eclipse.mylyn.github.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.mylyn.github.internal.GitHubIssue;
+import org.eclipse.mylyn.github.internal.GitHubLabelReconciler;
+import org.eclipse.mylyn.github.internal.GitHubService;
+import org.eclipse.mylyn.github.tests.server.StubGitHubServer;
+import org.eclipse.mylyn.github.tests.server.StubServerTestCase;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Test label synchronization against a local stub server.
+ */
+@RunWith(JUnit4.class)
+public class GitHubLabelReconcilerTest extends StubServerTestCase {
+
+	private GitHubLabelReconciler reconciler;
+
+	/**
+	 * Add one labeled issue.
+	 */
+	@Override
+	protected void populate(StubGitHubServer stubServer) {
+		stubServer.generateIssues(1, 0);
+		stubServer.getIssue("1").setLabels(Arrays.asList("bug", "ui", "core"));
+	}
+
+	/**
+	 * Create the reconciler of the stub server.
+	 */
+	@Before
+	public final void setUp() {
+		reconciler = new GitHubLabelReconciler(GitHubService
+				.getLabelsService(repository), executor);
+	}
+
+	/**
+	 * Only changed labels are sent.
+	 */
+	@Test
+	public final void onlyChangedLabelsAreSent() {
+		IStatus status = reconciler.reconcile("1",
+				Arrays.asList("bug", "ui", "core"),
+				Arrays.asList("ui", "core", "feature"));
+
+		assertTrue(status.isOK());
+		assertEquals(1, server.getRequestCount("issues/label/add"));
+		assertEquals(1, server.getRequestCount("issues/label/remove"));
+		GitHubIssue issue = server.getIssue("1");
+		assertEquals(3, issue.getLabels().size());
+		assertTrue(issue.getLabels().containsAll(
+				Arrays.asList("ui", "core", "feature")));
+
+		server.resetRequestCounts();
+		assertTrue(reconciler.reconcile("1", issue.getLabels(),
+				Arrays.asList("core", "feature", "ui")).isOK());
+		assertEquals(0, server.getRequestCount());
+	}
+
+	/**
+	 * A failed change is reported without stopping the other changes.
+	 */
+	@Test
+	public final void failuresAreReportedTogether() {
+		server.failLabel("broken");
+		IStatus status = reconciler.reconcile("1",
+				Arrays.asList("bug", "ui", "core"),
+				Arrays.asList("broken", "feature"));
+
+		assertFalse(status.isOK());
+		assertEquals(1, status.getChildren().length);
+		assertEquals(5, server.getRequestCount());
+		assertEquals(Arrays.asList("feature"), server.getIssue("1")
+				.getLabels());
+	}
+
+}
@@ -0,0 +1,107 @@
+package org.eclipse.mylyn.github.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.eclipse.mylyn.github.internal.GitHub;
+import org.eclipse.mylyn.github.internal.GitHubEndpointMetrics;
+import org.eclipse.mylyn.github.internal.GitHubHistogram;
+import org.eclipse.mylyn.github.internal.GitHubLogMetricsSink;
+import org.eclipse.mylyn.github.internal.GitHubMetrics;
+import org.eclipse.mylyn.github.internal.GitHubService;
+import org.eclipse.mylyn.github.internal.GitHubServiceException;
+import org.eclipse.mylyn.github.tests.server.StubGitHubServer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Test the request metrics.
+ */
+@RunWith(JUnit4.class)
+public class GitHubMetricsTest {
+
+	/**
+	 * Percentiles are the upper bounds of their buckets, capped by the
+	 * longest duration.
+	 */
+	@Test
+	public final void histogramEstimatesPercentiles() {
+		GitHubHistogram histogram = new GitHubHistogram();
+		assertEquals(0, histogram.getP50Micros());
+		for (int i = 0; i < 90; i++) {
+			histogram.record(1000 * 1000L);
+		}
+		for (int i = 0; i < 10; i++) {
+			histogram.record(100 * 1000 * 1000L);
+		}
+
+		assertEquals(100, histogram.getCount());
+		assertEquals(10900, histogram.getMeanMicros());
+		assertEquals(1024, histogram.getP50Micros());
+		assertEquals(1024, histogram.getP90Micros());
+		assertEquals(100000, histogram.getP99Micros());
+		assertEquals(100000, histogram.getMaxMicros());
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMaxMicros());
+	}
+
+	/**
+	 * Requests are grouped by endpoint, not by their parameters.
+	 */
+	@Test
+	public final void endpointNames() {
+		assertEquals("issues/list", GitHubMetrics
+				.getEndpointName("/api/v2/json/issues/list/foo/bar/open"));
+		assertEquals("issues/show", GitHubMetrics
+				.getEndpointName("/api/v2/json/issues/show/foo/bar/1"));
+		assertEquals("issues/label/add", GitHubMetrics
+				.getEndpointName("/api/v2/json/issues/label/add/foo/bar/l/1"));
+		assertEquals("user/emails", GitHubMetrics
+				.getEndpointName("/api/v2/json/user/emails"));
+		assertEquals("avatar", GitHubMetrics.getEndpointName("/avatar/abc"));
+		assertEquals("", GitHubMetrics.getEndpointName("/"));
+	}
+
+	/**
+	 * A read is recorded with its status, body size and decode time, and
+	 * shows up in the log summary.
+	 *
+	 * @throws IOException
+	 * @throws GitHubServiceException
+	 */
+	@Test
+	public final void requestsAreRecorded() throws IOException,
+			GitHubServiceException {
+		StubGitHubServer server = new StubGitHubServer();
+		server.generateIssues(4, 0);
+		server.start();
+		try {
+			GitHubMetrics metrics = GitHubMetrics.getDefault();
+			metrics.reset();
+			GitHubService.getIssueService(server.createRepository("foo", "bar"))
+					.getFilteredIssues(null, GitHub.TASK_STATUS_OPEN);
+
+			GitHubEndpointMetrics endpoint = metrics.getEndpoints().get(
+					"issues/list");
+			assertEquals(1, endpoint.getRequests());
+			assertEquals(0, endpoint.getFailures());
+			assertEquals(Collections.singletonMap(200, 1L), endpoint
+					.getStatusCounts());
+			assertEquals(1, endpoint.getLatency().getCount());
+			assertEquals(1, endpoint.getDecodeTime().getCount());
+			assertEquals(1, endpoint.getTransfer().getResponses());
+			assertTrue(endpoint.getTransfer().getDecodedBytes() > 0);
+			assertTrue(GitHubLogMetricsSink.dump(metrics).contains(
+					"issues/list: 1 requests, 0 failed"));
+		} finally {
+			server.stop();
+		}
+	}
+
+}
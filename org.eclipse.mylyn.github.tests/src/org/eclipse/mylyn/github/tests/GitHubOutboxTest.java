@@ -0,0 +1,224 @@
+package org.eclipse.mylyn.github.tests;
+
+import static org.eclipse.mylyn.github.internal.GitHubConnectorLogger.createErrorStatus;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.mylyn.github.internal.GitHub;
+import org.eclipse.mylyn.github.internal.GitHubIssue;
+import org.eclipse.mylyn.github.internal.GitHubOutbox;
+import org.eclipse.mylyn.github.internal.GitHubSubmission;
+import org.eclipse.mylyn.github.internal.GitHubTaskOperation;
+import org.eclipse.mylyn.github.tests.server.StubGitHubServer;
+import org.eclipse.mylyn.github.tests.server.StubServerTestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Test the outbox journal and its replay against a local stub server.
+ */
+@RunWith(JUnit4.class)
+public class GitHubOutboxTest extends StubServerTestCase {
+
+	private static final List<String> NO_COMMENTS = Collections.emptyList();
+
+	private File file;
+
+	/**
+	 * Add one open and one closed issue.
+	 */
+	@Override
+	protected void populate(StubGitHubServer stubServer) {
+		stubServer.generateIssues(2, 0);
+	}
+
+	/**
+	 * Pick a journal file that does not exist yet.
+	 *
+	 * @throws IOException
+	 */
+	@Before
+	public final void setUp() throws IOException {
+		file = File.createTempFile("github", ".outbox");
+		file.delete();
+	}
+
+	/**
+	 * Delete the journal.
+	 */
+	@After
+	public final void tearDown() {
+		file.delete();
+	}
+
+	/**
+	 * Queued submissions survive a restart, and a record torn by a crash is
+	 * cut off without losing the records before it.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public final void journalSurvivesRestart() throws IOException {
+		GitHubOutbox outbox = GitHubOutbox.open(file);
+		assertEquals("1", outbox.add(new GitHubSubmission(issue("1",
+				"Renamed"), false, true, null, null, "First")));
+		outbox.add(new GitHubSubmission(issue("1", "Renamed"), false, false,
+				GitHubTaskOperation.CLOSE, null, NO_COMMENTS));
+		long length = file.length();
+
+		FileOutputStream torn = new FileOutputStream(file, true);
+		try {
+			torn.write(new byte[] { 0, 0, 0, 100, 1, 2, 3 });
+		} finally {
+			torn.close();
+		}
+
+		outbox = GitHubOutbox.open(file);
+		assertEquals(2, outbox.size());
+		assertTrue(outbox.isPending("1"));
+		assertFalse(outbox.isPending("2"));
+		assertEquals(length, file.length());
+	}
+
+	/**
+	 * A torn header claiming more bytes than the journal holds is cut off
+	 * without reading the claimed length.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public final void oversizedRecordIsTorn() throws IOException {
+		GitHubOutbox outbox = GitHubOutbox.open(file);
+		outbox.add(new GitHubSubmission(issue("1", "Renamed"), false, true,
+				null, null, "First"));
+		long length = file.length();
+
+		DataOutputStream torn = new DataOutputStream(new FileOutputStream(
+				file, true));
+		try {
+			torn.writeInt(Integer.MAX_VALUE);
+			torn.writeInt(0);
+			torn.write(new byte[] { 1, 2, 3 });
+		} finally {
+			torn.close();
+		}
+
+		outbox = GitHubOutbox.open(file);
+		assertEquals(1, outbox.size());
+		assertTrue(outbox.isPending("1"));
+		assertEquals(length, file.length());
+	}
+
+	/**
+	 * Issues are not created offline, their tasks could not take the number
+	 * the issue gets later.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public final void createsAreNotQueued() throws IOException {
+		GitHubOutbox outbox = GitHubOutbox.open(file);
+		try {
+			outbox.add(create("New issue"));
+			fail("Create was queued");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		assertEquals(0, outbox.size());
+	}
+
+	/**
+	 * Submissions of an issue are merged, a repeated comment is sent once.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public final void replayMergesSubmissions() throws IOException {
+		GitHubOutbox outbox = GitHubOutbox.open(file);
+		outbox.add(new GitHubSubmission(issue("2", "Renamed"), false, true,
+				null, null, "First"));
+		outbox.add(new GitHubSubmission(issue("1", "Issue 1"), false, false,
+				GitHubTaskOperation.CLOSE, null, "Second"));
+		outbox.add(new GitHubSubmission(issue("1", "Issue 1"), false, false,
+				null, null, "Third"));
+		outbox.add(new GitHubSubmission(issue("2", "Renamed again"), false,
+				true, null, null, "First"));
+
+		assertTrue(outbox.replay(repository, executor));
+
+		assertEquals(0, outbox.size());
+		assertEquals(1, server.getRequestCount("issues/edit"));
+		assertEquals(1, server.getRequestCount("issues/close"));
+		assertEquals(3, server.getRequestCount("issues/comment"));
+		assertEquals("Renamed again", server.getIssue("2").getTitle());
+		assertEquals(GitHub.TASK_STATUS_CLOSED, server.getIssue("1")
+				.getState());
+		assertEquals(0, GitHubOutbox.open(file).size());
+	}
+
+	/**
+	 * Submissions stay queued while the server cannot be reached.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	public final void offlineReplayKeepsSubmissions() throws IOException {
+		GitHubOutbox outbox = GitHubOutbox.open(file);
+		outbox.add(new GitHubSubmission(issue("2", "Issue 2"), false, false,
+				GitHubTaskOperation.REOPEN, null, "Again"));
+		server.stop();
+
+		assertFalse(outbox.replay(repository, executor));
+		assertEquals(1, outbox.size());
+		assertEquals(1, GitHubOutbox.open(file).size());
+	}
+
+	/**
+	 * Only requests that never reached the server count as offline, a
+	 * request that timed out while waiting for its response may have been
+	 * applied.
+	 */
+	@Test
+	public final void onlyConnectFailuresAreOffline() {
+		assertTrue(GitHubOutbox.isOffline(createErrorStatus(new IOException(
+				"wrapped", new ConnectException()))));
+		assertTrue(GitHubOutbox.isOffline(createErrorStatus(
+				new UnknownHostException("github.com"))));
+		assertFalse(GitHubOutbox.isOffline(createErrorStatus(
+				new SocketTimeoutException("Read timed out"))));
+		assertFalse(GitHubOutbox.isOffline(createErrorStatus(new IOException(
+				"Connection reset"))));
+	}
+
+	private static GitHubSubmission create(String title) {
+		GitHubIssue issue = issue(null, title);
+		return new GitHubSubmission(issue, true, false, null, null,
+				NO_COMMENTS);
+	}
+
+	private static GitHubIssue issue(String number, String title) {
+		GitHubIssue issue = new GitHubIssue();
+		issue.setNumber(number);
+		issue.setTitle(title);
+		issue.setBody("Body");
+		issue.setLabels(Arrays.asList("bug"));
+		return issue;
+	}
+
+}
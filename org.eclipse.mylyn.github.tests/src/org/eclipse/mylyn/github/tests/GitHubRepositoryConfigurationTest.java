@@ -0,0 +1,78 @@
+package org.eclipse.mylyn.github.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.mylyn.github.internal.GitHubRepositoryConfiguration;
+import org.eclipse.mylyn.github.tests.server.StubGitHubServer;
+import org.eclipse.mylyn.github.tests.server.StubServerTestCase;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Test that repository labels are read once and shared.
+ */
+@RunWith(JUnit4.class)
+public class GitHubRepositoryConfigurationTest extends StubServerTestCase {
+
+	/**
+	 * Add labeled issues.
+	 */
+	@Override
+	protected void populate(StubGitHubServer stubServer) {
+		stubServer.generateIssues(2, 0);
+		stubServer.getIssue("1").setLabels(Arrays.asList("ui", "bug"));
+		stubServer.getIssue("2").setLabels(Arrays.asList("core"));
+	}
+
+	/**
+	 * Concurrent readers share one request until the labels are refreshed.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public final void labelsAreReadOnce() throws Exception {
+		final GitHubRepositoryConfiguration configuration = GitHubRepositoryConfiguration
+				.get(repository);
+		assertSame(configuration, GitHubRepositoryConfiguration
+				.get(repository));
+
+		ExecutorService readers = Executors.newFixedThreadPool(8);
+		try {
+			Callable<List<String>> read = new Callable<List<String>>() {
+
+				public List<String> call() throws Exception {
+					return configuration.getLabels(repository);
+				}
+			};
+			Future<?>[] reads = new Future<?>[8];
+			for (int i = 0; i < reads.length; i++) {
+				reads[i] = readers.submit(read);
+			}
+			for (Future<?> future : reads) {
+				assertEquals(Arrays.asList("bug", "core", "ui"), future.get());
+			}
+		} finally {
+			readers.shutdownNow();
+		}
+		assertEquals(1, server.getRequestCount("issues/labels"));
+		assertFalse(configuration.isStale());
+		assertEquals(Arrays.asList("bug", "core", "ui"),
+				configuration.getLabels());
+
+		server.getIssue("2").setLabels(Arrays.asList("core", "docs"));
+		assertEquals(3, configuration.getLabels(repository).size());
+		assertEquals(4, configuration.refresh(repository).size());
+		assertEquals(2, server.getRequestCount("issues/labels"));
+	}
+
+}
@@ -0,0 +1,348 @@
+package org.eclipse.mylyn.github.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.mylyn.github.internal.GitHub;
+import org.eclipse.mylyn.github.internal.GitHubIssueStore;
+import org.eclipse.mylyn.github.internal.GitHubRepositoryConnector;
+import org.eclipse.mylyn.github.tests.server.StubGitHubServer;
+import org.eclipse.mylyn.github.tests.server.StubServerTestCase;
+import org.eclipse.mylyn.internal.tasks.core.RepositoryQuery;
+import org.eclipse.mylyn.internal.tasks.core.TaskTask;
+import org.eclipse.mylyn.internal.tasks.core.sync.SynchronizationSession;
+import org.eclipse.mylyn.tasks.core.ITask;
+import org.eclipse.mylyn.tasks.core.data.TaskAttribute;
+import org.eclipse.mylyn.tasks.core.data.TaskData;
+import org.eclipse.mylyn.tasks.core.data.TaskDataCollector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Test the requests issued by the repository connector, using a local stub
+ * server.
+ */
+@SuppressWarnings("restriction")
+@RunWith(JUnit4.class)
+public class GitHubRepositoryConnectorTest extends StubServerTestCase {
+
+	private static final int NUMBER_OF_ISSUES = 800;
+	private static final int NUMBER_OF_COMMENTS = 3;
+
+	private GitHubRepositoryConnector connector;
+
+	/**
+	 * Add issues with comments.
+	 */
+	@Override
+	protected void populate(StubGitHubServer stubServer) {
+		stubServer.generateIssues(NUMBER_OF_ISSUES, NUMBER_OF_COMMENTS);
+	}
+
+	/**
+	 * Create the connector.
+	 */
+	@Before
+	public final void setUp() {
+		connector = new GitHubRepositoryConnector();
+	}
+
+	/**
+	 * Clear the issues stored for the stub server.
+	 */
+	@After
+	public final void tearDown() {
+		GitHubIssueStore.get(repository).clear();
+	}
+
+	/**
+	 * A query only fetches the issue lists, comments are not fetched for
+	 * partial task data.
+	 */
+	@Test
+	public final void performQueryDoesNotFetchComments() {
+		List<TaskData> result = performQuery(GitHub.TASK_STATUS_ALL);
+
+		assertEquals(NUMBER_OF_ISSUES, result.size());
+		assertEquals(2, server.getRequestCount("issues/list"));
+		assertEquals(0, server.getRequestCount("issues/comments"));
+		assertEquals(2, server.getRequestCount());
+		for (TaskData taskData : result) {
+			assertTrue(taskData.isPartial());
+			assertNull(taskData.getRoot().getAttribute(
+					TaskAttribute.PREFIX_COMMENT + 0));
+		}
+	}
+
+	/**
+	 * The open and closed lists are fetched concurrently but the open issues
+	 * are still collected first.
+	 */
+	@Test
+	public final void performQueryKeepsListOrder() {
+		List<TaskData> result = performQuery(GitHub.TASK_STATUS_ALL);
+
+		assertEquals(NUMBER_OF_ISSUES, result.size());
+		for (int i = 0; i < NUMBER_OF_ISSUES; i++) {
+			assertEquals(Integer.toString(i + 1), result.get(i).getTaskId());
+		}
+	}
+
+	/**
+	 * A query repeated shortly after is answered from the issue store.
+	 */
+	@Test
+	public final void repeatedQueryIsAnsweredFromStore() {
+		performQuery(GitHub.TASK_STATUS_ALL);
+		List<TaskData> result = performQuery(GitHub.TASK_STATUS_OPEN);
+
+		assertEquals(NUMBER_OF_ISSUES / 2, result.size());
+		assertEquals(2, server.getRequestCount("issues/list"));
+	}
+
+	/**
+	 * A list query keeps the validators of the lists, so an outdated list is
+	 * revalidated instead of downloaded again.
+	 */
+	@Test
+	public final void listQueryKeepsValidators() {
+		performQuery(GitHub.TASK_STATUS_ALL);
+		GitHubIssueStore store = GitHubIssueStore.get(repository);
+		assertNotNull(store.getValidators(GitHub.TASK_STATUS_OPEN));
+		assertNotNull(store.getValidators(GitHub.TASK_STATUS_CLOSED));
+		store.invalidate();
+
+		List<TaskData> result = performQuery(GitHub.TASK_STATUS_ALL);
+
+		assertEquals(NUMBER_OF_ISSUES, result.size());
+		assertEquals(4, server.getRequestCount("issues/list"));
+		assertEquals(2, server.getNotModifiedCount());
+		assertTrue(store.getRefreshTime(GitHub.TASK_STATUS_OPEN) > 0);
+		assertTrue(store.getRefreshTime(GitHub.TASK_STATUS_CLOSED) > 0);
+	}
+
+	/**
+	 * Text queries are answered from the word index of the store, matching
+	 * words by prefix.
+	 */
+	@Test
+	public final void textQueryIsAnsweredFromStore() {
+		performQuery(GitHub.TASK_STATUS_ALL);
+		List<TaskData> result = performQuery(GitHub.TASK_STATUS_ALL,
+				"issue 77");
+
+		assertEquals(11, result.size());
+		assertEquals("77", result.get(0).getTaskId());
+		assertEquals("770", result.get(1).getTaskId());
+		assertEquals(2, server.getRequestCount("issues/list"));
+		assertEquals(0, server.getRequestCount("issues/search"));
+	}
+
+	/**
+	 * Comments are fetched again only when the issue was updated.
+	 *
+	 * @throws CoreException
+	 */
+	@Test
+	public final void storedCommentsAreReused() throws CoreException {
+		connector.getTaskData(repository, "1", new NullProgressMonitor());
+		TaskData taskData = connector.getTaskData(repository, "1",
+				new NullProgressMonitor());
+
+		assertEquals(2, server.getRequestCount("issues/show"));
+		assertEquals(1, server.getRequestCount("issues/comments"));
+		assertNotNull(taskData.getRoot().getAttribute(
+				TaskAttribute.PREFIX_COMMENT + 0));
+	}
+
+	/**
+	 * Full task data fetches the issue and its comments.
+	 *
+	 * @throws CoreException
+	 */
+	@Test
+	public final void getTaskDataFetchesComments() throws CoreException {
+		TaskData taskData = connector.getTaskData(repository, "1",
+				new NullProgressMonitor());
+
+		assertFalse(taskData.isPartial());
+		assertEquals(1, server.getRequestCount("issues/show"));
+		assertEquals(1, server.getRequestCount("issues/comments"));
+		for (int i = 0; i < NUMBER_OF_COMMENTS; i++) {
+			assertNotNull(taskData.getRoot().getAttribute(
+					TaskAttribute.PREFIX_COMMENT + i));
+		}
+	}
+
+	/**
+	 * Multiple tasks are retrieved with their comments, and tasks that can
+	 * not be retrieved are reported as failed.
+	 *
+	 * @throws CoreException
+	 */
+	@Test
+	public final void getMultiTaskDataFetchesAllTasks() throws CoreException {
+		Set<String> taskIds = new HashSet<String>();
+		for (int i = 1; i <= 50; i++) {
+			taskIds.add(Integer.toString(i));
+		}
+		taskIds.add("unknown");
+		final List<TaskData> result = new ArrayList<TaskData>();
+		final List<String> failed = new ArrayList<String>();
+		connector.getTaskDataHandler().getMultiTaskData(repository, taskIds,
+				new TaskDataCollector() {
+					@Override
+					public void accept(TaskData taskData) {
+						result.add(taskData);
+					}
+
+					@Override
+					public void failed(String taskId, IStatus status) {
+						failed.add(taskId);
+					}
+				}, new NullProgressMonitor());
+
+		assertEquals(50, result.size());
+		assertEquals(Collections.singletonList("unknown"), failed);
+		assertEquals(51, server.getRequestCount("issues/show"));
+		assertEquals(50, server.getRequestCount("issues/comments"));
+		for (TaskData taskData : result) {
+			assertFalse(taskData.isPartial());
+			assertNotNull(taskData.getRoot().getAttribute(
+					TaskAttribute.PREFIX_COMMENT + 0));
+		}
+	}
+
+	/**
+	 * The first full synchronization marks every task stale, the next one
+	 * finds nothing changed and skips the queries.
+	 *
+	 * @throws CoreException
+	 */
+	@Test
+	public final void unchangedIssuesAreNotStale() throws CoreException {
+		Set<ITask> tasks = createTasks("1", "2", "800");
+		SynchronizationSession first = synchronize(tasks);
+
+		assertEquals(tasks, first.getStaleTasks());
+		assertNotNull(repository.getSynchronizationTimeStamp());
+
+		SynchronizationSession second = synchronize(tasks);
+
+		assertTrue(second.getStaleTasks().isEmpty());
+		assertFalse(second.needsPerformQueries());
+		assertEquals(2, server.getNotModifiedCount());
+	}
+
+	/**
+	 * Only tasks of issues updated since the last synchronization are stale,
+	 * including an issue updated within the second of the high-water mark.
+	 *
+	 * @throws CoreException
+	 */
+	@Test
+	public final void onlyChangedIssuesAreStale() throws CoreException {
+		server.getIssue("2").setUpdatedAt("2011/01/01 12:00:00 -0800");
+		Set<ITask> tasks = createTasks("1", "2", "3", "800");
+		synchronize(tasks);
+		String mark = repository.getSynchronizationTimeStamp();
+
+		server.getIssue("2").setUpdatedAt("2011/01/02 10:00:00 -0800");
+		server.getIssue("3").setUpdatedAt("2011/01/03 10:00:00 -0800");
+		SynchronizationSession session = synchronize(tasks);
+
+		Set<String> staleTaskIds = new HashSet<String>();
+		for (ITask task : session.getStaleTasks()) {
+			staleTaskIds.add(task.getTaskId());
+		}
+		assertEquals(new HashSet<String>(Arrays.asList("2", "3")),
+				staleTaskIds);
+		assertTrue(session.needsPerformQueries());
+		assertFalse(mark.equals(repository.getSynchronizationTimeStamp()));
+	}
+
+	/**
+	 * The high-water mark is not stored when the synchronization failed, so
+	 * the next one looks at the same changes again.
+	 *
+	 * @throws CoreException
+	 */
+	@Test
+	public final void markIsNotStoredWhenSessionFails() throws CoreException {
+		SynchronizationSession session = createSession(createTasks("1"));
+		connector.preSynchronization(session, new NullProgressMonitor());
+		session.setStatus(new Status(IStatus.ERROR, GitHub.BUNDLE_ID,
+				"Synchronization failed"));
+		connector.postSynchronization(session, new NullProgressMonitor());
+
+		assertNotNull(session.getData());
+		assertNull(repository.getSynchronizationTimeStamp());
+	}
+
+	private Set<ITask> createTasks(String... taskIds) {
+		Set<ITask> tasks = new HashSet<ITask>();
+		for (String taskId : taskIds) {
+			tasks.add(new TaskTask(GitHub.CONNECTOR_KIND, repository
+					.getRepositoryUrl(), taskId));
+		}
+		return tasks;
+	}
+
+	private SynchronizationSession createSession(Set<ITask> tasks) {
+		SynchronizationSession session = new SynchronizationSession();
+		session.setTaskRepository(repository);
+		session.setTasks(tasks);
+		session.setFullSynchronization(true);
+		session.setNeedsPerformQueries(true);
+		return session;
+	}
+
+	private SynchronizationSession synchronize(Set<ITask> tasks)
+			throws CoreException {
+		SynchronizationSession session = createSession(tasks);
+		connector.preSynchronization(session, new NullProgressMonitor());
+		connector.postSynchronization(session, new NullProgressMonitor());
+		return session;
+	}
+
+	private List<TaskData> performQuery(String status) {
+		return performQuery(status, null);
+	}
+
+	private List<TaskData> performQuery(String status, String filter) {
+		RepositoryQuery query = new RepositoryQuery(GitHub.CONNECTOR_KIND,
+				"test");
+		query.setAttribute(GitHub.TASK_STATUS, status);
+		if (filter != null) {
+			query.setAttribute(GitHub.QUERY_TEXT_ATTRIBUTE, filter);
+		}
+		final List<TaskData> result = new ArrayList<TaskData>();
+		IStatus queryStatus = connector.performQuery(repository, query,
+				new TaskDataCollector() {
+					@Override
+					public void accept(TaskData taskData) {
+						result.add(taskData);
+					}
+				}, null, new NullProgressMonitor());
+		assertTrue(queryStatus.isOK());
+		return result;
+	}
+
+}
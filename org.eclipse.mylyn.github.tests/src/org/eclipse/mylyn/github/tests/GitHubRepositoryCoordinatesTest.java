@@ -0,0 +1,82 @@
+package org.eclipse.mylyn.github.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.eclipse.mylyn.github.internal.GitHub;
+import org.eclipse.mylyn.github.internal.GitHubRepositoryCoordinates;
+import org.eclipse.mylyn.github.internal.GitHubRepositoryUrlBuilder;
+import org.eclipse.mylyn.tasks.core.TaskRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Test the parsed coordinates of a repository and the task URL parsing.
+ */
+@RunWith(JUnit4.class)
+public class GitHubRepositoryCoordinatesTest {
+
+	/**
+	 * Coordinates are parsed once per repository and build the request
+	 * URIs of its endpoints.
+	 */
+	@Test
+	public final void coordinatesAreParsedOnce() {
+		TaskRepository repository = new TaskRepository(GitHub.CONNECTOR_KIND,
+				GitHubRepositoryUrlBuilder.buildGitHubUrl("foo", "bar"));
+		GitHubRepositoryCoordinates coordinates = GitHubRepositoryCoordinates
+				.get(repository);
+
+		assertSame(coordinates, GitHubRepositoryCoordinates.get(repository));
+		assertEquals("foo", coordinates.getUser());
+		assertEquals("bar", coordinates.getProject());
+		assertEquals(GitHub.API_URL_BASE, coordinates.getApiUrlBase());
+		assertEquals(GitHub.API_URL_BASE + "issues/show/foo/bar",
+				coordinates.getEndpointUri(GitHub.SHOW));
+		assertEquals(GitHub.API_URL_BASE + "issues/label/add/foo/bar",
+				coordinates.getEndpointUri(GitHub.ADD_LABEL));
+		assertEquals(GitHub.API_URL_BASE + "issues/other/foo/bar",
+				coordinates.getEndpointUri("other/"));
+	}
+
+	/**
+	 * A repository with its own API root gets its own coordinates.
+	 */
+	@Test
+	public final void apiUrlIsRespected() {
+		TaskRepository repository = new TaskRepository(GitHub.CONNECTOR_KIND,
+				GitHubRepositoryUrlBuilder.buildGitHubUrl("foo", "baz"));
+		repository.setProperty(GitHub.API_URL_PROPERTY,
+				"http://localhost:1/api/v2/json");
+		GitHubRepositoryCoordinates coordinates = GitHubRepositoryCoordinates
+				.get(repository);
+
+		assertEquals("http://localhost:1/api/v2/json/", coordinates
+				.getApiUrlBase());
+		assertEquals("http://localhost:1/api/v2/json/issues/list/foo/baz",
+				coordinates.getEndpointUri(GitHub.LIST));
+	}
+
+	/**
+	 * Task URLs are split into repository URL and task id.
+	 */
+	@Test
+	public final void taskUrlsAreParsed() {
+		String repositoryUrl = GitHubRepositoryUrlBuilder.buildGitHubUrl(
+				"foo", "bar");
+		String taskUrl = GitHubRepositoryUrlBuilder.obtainTaskUrl(
+				repositoryUrl, "42");
+
+		assertEquals(repositoryUrl, GitHubRepositoryUrlBuilder
+				.obtainRepositoryUrlFromTaskUrl(taskUrl));
+		assertEquals("42", GitHubRepositoryUrlBuilder
+				.obtainTaskIdFromTaskUrl(taskUrl));
+		assertNull(GitHubRepositoryUrlBuilder
+				.obtainTaskIdFromTaskUrl(repositoryUrl));
+		assertNull(GitHubRepositoryUrlBuilder
+				.obtainRepositoryUrlFromTaskUrl(null));
+	}
+
+}
@@ -0,0 +1,137 @@
+package org.eclipse.mylyn.github.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.eclipse.mylyn.github.internal.GitHubRequestScheduler;
+import org.eclipse.mylyn.github.internal.GitHubServiceException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Test the pacing and retry decisions of the request scheduler.
+ */
+@RunWith(JUnit4.class)
+public class GitHubRequestSchedulerTest {
+
+	private GitHubRequestScheduler scheduler;
+
+	/**
+	 * Create a scheduler without quota.
+	 */
+	@Before
+	public final void setUp() {
+		scheduler = new GitHubRequestScheduler();
+	}
+
+	/**
+	 * Requests are not delayed until the server reports a quota.
+	 */
+	@Test
+	public final void requestsAreNotDelayedWithoutQuota() {
+		for (int i = 0; i < 100; i++) {
+			assertEquals(0, scheduler.reserve());
+		}
+		assertEquals(-1, scheduler.getRateLimitRemaining());
+	}
+
+	/**
+	 * The remaining quota is spread over the rest of the window.
+	 */
+	@Test
+	public final void remainingQuotaIsSpread() {
+		long reset = System.currentTimeMillis() / 1000 + 10;
+		scheduler.update("60", "5", Long.toString(reset));
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals(0, scheduler.reserve());
+		}
+		long wait = scheduler.reserve();
+		assertTrue(wait > 1000);
+		assertTrue(wait <= 2000);
+		assertEquals(60, scheduler.getRateLimit());
+		assertEquals(5, scheduler.getRateLimitRemaining());
+	}
+
+	/**
+	 * An exhausted quota holds back requests until the window is reset.
+	 */
+	@Test
+	public final void exhaustedQuotaHoldsBackRequests() {
+		long reset = System.currentTimeMillis() / 1000 + 30;
+		scheduler.update("60", "0", Long.toString(reset));
+
+		assertTrue(scheduler.reserve() > 28 * 1000);
+	}
+
+	/**
+	 * A request refused for waiting too long does not use up the quota.
+	 */
+	@Test
+	public final void refusedRequestsGiveBackTheirToken() {
+		long reset = System.currentTimeMillis() / 1000 + 600;
+		scheduler.update("60", "2", Long.toString(reset));
+		assertEquals(0, scheduler.reserve());
+		assertEquals(0, scheduler.reserve());
+
+		for (int i = 0; i < 2; i++) {
+			try {
+				scheduler.acquire();
+				fail("Request was not refused");
+			} catch (GitHubServiceException e) {
+				// expected
+			}
+		}
+		assertTrue(scheduler.reserve() <= 300 * 1000);
+		assertEquals(0, scheduler.getRequestCount());
+	}
+
+	/**
+	 * Retry-After accepts seconds and dates.
+	 */
+	@Test
+	public final void retryAfterIsParsed() {
+		assertEquals(120 * 1000, GitHubRequestScheduler.parseRetryAfter("120"));
+		assertEquals(0, GitHubRequestScheduler
+				.parseRetryAfter("Thu, 01 Jan 1970 00:00:00 GMT"));
+		assertEquals(-1, GitHubRequestScheduler.parseRetryAfter("soon"));
+		assertEquals(-1, GitHubRequestScheduler.parseRetryAfter(null));
+	}
+
+	/**
+	 * The backoff grows with every attempt and keeps its jitter within
+	 * bounds.
+	 */
+	@Test
+	public final void backoffGrowsWithJitter() {
+		long previousMax = 0;
+		for (int attempt = 0; attempt < 5; attempt++) {
+			long max = 500L << attempt;
+			for (int i = 0; i < 20; i++) {
+				long delay = scheduler.getBackoffDelay(attempt);
+				assertTrue(delay >= max / 2);
+				assertTrue(delay <= max);
+			}
+			assertTrue(max > previousMax);
+			previousMax = max;
+		}
+	}
+
+	/**
+	 * Server errors and exceeded rate limits are retried, client errors are
+	 * not.
+	 */
+	@Test
+	public final void onlyTransientFailuresAreRetried() {
+		assertTrue(GitHubRequestScheduler.isRetryable(503, null));
+		assertTrue(GitHubRequestScheduler.isRetryable(403, "0"));
+		assertFalse(GitHubRequestScheduler.isRetryable(403, "10"));
+		assertFalse(GitHubRequestScheduler.isRetryable(403, null));
+		assertFalse(GitHubRequestScheduler.isRetryable(404, null));
+	}
+
+}
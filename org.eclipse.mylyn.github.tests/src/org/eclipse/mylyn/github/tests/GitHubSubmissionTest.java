@@ -0,0 +1,114 @@
+package org.eclipse.mylyn.github.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.eclipse.mylyn.github.internal.GitHub;
+import org.eclipse.mylyn.github.internal.GitHubIssue;
+import org.eclipse.mylyn.github.internal.GitHubSubmission;
+import org.eclipse.mylyn.github.internal.GitHubTaskOperation;
+import org.eclipse.mylyn.github.tests.server.StubGitHubServer;
+import org.eclipse.mylyn.github.tests.server.StubServerTestCase;
+import org.eclipse.mylyn.tasks.core.RepositoryResponse;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Count the requests of planned submissions against a local stub server.
+ */
+@RunWith(JUnit4.class)
+public class GitHubSubmissionTest extends StubServerTestCase {
+
+	/**
+	 * Add one open and one closed issue, both labeled.
+	 */
+	@Override
+	protected void populate(StubGitHubServer stubServer) {
+		stubServer.generateIssues(2, 0);
+		stubServer.getIssue("1").setLabels(Arrays.asList("bug"));
+		stubServer.getIssue("2").setLabels(Arrays.asList("bug"));
+	}
+
+	/**
+	 * Closing with a comment sends the transition and the comment only.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public final void closeWithComment() throws Exception {
+		GitHubIssue issue = copy(server.getIssue("1"));
+		GitHubSubmission submission = new GitHubSubmission(issue, false,
+				false, GitHubTaskOperation.CLOSE, null, "Fixed");
+		assertEquals(2, submission.getRequestCount());
+
+		RepositoryResponse response = submission.execute(repository,
+				executor);
+
+		assertEquals("1", response.getTaskId());
+		assertEquals(2, server.getRequestCount());
+		assertEquals(1, server.getRequestCount("issues/close"));
+		assertEquals(1, server.getRequestCount("issues/comment"));
+		assertEquals(0, server.getRequestCount("issues/edit"));
+		assertEquals(GitHub.TASK_STATUS_CLOSED, server.getIssue("1")
+				.getState());
+	}
+
+	/**
+	 * An edit with a reopen and a changed label sends each change once and
+	 * skips the blank comment.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public final void editReopenAndLabel() throws Exception {
+		GitHubIssue issue = copy(server.getIssue("2"));
+		issue.setTitle("Renamed");
+		issue.setLabels(Arrays.asList("bug", "ui"));
+		GitHubSubmission submission = new GitHubSubmission(issue, false, true,
+				GitHubTaskOperation.REOPEN, Collections.singletonList("bug"),
+				"  ");
+		assertEquals(2, submission.getRequestCount());
+
+		submission.execute(repository, executor);
+
+		assertEquals(3, server.getRequestCount());
+		assertEquals(1, server.getRequestCount("issues/edit"));
+		assertEquals(1, server.getRequestCount("issues/reopen"));
+		assertEquals(1, server.getRequestCount("issues/label/add"));
+		GitHubIssue saved = server.getIssue("2");
+		assertEquals("Renamed", saved.getTitle());
+		assertEquals(GitHub.TASK_STATUS_OPEN, saved.getState());
+		assertEquals(Arrays.asList("bug", "ui"), saved.getLabels());
+	}
+
+	/**
+	 * Merged submissions add a comment sent again by a later submission only
+	 * once.
+	 */
+	@Test
+	public final void mergeAddsRepeatedCommentsOnce() {
+		GitHubIssue issue = copy(server.getIssue("1"));
+		GitHubSubmission earlier = new GitHubSubmission(issue, false, false,
+				null, null, "First");
+		GitHubSubmission later = new GitHubSubmission(issue, false, false,
+				null, null, Arrays.asList("First", "Second"));
+
+		assertEquals(2, GitHubSubmission.merge(earlier, later)
+				.getRequestCount());
+	}
+
+	private static GitHubIssue copy(GitHubIssue source) {
+		GitHubIssue issue = new GitHubIssue();
+		issue.setNumber(source.getNumber());
+		issue.setTitle(source.getTitle());
+		issue.setBody(source.getBody());
+		issue.setState(source.getState());
+		issue.setUser(source.getUser());
+		issue.setLabels(source.getLabels());
+		return issue;
+	}
+
+}
@@ -0,0 +1,180 @@
+package org.eclipse.mylyn.github.tests.perf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.mylyn.github.internal.GitHub;
+import org.eclipse.mylyn.github.internal.GitHubCommentsService;
+import org.eclipse.mylyn.github.internal.GitHubIssueService;
+import org.eclipse.mylyn.github.internal.GitHubService;
+import org.eclipse.mylyn.github.internal.GitHubServiceException;
+import org.eclipse.mylyn.github.internal.GitHubTransport;
+import org.eclipse.mylyn.github.tests.server.StubGitHubServer;
+import org.eclipse.mylyn.tasks.core.TaskRepository;
+
+/**
+ * <p>
+ * Reproduces the synchronization load of a team on the
+ * {@link StubGitHubServer}: several clients concurrently query the open and
+ * closed issues and then read a few stale issues with their comments.
+ * </p>
+ * <p>
+ * The server answers with a latency of 20 to 80 ms, fails 1% of the
+ * requests and enforces a rate limit, so retries and pacing are part of the
+ * measurement. The number of issues and clients can be passed as arguments.
+ * Not part of the test suite, run it as a Java application.
+ * </p>
+ */
+public final class GitHubSyncLoadBenchmark {
+
+	private static final int DEFAULT_ISSUES = 5000;
+	private static final int DEFAULT_CLIENTS = 8;
+	private static final int COMMENTS_PER_ISSUE = 2;
+	private static final int SYNCHRONIZATIONS = 5;
+	private static final int STALE_ISSUES = 20;
+	private static final long MIN_LATENCY = 20;
+	private static final long MAX_LATENCY = 80;
+	private static final double ERROR_RATE = 0.01;
+	private static final int RATE_LIMIT = 5000;
+	private static final long RATE_LIMIT_WINDOW = 60 * 1000L;
+
+	private GitHubSyncLoadBenchmark() {
+
+	}
+
+	/**
+	 * Run the benchmark.
+	 *
+	 * @param args
+	 *            - optional number of issues and number of clients
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		final int issues = args.length > 0 ? Integer.parseInt(args[0])
+				: DEFAULT_ISSUES;
+		int clients = args.length > 1 ? Integer.parseInt(args[1])
+				: DEFAULT_CLIENTS;
+
+		StubGitHubServer server = new StubGitHubServer();
+		server.generateIssues(issues, COMMENTS_PER_ISSUE);
+		server.setLatency(MIN_LATENCY, MAX_LATENCY);
+		server.setErrorRate(ERROR_RATE);
+		server.setRateLimit(RATE_LIMIT, RATE_LIMIT_WINDOW);
+		server.start();
+		ExecutorService executor = Executors.newFixedThreadPool(clients);
+		try {
+			final TaskRepository repository = server.createRepository("foo",
+					"bar");
+			List<Future<long[]>> results = new ArrayList<Future<long[]>>();
+			long start = System.nanoTime();
+			for (int c = 0; c < clients; c++) {
+				final int seed = c;
+				results.add(executor.submit(new Callable<long[]>() {
+
+					public long[] call() {
+						return synchronize(repository, issues, new Random(seed));
+					}
+				}));
+			}
+			List<Long> latencies = new ArrayList<Long>();
+			for (Future<long[]> result : results) {
+				for (long latency : result.get()) {
+					latencies.add(Long.valueOf(latency));
+				}
+			}
+			long time = System.nanoTime() - start;
+			report(server, repository, clients, issues, latencies, time);
+		} finally {
+			executor.shutdownNow();
+			server.stop();
+		}
+	}
+
+	/**
+	 * Synchronize a client several times.
+	 *
+	 * @return latency of every request in nanoseconds, -1 for failures
+	 */
+	private static long[] synchronize(TaskRepository repository, int issues,
+			Random random) {
+		GitHubIssueService issueService = GitHubService
+				.getIssueService(repository);
+		GitHubCommentsService commentsService = GitHubService
+				.getCommentsService(repository);
+		long[] latencies = new long[SYNCHRONIZATIONS * (2 + 2 * STALE_ISSUES)];
+		int request = 0;
+		for (int s = 0; s < SYNCHRONIZATIONS; s++) {
+			for (String state : new String[] { GitHub.TASK_STATUS_OPEN,
+					GitHub.TASK_STATUS_CLOSED }) {
+				long start = System.nanoTime();
+				try {
+					issueService.getFilteredIssues(null, state);
+					latencies[request++] = System.nanoTime() - start;
+				} catch (GitHubServiceException e) {
+					latencies[request++] = -1;
+				}
+			}
+			for (int i = 0; i < STALE_ISSUES; i++) {
+				String number = Integer.toString(random.nextInt(issues) + 1);
+				long start = System.nanoTime();
+				try {
+					issueService.retrieve(number);
+					latencies[request++] = System.nanoTime() - start;
+				} catch (GitHubServiceException e) {
+					latencies[request++] = -1;
+				}
+				start = System.nanoTime();
+				try {
+					commentsService.retrieve(number);
+					latencies[request++] = System.nanoTime() - start;
+				} catch (GitHubServiceException e) {
+					latencies[request++] = -1;
+				}
+			}
+		}
+		return latencies;
+	}
+
+	private static void report(StubGitHubServer server,
+			TaskRepository repository, int clients, int issues,
+			List<Long> latencies, long time) {
+		int failures = 0;
+		long[] succeeded = new long[latencies.size()];
+		int count = 0;
+		for (Long latency : latencies) {
+			if (latency.longValue() < 0) {
+				failures++;
+			} else {
+				succeeded[count++] = latency.longValue();
+			}
+		}
+		succeeded = Arrays.copyOf(succeeded, count);
+		Arrays.sort(succeeded);
+
+		System.out.println(clients + " clients, " + issues + " issues, "
+				+ latencies.size() + " calls in " + time / 1000000 + " ms");
+		System.out.println("  throughput: " + latencies.size() * 1000000000L
+				/ time + " calls/s");
+		if (count > 0) {
+			System.out.println("  p50:  " + succeeded[count / 2] / 1000000
+					+ " ms/call");
+			System.out.println("  p99:  " + succeeded[count * 99 / 100]
+					/ 1000000 + " ms/call");
+		}
+		System.out.println("  failed calls: " + failures);
+		System.out.println("  server: " + server.getRequestCount()
+				+ " requests served, " + server.getNotModifiedCount()
+				+ " not modified, " + server.getInjectedErrorCount()
+				+ " errors injected, " + server.getRateLimitedCount()
+				+ " rate limited");
+		System.out.println("  transfer: "
+				+ GitHubTransport.get(repository).getStatistics());
+	}
+
+}
@@ -0,0 +1,914 @@
+package org.eclipse.mylyn.github.tests.server;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.mylyn.commons.net.AuthenticationCredentials;
+import org.eclipse.mylyn.commons.net.AuthenticationType;
+import org.eclipse.mylyn.github.internal.GitHub;
+import org.eclipse.mylyn.github.internal.GitHubComment;
+import org.eclipse.mylyn.github.internal.GitHubIssue;
+import org.eclipse.mylyn.github.internal.GitHubRepositoryUrlBuilder;
+import org.eclipse.mylyn.tasks.core.TaskRepository;
+
+import com.google.gson.Gson;
+
+/**
+ * <p>
+ * Embeddable HTTP server answering the GitHub API v2 issue, label and user
+ * endpoints from an in-memory data set, so the connector can be exercised
+ * without network access.
+ * </p>
+ * <p>
+ * To reproduce production load the server can delay its responses, fail a
+ * share of the requests and enforce a rate limit, announced with the
+ * <code>X-RateLimit-*</code> headers GitHub sends. Random decisions use a
+ * fixed seed, so single threaded runs are repeatable.
+ * </p>
+ */
+public class StubGitHubServer {
+
+	/**
+	 * Path of the API root on the server.
+	 */
+	public static final String API_PATH = "/api/v2/json/";
+
+	private static final String CHARSET = "UTF-8";
+	private static final String CRLF = "\r\n";
+	private static final int WORKER_THREADS = 16;
+
+	private final Gson gson = new Gson();
+	private final ServerSocket serverSocket;
+	private final ExecutorService workers;
+	private final Map<String, GitHubIssue> issues = Collections
+			.synchronizedMap(new LinkedHashMap<String, GitHubIssue>());
+	private final Map<String, List<GitHubComment>> comments = new ConcurrentHashMap<String, List<GitHubComment>>();
+	private final ConcurrentMap<String, AtomicInteger> requestCounts = new ConcurrentHashMap<String, AtomicInteger>();
+	private final AtomicInteger totalRequests = new AtomicInteger();
+	private final AtomicInteger notModifiedResponses = new AtomicInteger();
+	private final Set<String> failingLabels = Collections
+			.synchronizedSet(new HashSet<String>());
+	private final AtomicInteger injectedErrors = new AtomicInteger();
+	private final AtomicInteger rateLimitedResponses = new AtomicInteger();
+	private final AtomicInteger exposedCredentials = new AtomicInteger();
+	private final Random random = new Random(0);
+	private volatile boolean running;
+
+	private volatile long minLatency;
+	private volatile long maxLatency;
+	private volatile double errorRate;
+
+	private final Object rateLimitLock = new Object();
+	private int rateLimit;
+	private long rateLimitWindow;
+	private long windowStart;
+	private int windowRequests;
+
+	/**
+	 * Create a server bound to a free port of the loopback interface.
+	 *
+	 * @throws IOException
+	 */
+	public StubGitHubServer() throws IOException {
+		serverSocket = new ServerSocket(0, 0, InetAddress.getByName(null));
+		workers = Executors.newFixedThreadPool(WORKER_THREADS);
+	}
+
+	/**
+	 * Start accepting connections.
+	 */
+	public void start() {
+		running = true;
+		Thread acceptor = new Thread("GitHub stub server") {
+			@Override
+			public void run() {
+				while (running) {
+					try {
+						final Socket socket = serverSocket.accept();
+						workers.execute(new Runnable() {
+							public void run() {
+								serve(socket);
+							}
+						});
+					} catch (IOException e) {
+						// socket closed by stop()
+					}
+				}
+			}
+		};
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * Stop the server and close all connections.
+	 */
+	public void stop() {
+		running = false;
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			// ignore
+		}
+		workers.shutdownNow();
+		try {
+			workers.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return the API root served by this server
+	 */
+	public String getApiUrl() {
+		return "http://127.0.0.1:" + serverSocket.getLocalPort() + API_PATH;
+	}
+
+	/**
+	 * Create a task repository whose services talk to this server.
+	 *
+	 * @param user
+	 * @param project
+	 * @return task repository
+	 */
+	public TaskRepository createRepository(String user, String project) {
+		TaskRepository repository = new TaskRepository(GitHub.CONNECTOR_KIND,
+				GitHubRepositoryUrlBuilder.buildGitHubUrl(user, project));
+		repository.setProperty(GitHub.API_URL_PROPERTY, getApiUrl());
+		repository.setCredentials(AuthenticationType.REPOSITORY,
+				new AuthenticationCredentials(user, "token"), false);
+		return repository;
+	}
+
+	/**
+	 * Add an issue and its comments to the data set.
+	 *
+	 * @param issue
+	 * @param issueComments
+	 */
+	public void addIssue(GitHubIssue issue, GitHubComment... issueComments) {
+		issues.put(issue.getNumber(), issue);
+		List<GitHubComment> list = new ArrayList<GitHubComment>();
+		Collections.addAll(list, issueComments);
+		comments.put(issue.getNumber(), list);
+	}
+
+	/**
+	 * Fill the data set with generated issues, the first half open and the
+	 * other half closed.
+	 *
+	 * @param count
+	 *            - number of issues
+	 * @param commentsPerIssue
+	 *            - number of comments of every issue
+	 */
+	public void generateIssues(int count, int commentsPerIssue) {
+		for (int i = 1; i <= count; i++) {
+			String number = Integer.toString(i);
+			GitHubIssue issue = new GitHubIssue();
+			issue.setNumber(number);
+			issue.setUser("user" + (i % 10));
+			issue.setTitle("Issue " + number);
+			issue.setBody("Generated issue " + number);
+			issue.setState(i <= (count + 1) / 2 ? GitHub.TASK_STATUS_OPEN
+					: GitHub.TASK_STATUS_CLOSED);
+			issue.setCreatedAt("2011/01/01 10:00:00 -0800");
+			issue.setUpdatedAt("2011/01/02 10:00:00 -0800");
+			issue.setComments(commentsPerIssue);
+			GitHubComment[] issueComments = new GitHubComment[commentsPerIssue];
+			for (int c = 0; c < commentsPerIssue; c++) {
+				issueComments[c] = new GitHubComment("", "user" + c,
+						"Comment " + c + " on " + number,
+						Integer.toString(i * 1000 + c),
+						"2011/01/02 10:00:00 -0800",
+						"2011/01/02 10:00:00 -0800");
+			}
+			addIssue(issue, issueComments);
+		}
+	}
+
+	/**
+	 * Delay every response by a random time within a range.
+	 *
+	 * @param min
+	 *            - minimum latency in milliseconds
+	 * @param max
+	 *            - maximum latency in milliseconds
+	 */
+	public void setLatency(long min, long max) {
+		minLatency = min;
+		maxLatency = Math.max(min, max);
+	}
+
+	/**
+	 * Answer a share of the requests with <code>503 Service
+	 * Unavailable</code> instead of serving them.
+	 *
+	 * @param rate
+	 *            - share of failed requests, from 0 for none to 1 for all
+	 */
+	public void setErrorRate(double rate) {
+		errorRate = rate;
+	}
+
+	/**
+	 * Enforce a rate limit. Every response reports the quota in the
+	 * <code>X-RateLimit-Limit</code>, <code>X-RateLimit-Remaining</code> and
+	 * <code>X-RateLimit-Reset</code> headers, and requests beyond the quota
+	 * are answered with <code>403 Forbidden</code> until the window ends.
+	 *
+	 * @param limit
+	 *            - requests per window, 0 to not limit requests
+	 * @param window
+	 *            - length of the window in milliseconds
+	 */
+	public void setRateLimit(int limit, long window) {
+		synchronized (rateLimitLock) {
+			rateLimit = limit;
+			rateLimitWindow = window;
+			windowStart = System.currentTimeMillis();
+			windowRequests = 0;
+		}
+	}
+
+	/**
+	 * Make label calls for a label fail with a server error.
+	 *
+	 * @param label
+	 */
+	public void failLabel(String label) {
+		failingLabels.add(label);
+	}
+
+	/**
+	 * Get an issue of the data set.
+	 *
+	 * @param number
+	 * @return issue, or null
+	 */
+	public GitHubIssue getIssue(String number) {
+		return issues.get(number);
+	}
+
+	/**
+	 * Get the number of requests received for an endpoint.
+	 *
+	 * @param endpoint
+	 *            - e.g. "issues/list" or "issues/label/add"
+	 * @return number of requests
+	 */
+	public int getRequestCount(String endpoint) {
+		AtomicInteger count = requestCounts.get(endpoint);
+		return count == null ? 0 : count.get();
+	}
+
+	/**
+	 * @return number of requests received for all endpoints
+	 */
+	public int getRequestCount() {
+		return totalRequests.get();
+	}
+
+	/**
+	 * @return number of requests failed by {@link #setErrorRate(double)}
+	 */
+	public int getInjectedErrorCount() {
+		return injectedErrors.get();
+	}
+
+	/**
+	 * @return number of requests refused by {@link #setRateLimit(int, long)}
+	 */
+	public int getRateLimitedCount() {
+		return rateLimitedResponses.get();
+	}
+
+	/**
+	 * @return number of requests answered with 304 Not Modified
+	 */
+	public int getNotModifiedCount() {
+		return notModifiedResponses.get();
+	}
+
+	/**
+	 * @return number of requests that carried a token in their URI
+	 */
+	public int getExposedCredentialsCount() {
+		return exposedCredentials.get();
+	}
+
+	/**
+	 * Forget all counted requests.
+	 */
+	public void resetRequestCounts() {
+		requestCounts.clear();
+		totalRequests.set(0);
+		notModifiedResponses.set(0);
+		injectedErrors.set(0);
+		rateLimitedResponses.set(0);
+		exposedCredentials.set(0);
+	}
+
+	private void serve(Socket socket) {
+		try {
+			InputStream input = new BufferedInputStream(
+					socket.getInputStream());
+			OutputStream output = socket.getOutputStream();
+			boolean keepAlive = true;
+			while (keepAlive && running) {
+				Request request = Request.read(input);
+				if (request == null) {
+					break;
+				}
+				keepAlive = !"close".equalsIgnoreCase(request
+						.getHeader("connection"));
+				Response response = respond(request).encode(
+						request.getHeader("accept-encoding"));
+				response.write(output, keepAlive);
+			}
+		} catch (SocketException e) {
+			// client went away
+		} catch (IOException e) {
+			// client went away
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	private Response respond(Request request) {
+		long latency = minLatency;
+		if (maxLatency > minLatency) {
+			synchronized (random) {
+				latency += (long) (random.nextDouble() * (maxLatency
+						- minLatency));
+			}
+		}
+		if (latency > 0) {
+			try {
+				Thread.sleep(latency);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (Request.findParameter(request.getQuery(), "token") != null) {
+			exposedCredentials.incrementAndGet();
+		}
+		long[] quota = takeQuota();
+		Response response;
+		if (quota != null && quota[1] < 0) {
+			rateLimitedResponses.incrementAndGet();
+			response = Response.json(403,
+					"{\"error\":\"API Rate Limit Exceeded\"}");
+		} else if (isInjectedError()) {
+			injectedErrors.incrementAndGet();
+			response = Response.json(503, "{\"error\":\"unavailable\"}");
+		} else {
+			response = revalidate(request, handle(request));
+		}
+		if (quota != null) {
+			response.setHeader("X-RateLimit-Limit", Long.toString(quota[0]));
+			response.setHeader("X-RateLimit-Remaining",
+					Long.toString(Math.max(0, quota[1])));
+			response.setHeader("X-RateLimit-Reset", Long.toString(quota[2]));
+		}
+		return response;
+	}
+
+	/**
+	 * Take a request from the rate limit quota.
+	 *
+	 * @return limit, remaining requests (negative if the quota is exhausted)
+	 *         and reset time in seconds, or null without rate limit
+	 */
+	private long[] takeQuota() {
+		synchronized (rateLimitLock) {
+			if (rateLimit <= 0) {
+				return null;
+			}
+			long now = System.currentTimeMillis();
+			if (now >= windowStart + rateLimitWindow) {
+				windowStart = now;
+				windowRequests = 0;
+			}
+			windowRequests++;
+			return new long[] { rateLimit, rateLimit - windowRequests,
+					(windowStart + rateLimitWindow + 999) / 1000 };
+		}
+	}
+
+	private boolean isInjectedError() {
+		double rate = errorRate;
+		if (rate <= 0) {
+			return false;
+		}
+		synchronized (random) {
+			return random.nextDouble() < rate;
+		}
+	}
+
+	private Response handle(Request request) {
+		String path = request.getPath();
+		if (!path.startsWith(API_PATH)) {
+			return Response.notFound();
+		}
+		String[] segments = path.substring(API_PATH.length()).split("/");
+		String endpoint = getEndpoint(segments);
+		count(endpoint);
+
+		if ("issues/list".equals(endpoint) && segments.length == 5) {
+			return Response.json(200, "{\"issues\":"
+					+ gson.toJson(getIssues(segments[4])) + "}");
+		}
+		if ("issues/search".equals(endpoint) && segments.length == 6) {
+			return Response.json(200, "{\"issues\":"
+					+ gson.toJson(searchIssues(segments[4], segments[5]))
+					+ "}");
+		}
+		if ("issues/show".equals(endpoint) && segments.length == 5) {
+			GitHubIssue issue = issues.get(segments[4]);
+			if (issue == null) {
+				return Response.notFound();
+			}
+			return Response.json(200, "{\"issue\":" + gson.toJson(issue)
+					+ "}");
+		}
+		if (("issues/label/add".equals(endpoint) || "issues/label/remove"
+				.equals(endpoint)) && segments.length == 7) {
+			return changeLabel(endpoint.endsWith("add"), segments[5],
+					segments[6]);
+		}
+		if ("issues/labels".equals(endpoint) && segments.length == 4) {
+			return Response.json(200, "{\"labels\":"
+					+ gson.toJson(getLabels()) + "}");
+		}
+		if ("issues/open".equals(endpoint) && segments.length == 4) {
+			return openIssue(request);
+		}
+		if (("issues/edit".equals(endpoint)
+				|| "issues/close".equals(endpoint) || "issues/reopen"
+				.equals(endpoint)) && segments.length == 5) {
+			return changeIssue(endpoint, segments[4], request);
+		}
+		if ("issues/comment".equals(endpoint) && segments.length == 5) {
+			return addComment(segments[4], request);
+		}
+		if ("issues/comments".equals(endpoint) && segments.length == 5) {
+			List<GitHubComment> issueComments = comments.get(segments[4]);
+			if (issueComments == null) {
+				return Response.notFound();
+			}
+			return Response.json(200,
+					"{\"comments\":" + gson.toJson(issueComments) + "}");
+		}
+		if ("user/show".equals(endpoint) && segments.length == 3) {
+			return showUser(segments[2]);
+		}
+		if ("user/emails".equals(endpoint) && segments.length == 2) {
+			return Response.json(200, "{\"emails\":[]}");
+		}
+		return Response.notFound();
+	}
+
+	/**
+	 * Tag successful reads with an ETag and answer 304 Not Modified when the
+	 * client already has the current representation.
+	 */
+	private Response revalidate(Request request, Response response) {
+		if (!"GET".equals(request.getMethod()) || response.getStatus() != 200) {
+			return response;
+		}
+		String etag = "\""
+				+ Integer.toHexString(Arrays.hashCode(response.getBody()))
+				+ "\"";
+		if (etag.equals(request.getHeader("If-None-Match"))) {
+			notModifiedResponses.incrementAndGet();
+			return new Response(304, new byte[0]).setHeader("ETag", etag);
+		}
+		return response.setHeader("ETag", etag);
+	}
+
+	private Response openIssue(Request request) {
+		synchronized (issues) {
+			GitHubIssue issue = new GitHubIssue();
+			issue.setNumber(Integer.toString(issues.size() + 1));
+			issue.setTitle(request.getParameter("title"));
+			issue.setBody(request.getParameter("body"));
+			issue.setState(GitHub.TASK_STATUS_OPEN);
+			addIssue(issue);
+			return Response.json(200, "{\"issue\":" + gson.toJson(issue)
+					+ "}");
+		}
+	}
+
+	private Response changeIssue(String endpoint, String number,
+			Request request) {
+		synchronized (issues) {
+			GitHubIssue issue = issues.get(number);
+			if (issue == null) {
+				return Response.notFound();
+			}
+			if ("issues/edit".equals(endpoint)) {
+				issue.setTitle(request.getParameter("title"));
+				issue.setBody(request.getParameter("body"));
+			} else {
+				issue.setState("issues/close".equals(endpoint) ? GitHub.TASK_STATUS_CLOSED
+						: GitHub.TASK_STATUS_OPEN);
+			}
+			return Response.json(200, "{\"issue\":" + gson.toJson(issue)
+					+ "}");
+		}
+	}
+
+	private Response addComment(String number, Request request) {
+		List<GitHubComment> issueComments = comments.get(number);
+		if (issueComments == null) {
+			return Response.notFound();
+		}
+		GitHubComment comment = new GitHubComment();
+		comment.setBody(request.getParameter("comment"));
+		synchronized (issueComments) {
+			comment.setId(number + "-" + (issueComments.size() + 1));
+			issueComments.add(comment);
+		}
+		return Response.json(200, "{\"comment\":" + gson.toJson(comment)
+				+ "}");
+	}
+
+	private Response changeLabel(boolean add, String label, String number) {
+		if (failingLabels.contains(label)) {
+			return Response.json(500, "{\"error\":\"label failed\"}");
+		}
+		synchronized (issues) {
+			GitHubIssue issue = issues.get(number);
+			if (issue == null) {
+				return Response.notFound();
+			}
+			List<String> labels = new ArrayList<String>();
+			if (issue.getLabels() != null) {
+				labels.addAll(issue.getLabels());
+			}
+			labels.remove(label);
+			if (add) {
+				labels.add(label);
+			}
+			issue.setLabels(labels);
+			return Response.json(200, "{\"labels\":" + gson.toJson(labels)
+					+ "}");
+		}
+	}
+
+	private Set<String> getLabels() {
+		Set<String> labels = new TreeSet<String>();
+		synchronized (issues) {
+			for (GitHubIssue issue : issues.values()) {
+				if (issue.getLabels() != null) {
+					labels.addAll(issue.getLabels());
+				}
+			}
+		}
+		return labels;
+	}
+
+	private Response showUser(String login) {
+		Map<String, String> user = new LinkedHashMap<String, String>();
+		user.put("login", login);
+		user.put("name", "User " + login);
+		user.put("gravatar_id", Integer.toHexString(login.hashCode()));
+		return Response.json(200, "{\"user\":" + gson.toJson(user) + "}");
+	}
+
+	/**
+	 * Issues of a state whose title or body contains a term, ignoring case.
+	 */
+	private List<GitHubIssue> searchIssues(String state, String term) {
+		String lowerTerm = term.toLowerCase(Locale.ENGLISH);
+		List<GitHubIssue> result = new ArrayList<GitHubIssue>();
+		for (GitHubIssue issue : getIssues(state)) {
+			if (contains(issue.getTitle(), lowerTerm)
+					|| contains(issue.getBody(), lowerTerm)) {
+				result.add(issue);
+			}
+		}
+		return result;
+	}
+
+	private static boolean contains(String text, String lowerTerm) {
+		return text != null
+				&& text.toLowerCase(Locale.ENGLISH).contains(lowerTerm);
+	}
+
+	private List<GitHubIssue> getIssues(String state) {
+		List<GitHubIssue> result = new ArrayList<GitHubIssue>();
+		synchronized (issues) {
+			for (GitHubIssue issue : issues.values()) {
+				if (state.equals(issue.getState())) {
+					result.add(issue);
+				}
+			}
+		}
+		return result;
+	}
+
+	private String getEndpoint(String[] segments) {
+		if (segments.length > 2 && "label".equals(segments[1])) {
+			return segments[0] + "/" + segments[1] + "/" + segments[2];
+		}
+		if (segments.length > 1) {
+			return segments[0] + "/" + segments[1];
+		}
+		return segments[0];
+	}
+
+	private void count(String endpoint) {
+		totalRequests.incrementAndGet();
+		AtomicInteger count = requestCounts.get(endpoint);
+		if (count == null) {
+			AtomicInteger newCount = new AtomicInteger();
+			count = requestCounts.putIfAbsent(endpoint, newCount);
+			if (count == null) {
+				count = newCount;
+			}
+		}
+		count.incrementAndGet();
+	}
+
+	/**
+	 * Parsed HTTP request.
+	 */
+	static final class Request {
+
+		private final String method;
+		private final String path;
+		private final String query;
+		private final Map<String, String> headers;
+		private final byte[] body;
+
+		private Request(String method, String path, String query,
+				Map<String, String> headers, byte[] body) {
+			this.method = method;
+			this.path = path;
+			this.query = query;
+			this.headers = headers;
+			this.body = body;
+		}
+
+		static Request read(InputStream input) throws IOException {
+			String requestLine = readLine(input);
+			while (requestLine != null && requestLine.length() == 0) {
+				requestLine = readLine(input);
+			}
+			if (requestLine == null) {
+				return null;
+			}
+			String[] parts = requestLine.split(" ");
+			if (parts.length < 2) {
+				return null;
+			}
+			Map<String, String> headers = new HashMap<String, String>();
+			String line = readLine(input);
+			while (line != null && line.length() > 0) {
+				int colon = line.indexOf(':');
+				if (colon > 0) {
+					headers.put(line.substring(0, colon).trim()
+							.toLowerCase(Locale.ENGLISH),
+							line.substring(colon + 1).trim());
+				}
+				line = readLine(input);
+			}
+			byte[] body = new byte[0];
+			String length = headers.get("content-length");
+			if (length != null) {
+				body = new byte[Integer.parseInt(length)];
+				int read = 0;
+				while (read < body.length) {
+					int n = input.read(body, read, body.length - read);
+					if (n < 0) {
+						return null;
+					}
+					read += n;
+				}
+			}
+			String target = parts[1];
+			int question = target.indexOf('?');
+			String path = question < 0 ? target : target.substring(0,
+					question);
+			String query = question < 0 ? null : target
+					.substring(question + 1);
+			return new Request(parts[0], URLDecoder.decode(path, CHARSET),
+					query, headers, body);
+		}
+
+		private static String readLine(InputStream input) throws IOException {
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			int c = input.read();
+			if (c < 0) {
+				return null;
+			}
+			while (c >= 0 && c != '\n') {
+				if (c != '\r') {
+					line.write(c);
+				}
+				c = input.read();
+			}
+			return line.toString("ISO-8859-1");
+		}
+
+		String getMethod() {
+			return method;
+		}
+
+		String getPath() {
+			return path;
+		}
+
+		String getQuery() {
+			return query;
+		}
+
+		String getHeader(String name) {
+			return headers.get(name.toLowerCase(Locale.ENGLISH));
+		}
+
+		byte[] getBody() {
+			return body;
+		}
+
+		/**
+		 * Get a form parameter from the query string or the url encoded
+		 * body.
+		 *
+		 * @param name
+		 * @return decoded value or null
+		 */
+		String getParameter(String name) {
+			String value = findParameter(query, name);
+			if (value == null && body.length > 0) {
+				try {
+					value = findParameter(new String(body, CHARSET), name);
+				} catch (UnsupportedEncodingException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+			return value;
+		}
+
+		private static String findParameter(String form, String name) {
+			if (form == null) {
+				return null;
+			}
+			for (String pair : form.split("&")) {
+				int equals = pair.indexOf('=');
+				String key = equals < 0 ? pair : pair.substring(0, equals);
+				if (key.equals(name)) {
+					try {
+						return equals < 0 ? "" : URLDecoder.decode(
+								pair.substring(equals + 1), CHARSET);
+					} catch (UnsupportedEncodingException e) {
+						throw new IllegalStateException(e);
+					}
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * HTTP response to be written back to the client.
+	 */
+	static final class Response {
+
+		private final int status;
+		private final byte[] body;
+		private final Map<String, String> headers = new LinkedHashMap<String, String>();
+
+		Response(int status, byte[] body) {
+			this.status = status;
+			this.body = body;
+		}
+
+		static Response json(int status, String json) {
+			try {
+				Response response = new Response(status,
+						json.getBytes(CHARSET));
+				response.setHeader("Content-Type",
+						"application/json; charset=utf-8");
+				return response;
+			} catch (UnsupportedEncodingException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		static Response notFound() {
+			return json(404, "{\"error\":\"not found\"}");
+		}
+
+		int getStatus() {
+			return status;
+		}
+
+		byte[] getBody() {
+			return body;
+		}
+
+		Response setHeader(String name, String value) {
+			headers.put(name, value);
+			return this;
+		}
+
+		/**
+		 * Compress the body with gzip if the client accepts it.
+		 *
+		 * @param acceptEncoding
+		 *            - value of the Accept-Encoding request header
+		 * @return compressed response, or this response
+		 * @throws IOException
+		 */
+		Response encode(String acceptEncoding) throws IOException {
+			if (acceptEncoding == null || status == 304 || body.length == 0
+					|| !acceptEncoding.toLowerCase(Locale.ENGLISH).contains(
+							"gzip")) {
+				return this;
+			}
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+			GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+			gzip.write(body);
+			gzip.close();
+			Response response = new Response(status, compressed.toByteArray());
+			response.headers.putAll(headers);
+			response.setHeader("Content-Encoding", "gzip");
+			return response;
+		}
+
+		void write(OutputStream output, boolean keepAlive) throws IOException {
+			StringBuilder head = new StringBuilder("HTTP/1.1 ")
+					.append(status).append(' ').append(getReason())
+					.append(CRLF);
+			for (Map.Entry<String, String> header : headers.entrySet()) {
+				head.append(header.getKey()).append(": ")
+						.append(header.getValue()).append(CRLF);
+			}
+			if (status != 304) {
+				head.append("Content-Length: ").append(body.length)
+						.append(CRLF);
+			}
+			if (!keepAlive) {
+				head.append("Connection: close").append(CRLF);
+			}
+			head.append(CRLF);
+			output.write(head.toString().getBytes("ISO-8859-1"));
+			output.write(body);
+			output.flush();
+		}
+
+		private String getReason() {
+			switch (status) {
+			case 200:
+				return "OK";
+			case 201:
+				return "Created";
+			case 304:
+				return "Not Modified";
+			case 403:
+				return "Forbidden";
+			case 404:
+				return "Not Found";
+			default:
+				return status >= 500 ? "Server Error" : "Status";
+			}
+		}
+	}
+
+}
@@ -0,0 +1,63 @@
+package org.eclipse.mylyn.github.tests.server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.mylyn.tasks.core.TaskRepository;
+import org.junit.After;
+import org.junit.Before;
+
+/**
+ * Base of the tests that run against a {@link StubGitHubServer}. A server is
+ * started for every test, together with a repository pointing at it and an
+ * executor for concurrent requests, and all are stopped after the test.
+ */
+public abstract class StubServerTestCase {
+
+	/**
+	 * Server of the running test.
+	 */
+	protected StubGitHubServer server;
+
+	/**
+	 * Repository of the server.
+	 */
+	protected TaskRepository repository;
+
+	/**
+	 * Executor for requests sent concurrently.
+	 */
+	protected ExecutorService executor;
+
+	/**
+	 * Start the stub server with the data set of the test.
+	 *
+	 * @throws Exception
+	 */
+	@Before
+	public final void startServer() throws Exception {
+		executor = Executors.newFixedThreadPool(4);
+		server = new StubGitHubServer();
+		populate(server);
+		server.start();
+		repository = server.createRepository("foo", "bar");
+	}
+
+	/**
+	 * Stop the stub server.
+	 */
+	@After
+	public final void stopServer() {
+		executor.shutdownNow();
+		server.stop();
+	}
+
+	/**
+	 * Fill the server with issues before it is started.
+	 *
+	 * @param stubServer
+	 *            - server to fill
+	 */
+	protected abstract void populate(StubGitHubServer stubServer);
+
+}
@@ -0,0 +1,211 @@
+/**
+ *
+ */
+package org.eclipse.mylyn.github.ui.internal;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.mylyn.github.internal.GitHubAvatarStore;
+import org.eclipse.mylyn.github.internal.GitHubServiceException;
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+
+/**
+ * <p>
+ * Decoded gravatar images shared by all task editors.
+ * </p>
+ * <p>
+ * Images are kept in a least recently used cache of at most
+ * {@link #MAX_IMAGES} entries. An image is only disposed once it is evicted
+ * and no label shows it any more, or when the display is disposed. Missing
+ * images are read from the {@link GitHubAvatarStore} by a background job and
+ * set on their labels when ready, so an editor never waits for an avatar.
+ * </p>
+ * <p>
+ * The cache must only be used from the UI thread.
+ * </p>
+ */
+final class GitHubAvatarCache {
+
+	/**
+	 * Number of decoded images kept. Images shown by a label are kept beyond
+	 * this limit.
+	 */
+	static final int MAX_IMAGES = 64;
+
+	private static GitHubAvatarCache instance;
+
+	private final Display display;
+
+	private final LinkedHashMap<String, Entry> images = new LinkedHashMap<String, Entry>(
+			16, 0.75f, true);
+
+	/**
+	 * Labels waiting for an avatar that is being loaded.
+	 */
+	private final Map<String, List<Label>> waiting = new HashMap<String, List<Label>>();
+
+	private GitHubAvatarCache(Display display) {
+		this.display = display;
+		display.disposeExec(new Runnable() {
+
+			public void run() {
+				dispose();
+			}
+		});
+	}
+
+	/**
+	 * @return the cache of the current display
+	 */
+	static GitHubAvatarCache getDefault() {
+		Display display = Display.getCurrent();
+		if (instance == null || instance.display != display) {
+			instance = new GitHubAvatarCache(display);
+		}
+		return instance;
+	}
+
+	/**
+	 * Show an avatar on a label, now if it is decoded already, otherwise
+	 * once it was loaded in the background.
+	 *
+	 * @param gravatarId
+	 *            - gravatar id, may be empty
+	 * @param label
+	 *            - label to show the avatar on
+	 */
+	void show(final String gravatarId, Label label) {
+		if (gravatarId == null || gravatarId.length() == 0) {
+			return;
+		}
+		Entry entry = images.get(gravatarId);
+		if (entry != null) {
+			attach(entry, label);
+			return;
+		}
+		List<Label> labels = waiting.get(gravatarId);
+		if (labels != null) {
+			labels.add(label);
+			return;
+		}
+		labels = new ArrayList<Label>();
+		labels.add(label);
+		waiting.put(gravatarId, labels);
+		Job job = new Job("Loading avatar") {
+
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				ImageData data = null;
+				try {
+					byte[] avatar = GitHubAvatarStore.getDefault().load(
+							gravatarId);
+					if (avatar != null) {
+						data = new ImageData(new ByteArrayInputStream(avatar));
+					}
+				} catch (GitHubServiceException e) {
+					// the label stays empty
+				} catch (SWTException e) {
+					// not an image
+				}
+				final ImageData loaded = data;
+				if (!display.isDisposed()) {
+					display.asyncExec(new Runnable() {
+
+						public void run() {
+							loaded(gravatarId, loaded);
+						}
+					});
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.schedule();
+	}
+
+	private void loaded(String gravatarId, ImageData data) {
+		List<Label> labels = waiting.remove(gravatarId);
+		if (data == null || display.isDisposed()) {
+			return;
+		}
+		Entry entry = new Entry(new Image(display, data));
+		images.put(gravatarId, entry);
+		if (labels != null) {
+			for (Label label : labels) {
+				attach(entry, label);
+			}
+		}
+		evict();
+	}
+
+	private void attach(final Entry entry, Label label) {
+		if (label.isDisposed()) {
+			return;
+		}
+		label.setImage(entry.image);
+		label.getParent().layout(true);
+		entry.references++;
+		label.addDisposeListener(new DisposeListener() {
+
+			public void widgetDisposed(DisposeEvent e) {
+				entry.references--;
+				evict();
+			}
+		});
+	}
+
+	/**
+	 * Dispose the least recently used images no label shows until the cache
+	 * is within its limit.
+	 */
+	private void evict() {
+		Iterator<Entry> entries = images.values().iterator();
+		int size = images.size();
+		while (size > MAX_IMAGES && entries.hasNext()) {
+			Entry entry = entries.next();
+			if (entry.references == 0) {
+				entries.remove();
+				entry.image.dispose();
+				size--;
+			}
+		}
+	}
+
+	private void dispose() {
+		for (Entry entry : images.values()) {
+			entry.image.dispose();
+		}
+		images.clear();
+		waiting.clear();
+	}
+
+	/**
+	 * Decoded image and the number of labels showing it.
+	 */
+	private static final class Entry {
+
+		private final Image image;
+		private int references;
+
+		private Entry(Image image) {
+			this.image = image;
+		}
+	}
+
+}
@@ -3,18 +3,12 @@
  */
 package org.eclipse.mylyn.github.ui.internal;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-
 import org.eclipse.jface.layout.GridDataFactory;
 import org.eclipse.mylyn.github.internal.GitHub;
-import org.eclipse.mylyn.github.internal.GitHubService;
-import org.eclipse.mylyn.github.internal.GitHubServiceException;
 import org.eclipse.mylyn.tasks.core.data.TaskAttribute;
 import org.eclipse.mylyn.tasks.ui.editors.AbstractAttributeEditor;
 import org.eclipse.mylyn.tasks.ui.editors.AbstractTaskEditorPart;
 import org.eclipse.swt.SWT;
-import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Label;
@@ -30,6 +24,7 @@ import org.eclipse.ui.forms.widgets.Section;
 public class GitHubPeopleTaskEditorPart extends AbstractTaskEditorPart {
 	private static final int THREE_COLUMNS = 3;
 	private static final int COLUMN_MARGIN = 5;
+	private static final int GRAVATAR_SIZE = 20;
 
 	public GitHubPeopleTaskEditorPart() {
 		setPartName("People");
@@ -47,7 +42,7 @@ public class GitHubPeopleTaskEditorPart extends AbstractTaskEditorPart {
 				TaskAttribute.USER_REPORTER);
 		user.getMetaData().setType(TaskAttribute.TYPE_URL);
 		user.setValue(getUserProfileUrl(user.getValue()));
-		addAttribute(peopleComposite, toolkit, user, getGravatar(gravatarId));
+		addAttribute(peopleComposite, toolkit, user, gravatarId);
 
 		toolkit.paintBordersFor(peopleComposite);
 		section.setClient(peopleComposite);
@@ -60,14 +55,15 @@ public class GitHubPeopleTaskEditorPart extends AbstractTaskEditorPart {
 	}
 
 	private void addAttribute(Composite composite, FormToolkit toolkit,
-			TaskAttribute attribute, Image gravatarImage) {
+			TaskAttribute attribute, String gravatarId) {
 		AbstractAttributeEditor editor = createAttributeEditor(attribute);
 		if (editor != null) {
 			editor.createLabelControl(composite, toolkit);
-			if (gravatarImage != null) {
-				Label gravatar = new Label(composite, SWT.BITMAP);
-				gravatar.setImage(gravatarImage);
-			}
+			Label gravatar = new Label(composite, SWT.BITMAP);
+			GridDataFactory.swtDefaults().hint(GRAVATAR_SIZE, GRAVATAR_SIZE)
+					.applyTo(gravatar);
+			// the avatar is filled in when loaded, without blocking the editor
+			GitHubAvatarCache.getDefault().show(gravatarId, gravatar);
 			GridDataFactory.defaultsFor(editor.getLabelControl())
 					.indent(COLUMN_MARGIN, 0).applyTo(editor.getLabelControl());
 			editor.createControl(composite, toolkit);
@@ -77,28 +73,4 @@ public class GitHubPeopleTaskEditorPart extends AbstractTaskEditorPart {
 		}
 	}
 
-	private Image getGravatar(String gravatarId) {
-		byte gravatarRaw[] = null;
-		try {
-			gravatarRaw = GitHubService.getUserService(null).retrieveGravatar(
-					gravatarId);
-		} catch (GitHubServiceException e) {
-			// ignore for now
-		}
-		Image image = null;
-		if (gravatarRaw != null) {
-			ByteArrayInputStream inputStream = new ByteArrayInputStream(
-					gravatarRaw);
-			image = new Image(null, inputStream);
-			try {
-				inputStream.close();
-			} catch (IOException e) {
-				// ignore for now
-			}
-		}
-
-		return image;
-
-	}
-
 }
@@ -18,9 +18,13 @@ package org.eclipse.mylyn.github.ui.internal;
 
 import java.util.List;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.dialogs.Dialog;
 import org.eclipse.jface.dialogs.MessageDialog;
-import org.eclipse.mylyn.github.internal.GitHubService;
+import org.eclipse.mylyn.github.internal.GitHubRepositoryConfiguration;
 import org.eclipse.mylyn.github.internal.GitHubServiceException;
 import org.eclipse.mylyn.tasks.core.IRepositoryQuery;
 import org.eclipse.mylyn.tasks.core.TaskRepository;
@@ -37,6 +41,7 @@ import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.ProgressBar;
 import org.eclipse.swt.widgets.Text;
 
 /**
@@ -62,9 +67,15 @@ public class GitHubRepositoryQueryPage extends AbstractRepositoryQueryPage {
 
 	private Combo status = null;
 	private Combo label = null;
+	private ProgressBar labelProgress = null;
 
 	private boolean firstTime = true;
 
+	/**
+	 * Job loading the labels, null if none is running.
+	 */
+	private LabelJob labelJob = null;
+
 	private final TaskRepository taskRepository;
 
 	/**
@@ -155,12 +166,20 @@ public class GitHubRepositoryQueryPage extends AbstractRepositoryQueryPage {
 		GridData buttonGridData = new GridData(SWT.FILL, SWT.CENTER, true,
 				false);
 		updateButton.setLayoutData(buttonGridData);
+
+		labelProgress = new ProgressBar(parent, SWT.HORIZONTAL
+				| SWT.INDETERMINATE);
+		labelProgress.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true,
+				false));
+		labelProgress.setToolTipText("Loading labels");
+		labelProgress.setVisible(false);
+
 		updateButton.addSelectionListener(new SelectionAdapter() {
 
 			@Override
 			public void widgetSelected(SelectionEvent e) {
 				if (getTaskRepository() != null) {
-					updateAttributesFromRepository();
+					updateAttributesFromRepository(true);
 				} else {
 					MessageDialog.openInformation(Display.getCurrent()
 							.getActiveShell(), "Failed to update attributes",
@@ -194,53 +213,100 @@ public class GitHubRepositoryQueryPage extends AbstractRepositoryQueryPage {
 		// create the label option combo box
 		new Label(parent, SWT.LEFT).setText("Issue Label:");
 		label = new Combo(parent, SWT.READ_ONLY);
-		String queryLabelsValues[] = new String[] { "all" };
-		label.setItems(queryLabelsValues);
+		label.add("all");
 		label.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
 		label.select(0);
+		// offer the label of the query while the labels are loaded, so
+		// finishing the page early does not widen the query to all labels
 		String queryModelLabelStatus = getQuery() == null ? null : getQuery()
 				.getAttribute(ATTR_QUERY_LABEL);
-		if (queryModelLabelStatus != null) {
-			for (int x = 0; x < queryLabelsValues.length; ++x) {
-				if (queryLabelsValues[x].equals(queryModelLabelStatus)) {
-					label.select(x);
-					break;
-				}
-			}
+		if (queryModelLabelStatus != null
+				&& !"all".equals(queryModelLabelStatus)) {
+			label.add(queryModelLabelStatus);
+			label.select(1);
 		}
 
 	}
 
-	private void updateAttributesFromRepository() {
-		
-		List<String> labelsValues = null;
-		try {
-			labelsValues = GitHubService.getLabelsService(taskRepository)
-					.retrieve();
-		} catch (GitHubServiceException e) {
+	/**
+	 * Fill the label combo from the labels shared by the repository's
+	 * editors. Labels known already are shown right away, labels that have
+	 * to be read from the server are loaded by a background job that fills
+	 * the combo when it is done, so the page never waits for the network.
+	 * 
+	 * @param refresh
+	 *            - true to read the labels from the server even if they are
+	 *            not stale
+	 */
+	private void updateAttributesFromRepository(boolean refresh) {
+		GitHubRepositoryConfiguration configuration = GitHubRepositoryConfiguration
+				.get(taskRepository);
+		List<String> labelsValues = configuration.getLabels();
+		if (labelsValues != null) {
+			setLabels(labelsValues);
+			if (!refresh && !configuration.isStale()) {
+				return;
+			}
+		}
+		if (labelJob != null) {
+			labelJob.cancel();
+		}
+		labelJob = new LabelJob(configuration, refresh);
+		labelProgress.setVisible(true);
+		labelJob.schedule();
+	}
+
+	/**
+	 * Called in the UI thread when a label job is done.
+	 */
+	private void labelsLoaded(LabelJob job, List<String> labelsValues,
+			GitHubServiceException error) {
+		if (job != labelJob || label.isDisposed()) {
+			return;
+		}
+		labelJob = null;
+		labelProgress.setVisible(false);
+		if (error != null) {
 			MessageDialog.openInformation(
 					Display.getCurrent().getActiveShell(),
-					"Seervice not available.", e.getMessage());
+					"Seervice not available.", error.getMessage());
+		} else {
+			setLabels(labelsValues);
 		}
+	}
+
+	/**
+	 * Fill the label combo, keeping the label selected by the user or, if
+	 * none is, the label of the query. A selected label the repository no
+	 * longer has is kept as well.
+	 */
+	private void setLabels(List<String> labelsValues) {
+		String selected = label.getSelectionIndex() > 0 ? label.getText()
+				: getQuery() == null ? null : getQuery().getAttribute(
+						ATTR_QUERY_LABEL);
 		label.removeAll();
-		if (labelsValues != null) {
-			for (String labelValue : labelsValues) {
-				label.add(labelValue);
-			}
+		for (String labelValue : labelsValues) {
+			label.add(labelValue);
 		}
 		label.add("all", 0);
 		label.select(0);
-		String queryModelLabelStatus = getQuery() == null ? null : getQuery()
-				.getAttribute(ATTR_QUERY_LABEL);
-		if (queryModelLabelStatus != null) {
-			for (int x = 0; x < labelsValues.size(); ++x) {
-				if (labelsValues.get(x).equals(queryModelLabelStatus)) {
-					label.select(x + 1);
-					break;
-				}
+		if (selected != null && !"all".equals(selected)) {
+			int index = labelsValues.indexOf(selected);
+			if (index < 0) {
+				label.add(selected);
+				index = labelsValues.size();
 			}
+			label.select(index + 1);
 		}
+	}
 
+	@Override
+	public void dispose() {
+		if (labelJob != null) {
+			labelJob.cancel();
+			labelJob = null;
+		}
+		super.dispose();
 	}
 
 	@Override
@@ -253,18 +319,7 @@ public class GitHubRepositoryQueryPage extends AbstractRepositoryQueryPage {
 
 		if (visible && firstTime) {
 			firstTime = false;
-
-			// delay the execution so the dialog's progress bar is visible
-			// when the attributes are updated
-			Display.getDefault().asyncExec(new Runnable() {
-				public void run() {
-					if (getControl() != null && !getControl().isDisposed()) {
-						updateAttributesFromRepository();
-					}
-				}
-
-			});
-
+			updateAttributesFromRepository(false);
 		}
 	}
 
@@ -276,4 +331,51 @@ public class GitHubRepositoryQueryPage extends AbstractRepositoryQueryPage {
 		return false;
 	}
 
+	/**
+	 * Reads the labels of the repository in the background and hands them to
+	 * the page in the UI thread. A cancelled job still finishes its request,
+	 * but its result is dropped.
+	 */
+	private final class LabelJob extends Job {
+
+		private final GitHubRepositoryConfiguration configuration;
+		private final boolean refresh;
+		private final Display display;
+
+		private LabelJob(GitHubRepositoryConfiguration configuration,
+				boolean refresh) {
+			super("Loading labels");
+			this.configuration = configuration;
+			this.refresh = refresh;
+			this.display = label.getDisplay();
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			List<String> labelsValues = null;
+			GitHubServiceException error = null;
+			try {
+				labelsValues = refresh ? configuration.refresh(taskRepository)
+						: configuration.getLabels(taskRepository);
+			} catch (GitHubServiceException e) {
+				error = e;
+			}
+			if (monitor.isCanceled()) {
+				return Status.CANCEL_STATUS;
+			}
+			final List<String> loaded = labelsValues;
+			final GitHubServiceException failure = error;
+			if (!display.isDisposed()) {
+				display.asyncExec(new Runnable() {
+
+					public void run() {
+						labelsLoaded(LabelJob.this, loaded, failure);
+					}
+				});
+			}
+			return Status.OK_STATUS;
+		}
+	}
+
 }